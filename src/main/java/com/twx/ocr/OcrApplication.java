@@ -2,12 +2,18 @@ package com.twx.ocr;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Profiles;
 
 @SpringBootApplication
 public class OcrApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(OcrApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(OcrApplication.class, args);
+        if (context.getEnvironment().acceptsProfiles(Profiles.of("cli"))) {
+            // 命令行批处理结束后关闭容器，以批处理结果作为进程退出码
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
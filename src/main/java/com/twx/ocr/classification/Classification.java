@@ -0,0 +1,41 @@
+package com.twx.ocr.classification;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 证件分类结果
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class Classification {
+
+    /**
+     * 证件类型（身份证、营业执照、驾驶证、护照、未知类型）
+     */
+    private final String documentType;
+
+    /**
+     * 最高得分
+     */
+    private final int score;
+
+    /**
+     * 第二高的得分，用于判断分类结果是否有歧义
+     */
+    private final int runnerUpScore;
+
+    /**
+     * 置信度（高、中、低）
+     */
+    private final String confidence;
+
+    /**
+     * 最高得分领先第二名的分差
+     */
+    public int getMargin() {
+        return score - runnerUpScore;
+    }
+}
@@ -0,0 +1,98 @@
+package com.twx.ocr.classification;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 基于关键词和正则的证件分类器
+ * <p>
+ * 规则与 ocr_classifier.py 中的 classify_document_type_from_texts 保持一致，
+ * 供不在Python中分类的识别引擎（如ONNX引擎）使用。
+ */
+@Component
+public class DocumentClassifier {
+
+    public static final String UNKNOWN_TYPE = "未知类型";
+
+    private static final List<String> IDENTITY_KEYWORDS = Arrays.asList(
+            "居民身份证", "中华人民共和国", "身份证", "出生", "性别", "民族", "住址",
+            "公民身份号码", "签发机关", "有效期限");
+
+    private static final List<String> LICENSE_KEYWORDS = Arrays.asList(
+            "营业执照", "统一社会信用代码", "法定代表人", "注册资本", "成立日期",
+            "营业期限", "经营范围", "住所", "类型");
+
+    private static final List<String> DRIVING_KEYWORDS = Arrays.asList(
+            "驾驶证", "机动车驾驶证", "准驾车型", "有效期限", "初次领证日期");
+
+    private static final List<String> PASSPORT_KEYWORDS = Arrays.asList(
+            "护照", "PASSPORT", "中华人民共和国护照", "签发机关", "签发日期");
+
+    private static final Pattern ID_NUMBER = Pattern.compile("\\d{17}[\\dX]");
+
+    private static final Pattern CREDIT_CODE = Pattern.compile("[0-9A-HJ-NPQRTUWXY]{2}\\d{6}[0-9A-HJ-NPQRTUWXY]{10}");
+
+    /**
+     * 正则命中时的加分
+     */
+    private static final int PATTERN_BONUS = 3;
+
+    /**
+     * 根据识别文本判断证件类型
+     */
+    public Classification classify(List<String> recTexts) {
+        if (recTexts == null || recTexts.isEmpty()) {
+            return new Classification(UNKNOWN_TYPE, 0, 0, "低");
+        }
+
+        String textContent = String.join(" ", recTexts).toUpperCase();
+
+        // 按插入顺序比较，得分相同时与Python实现一样取先出现的类型
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        scores.put("身份证", countKeywords(textContent, IDENTITY_KEYWORDS)
+                + (ID_NUMBER.matcher(textContent).find() ? PATTERN_BONUS : 0));
+        scores.put("营业执照", countKeywords(textContent, LICENSE_KEYWORDS)
+                + (CREDIT_CODE.matcher(textContent).find() ? PATTERN_BONUS : 0));
+        scores.put("驾驶证", countKeywords(textContent, DRIVING_KEYWORDS));
+        scores.put("护照", countKeywords(textContent, PASSPORT_KEYWORDS));
+
+        String documentType = UNKNOWN_TYPE;
+        int maxScore = 0;
+        int runnerUpScore = 0;
+        for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+            if (entry.getValue() > maxScore) {
+                runnerUpScore = maxScore;
+                maxScore = entry.getValue();
+                documentType = entry.getKey();
+            } else if (entry.getValue() > runnerUpScore) {
+                runnerUpScore = entry.getValue();
+            }
+        }
+
+        return new Classification(documentType, maxScore, runnerUpScore, confidenceOf(maxScore));
+    }
+
+    private int countKeywords(String textContent, List<String> keywords) {
+        int score = 0;
+        for (String keyword : keywords) {
+            if (textContent.contains(keyword)) {
+                score++;
+            }
+        }
+        return score;
+    }
+
+    private String confidenceOf(int score) {
+        if (score >= 3) {
+            return "高";
+        } else if (score >= 2) {
+            return "中";
+        }
+        return "低";
+    }
+}
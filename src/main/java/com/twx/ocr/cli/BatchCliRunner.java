@@ -0,0 +1,300 @@
+package com.twx.ocr.cli;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.DocumentClassificationResult;
+import com.twx.ocr.dto.OcrRequest;
+import com.twx.ocr.dto.OcrResponse;
+import com.twx.ocr.dto.OutputMode;
+import com.twx.ocr.dto.ProcessingMode;
+import com.twx.ocr.dto.ResponseView;
+import com.twx.ocr.exception.OcrException;
+import com.twx.ocr.service.OcrService;
+import com.twx.ocr.util.ArchiveImages;
+import com.twx.ocr.util.FileUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 命令行批处理（cli profile，不启动Web服务）
+ * <p>
+ * 用于离线批量回灌：逐个展开输入的目录树和文件列表，经与HTTP接口相同的识别流程并行处理，
+ * 结果按输入顺序逐行写入JSON Lines文件，定期输出进度和吞吐，结束后以退出码报告结果。
+ * 压缩包按条目流式识别，结果的imagePath为“压缩包路径!/条目名称”。退出码：
+ * 0 全部成功，1 部分图片失败，2 参数错误或批处理异常中止。
+ * <pre>
+ * java -jar OCR.jar --spring.profiles.active=cli --input=/data/scans --file-list=list.txt \
+ *     --output=output/cli-results.jsonl --mode=CLASSIFY
+ * </pre>
+ */
+@Slf4j
+@Component
+@Profile("cli")
+@RequiredArgsConstructor
+public class BatchCliRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    static final int EXIT_OK = 0;
+
+    static final int EXIT_FAILURES = 1;
+
+    static final int EXIT_ERROR = 2;
+
+    private static final String DEFAULT_OUTPUT = "output/cli-results.jsonl";
+
+    /**
+     * 压缩包条目结果的路径分隔符，与jar URL的写法一致
+     */
+    private static final String ARCHIVE_ENTRY_SEPARATOR = "!/";
+
+    /**
+     * 每个处理线程对应的待写出结果数，窗口满时等待最早的结果写出，保证顺序输出且内存有界
+     */
+    private static final int WINDOW_PER_THREAD = 4;
+
+    private final OcrConfig ocrConfig;
+
+    private final OcrService ocrService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private volatile int exitCode = EXIT_OK;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            exitCode = runBatch(args);
+        } catch (Exception e) {
+            log.error("命令行批处理失败", e);
+            exitCode = EXIT_ERROR;
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private int runBatch(ApplicationArguments args) throws IOException, InterruptedException {
+        List<String> inputs = optionValues(args, "input");
+        List<String> fileLists = optionValues(args, "file-list");
+        if (inputs.isEmpty() && fileLists.isEmpty()) {
+            log.error("未指定输入，用法: --input=<目录或图片>（可重复） --file-list=<路径列表文件>（可重复） "
+                    + "[--output=<结果文件>] [--mode=FULL|CLASSIFY] [--view=TYPE|FIELDS|FULL] [--parallelism=<线程数>] "
+                    + "[--output-mode=OFF|JSON|JSON_WITH_VISUALIZATION] [--output-dir=<ocr.default-output-dir下的结果文件目录>]");
+            return EXIT_ERROR;
+        }
+
+        OcrRequest options = new OcrRequest();
+        String mode = optionValue(args, "mode", null);
+        if (mode != null) {
+            options.setMode(ProcessingMode.valueOf(mode.toUpperCase(Locale.ROOT)));
+        }
+        String view = optionValue(args, "view", null);
+        if (view != null) {
+            options.setView(ResponseView.valueOf(view.toUpperCase(Locale.ROOT)));
+        }
+        options.setIncludeTimings(Boolean.parseBoolean(optionValue(args, "include-timings", "false")));
+        // 结果已写入JSON Lines文件，默认不再逐张写结果文件
+        options.setOutputMode(OutputMode.valueOf(optionValue(args, "output-mode", OutputMode.OFF.name())
+                .toUpperCase(Locale.ROOT)));
+        options.setOutputDir(optionValue(args, "output-dir", null));
+
+        String parallelismValue = optionValue(args, "parallelism", null);
+        // 默认线程数为并发上限的两倍，使校验和结果解析与识别重叠，实际识别并发仍由自适应限制器控制
+        int parallelism = parallelismValue != null ?
+                Integer.parseInt(parallelismValue) : ocrService.metrics().getMaxConcurrencyLimit() * 2;
+        if (parallelism < 1) {
+            throw new OcrException("并行线程数必须大于0: " + parallelism);
+        }
+        long progressIntervalMs = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(optionValue(args, "progress-interval-seconds", "10")));
+
+        File outputFile = new File(optionValue(args, "output", DEFAULT_OUTPUT));
+        if (outputFile.getAbsoluteFile().getParentFile() != null) {
+            FileUtils.createDirectoryIfNotExists(outputFile.getAbsoluteFile().getParent());
+        }
+
+        log.info("命令行批处理开始，输入: {}，文件列表: {}，并行线程: {}，结果文件: {}",
+                inputs, fileLists, parallelism, outputFile.getAbsolutePath());
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "ocr-cli-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Summary summary = new Summary(progressIntervalMs);
+        Deque<PendingImage> window = new ArrayDeque<>();
+        int windowSize = parallelism * WINDOW_PER_THREAD;
+
+        try (CliInputs cliInputs = new CliInputs(inputs, fileLists, ocrConfig.getSupportedFormats());
+             BufferedWriter writer = Files.newBufferedWriter(outputFile.toPath(), StandardCharsets.UTF_8)) {
+            while (cliInputs.hasNext()) {
+                String imagePath = cliInputs.next();
+                window.add(new PendingImage(imagePath, submit(executor, imagePath, options)));
+                if (window.size() >= windowSize) {
+                    write(writer, window.poll(), summary);
+                }
+            }
+            while (!window.isEmpty()) {
+                write(writer, window.poll(), summary);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        summary.logFinished(outputFile);
+        if (summary.total == 0) {
+            log.error("输入中未找到支持的图片文件");
+            return EXIT_ERROR;
+        }
+        return summary.failures > 0 ? EXIT_FAILURES : EXIT_OK;
+    }
+
+    private Future<List<DocumentClassificationResult>> submit(ExecutorService executor, String imagePath,
+                                                              OcrRequest options) {
+        if (ArchiveImages.isArchive(imagePath)) {
+            return executor.submit(() -> archiveResults(imagePath, options));
+        }
+        return executor.submit(() -> {
+            OcrResponse response = ocrService.processSingleImage(imagePath, options);
+            return Collections.singletonList(response.getResult() != null ?
+                    response.getResult() : failure(imagePath, response.getErrorMessage()));
+        });
+    }
+
+    /**
+     * 识别压缩包中的全部图片，条目内部仍并行识别
+     */
+    private List<DocumentClassificationResult> archiveResults(String archivePath, OcrRequest options) {
+        OcrResponse response = ocrService.processBatchImages(archivePath, options);
+        if (response.getResults() == null) {
+            return Collections.singletonList(failure(archivePath, response.getErrorMessage()));
+        }
+        for (DocumentClassificationResult result : response.getResults()) {
+            result.setImagePath(archivePath + ARCHIVE_ENTRY_SEPARATOR + result.getImagePath());
+            if (result.getDuplicateOf() != null) {
+                result.setDuplicateOf(archivePath + ARCHIVE_ENTRY_SEPARATOR + result.getDuplicateOf());
+            }
+        }
+        return response.getResults();
+    }
+
+    private void write(BufferedWriter writer, PendingImage pending, Summary summary)
+            throws IOException, InterruptedException {
+        List<DocumentClassificationResult> results;
+        try {
+            results = pending.future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            results = Collections.singletonList(failure(pending.imagePath, cause.getMessage()));
+        }
+        for (DocumentClassificationResult result : results) {
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.newLine();
+            summary.record(Boolean.TRUE.equals(result.getSuccess()));
+        }
+    }
+
+    private DocumentClassificationResult failure(String imagePath, String error) {
+        return DocumentClassificationResult.builder()
+                .imagePath(imagePath)
+                .success(false)
+                .error(error)
+                .build();
+    }
+
+    private static List<String> optionValues(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values != null ? values : Collections.emptyList();
+    }
+
+    private static String optionValue(ApplicationArguments args, String name, String defaultValue) {
+        List<String> values = args.getOptionValues(name);
+        return values != null && !values.isEmpty() ? values.get(values.size() - 1) : defaultValue;
+    }
+
+    /**
+     * 已提交、等待写出结果的输入，识别异常时结果行仍带输入路径，便于按结果文件重试
+     */
+    private static class PendingImage {
+
+        private final String imagePath;
+
+        private final Future<List<DocumentClassificationResult>> future;
+
+        PendingImage(String imagePath, Future<List<DocumentClassificationResult>> future) {
+            this.imagePath = imagePath;
+            this.future = future;
+        }
+    }
+
+    /**
+     * 处理进度统计，按间隔输出进度和吞吐
+     */
+    private static class Summary {
+
+        private final long progressIntervalMs;
+
+        private final long startMillis = System.currentTimeMillis();
+
+        private long lastProgressMillis = startMillis;
+
+        private int total;
+
+        private int failures;
+
+        Summary(long progressIntervalMs) {
+            this.progressIntervalMs = progressIntervalMs;
+        }
+
+        void record(boolean success) {
+            total++;
+            if (!success) {
+                failures++;
+            }
+            long now = System.currentTimeMillis();
+            if (progressIntervalMs > 0 && now - lastProgressMillis >= progressIntervalMs) {
+                lastProgressMillis = now;
+                log.info("已处理 {} 张，成功 {}，失败 {}，吞吐 {} 张/秒",
+                        total, total - failures, failures, throughput(now));
+            }
+        }
+
+        void logFinished(File outputFile) {
+            long elapsedMs = System.currentTimeMillis() - startMillis;
+            log.info("命令行批处理完成，共 {} 张，成功 {}，失败 {}，耗时 {} 秒，吞吐 {} 张/秒，结果文件: {}",
+                    total, total - failures, failures, String.format("%.1f", elapsedMs / 1000.0),
+                    throughput(System.currentTimeMillis()), outputFile.getAbsolutePath());
+        }
+
+        private String throughput(long now) {
+            double seconds = Math.max(1, now - startMillis) / 1000.0;
+            return String.format("%.2f", total / seconds);
+        }
+    }
+}
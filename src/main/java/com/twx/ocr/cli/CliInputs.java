@@ -0,0 +1,139 @@
+package com.twx.ocr.cli;
+
+import com.twx.ocr.exception.OcrException;
+import com.twx.ocr.util.ArchiveImages;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * 命令行批处理的输入来源
+ * <p>
+ * 支持目录树（递归）、单个文件和文件列表（每行一个路径，#开头为注释），按参数顺序逐个展开；
+ * 目录中的压缩包（.zip、.tar、.tar.gz、.tgz）作为一个输入返回。
+ * 目录和文件列表都是惰性读取的，数百万路径也不会一次性加载到内存。
+ */
+class CliInputs implements Iterator<String>, Closeable {
+
+    private static final String TREE = "tree:";
+
+    private static final String LIST = "list:";
+
+    private final String[] supportedFormats;
+
+    /**
+     * 尚未展开的来源，元素为 {@link #TREE} 或 {@link #LIST} 前缀加路径
+     */
+    private final Deque<String> pendingSources = new ArrayDeque<>();
+
+    private Closeable currentResource;
+
+    private Iterator<String> current;
+
+    private String next;
+
+    CliInputs(List<String> inputs, List<String> fileLists, String[] supportedFormats) {
+        this.supportedFormats = supportedFormats;
+        for (String input : inputs) {
+            pendingSources.add(TREE + input);
+        }
+        for (String fileList : fileLists) {
+            pendingSources.add(LIST + fileList);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (current != null && current.hasNext()) {
+                next = current.next();
+            } else if (!openNextSource()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String path = next;
+        next = null;
+        return path;
+    }
+
+    private boolean openNextSource() {
+        closeCurrent();
+        String source = pendingSources.poll();
+        if (source == null) {
+            return false;
+        }
+        try {
+            if (source.startsWith(LIST)) {
+                BufferedReader reader = Files.newBufferedReader(Paths.get(source.substring(LIST.length())),
+                        StandardCharsets.UTF_8);
+                currentResource = reader;
+                current = reader.lines()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .iterator();
+            } else {
+                String input = source.substring(TREE.length());
+                if (new File(input).isFile()) {
+                    // 直接指定的文件不按扩展名过滤，格式不支持时由识别流程报告失败
+                    current = Arrays.asList(input).iterator();
+                } else {
+                    Stream<Path> walk = Files.walk(Paths.get(input));
+                    currentResource = walk::close;
+                    current = walk.filter(Files::isRegularFile)
+                            .map(Path::toString)
+                            .filter(this::isCandidate)
+                            .iterator();
+                }
+            }
+        } catch (IOException e) {
+            throw new OcrException("读取输入失败: " + source.substring(source.indexOf(':') + 1), e);
+        }
+        return true;
+    }
+
+    private boolean isCandidate(String path) {
+        String extension = FilenameUtils.getExtension(path);
+        // 压缩包与图片一起返回，由批处理按条目展开
+        return ArchiveImages.isArchive(path) || Arrays.stream(supportedFormats).anyMatch(format -> format.equalsIgnoreCase(extension));
+    }
+
+    private void closeCurrent() {
+        current = null;
+        if (currentResource != null) {
+            try {
+                currentResource.close();
+            } catch (IOException e) {
+                // 只读资源，关闭失败不影响结果
+            }
+            currentResource = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeCurrent();
+        pendingSources.clear();
+    }
+}
@@ -1,9 +1,15 @@
 package com.twx.ocr.config;
 
+import com.twx.ocr.dto.OutputMode;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * OCR配置类
  */
@@ -46,4 +52,264 @@ public class OcrConfig {
      * 最大文件大小（MB）
      */
     private Integer maxFileSizeMb = 10;
+    
+    /**
+     * 识别引擎：python（常驻Python工作进程）、onnx（进程内ONNX Runtime）、stub（测试桩）
+     */
+    private String engine = "python";
+    
+    /**
+     * 常驻OCR工作进程数量
+     */
+    private Integer workerCount = 2;
+    
+    /**
+     * 是否在启动时预热工作进程
+     */
+    private Boolean warmupEnabled = true;
+    
+    /**
+     * 就绪所需的最少已预热工作进程数
+     */
+    private Integer minReadyWorkers = 1;
+    
+    /**
+     * 工作进程启动（加载模型）超时时间（秒）
+     */
+    private Integer workerStartTimeoutSeconds = 180;
+    
+    /**
+     * 传给工作进程的额外环境变量（如 OMP_NUM_THREADS）
+     */
+    private Map<String, String> workerEnvironment = new HashMap<>();
+    
+    /**
+     * 分页批量结果最多保留的批次数
+     */
+    private Integer batchResultMaxEntries = 100;
+    
+    /**
+     * 分页批量结果保留时间（分钟）
+     */
+    private Integer batchResultTtlMinutes = 30;
+    
+    /**
+     * 分页批量结果总大小上限（MB，按序列化后的JSON估算），超过时淘汰最久未访问的批次
+     */
+    private Long batchResultMaxMb = 256L;
+    
+    /**
+     * 是否支持zstd响应压缩（gzip由server.compression负责）
+     */
+    private Boolean zstdEnabled = true;
+    
+    /**
+     * zstd压缩级别
+     */
+    private Integer zstdLevel = 3;
+    
+    /**
+     * 响应体达到该大小（字节）才压缩
+     */
+    private Integer compressionMinBytes = 2048;
+    
+    /**
+     * ONNX文本检测模型路径（PaddleOCR det模型经paddle2onnx导出）
+     */
+    private String onnxDetModelPath = "models/det.onnx";
+    
+    /**
+     * ONNX文本识别模型路径（PaddleOCR rec模型经paddle2onnx导出）
+     */
+    private String onnxRecModelPath = "models/rec.onnx";
+    
+    /**
+     * 识别模型字典文件路径（如ppocr_keys_v1.txt）
+     */
+    private String onnxRecDictPath = "models/ppocr_keys_v1.txt";
+    
+    /**
+     * 单次推理使用的线程数（0表示由ONNX Runtime决定）
+     */
+    private Integer onnxIntraOpThreads = 0;
+    
+    /**
+     * 检测输入的最长边限制（像素）
+     */
+    private Integer onnxDetLimitSideLen = 960;
+    
+    /**
+     * 检测概率图二值化阈值
+     */
+    private Double onnxDetThreshold = 0.3;
+    
+    /**
+     * 文本框平均得分阈值，低于该值的框被丢弃
+     */
+    private Double onnxDetBoxThreshold = 0.6;
+    
+    /**
+     * 文本框外扩比例
+     */
+    private Double onnxDetUnclipRatio = 1.5;
+    
+    /**
+     * 识别结果得分阈值，低于该值的文本被丢弃
+     */
+    private Double onnxRecDropScore = 0.5;
+    
+    /**
+     * 识别批大小
+     */
+    private Integer onnxRecBatchSize = 6;
+    
+    /**
+     * 测试桩引擎的模拟耗时（毫秒）
+     */
+    private Integer stubLatencyMs = 0;
+    
+    /**
+     * 测试桩引擎返回的文本（为空时返回内置身份证样例）
+     */
+    private List<String> stubTexts = new ArrayList<>();
+    
+    /**
+     * 并发识别数下限
+     */
+    private Integer concurrencyMinLimit = 1;
+    
+    /**
+     * 并发识别数上限（0表示取容器CPU配额对应的核数）
+     */
+    private Integer concurrencyMaxLimit = 0;
+    
+    /**
+     * 初始并发识别数（0表示取工作进程数）
+     */
+    private Integer concurrencyInitialLimit = 0;
+    
+    /**
+     * 识别耗时相对基线的容忍倍数，超过后开始收缩并发数
+     */
+    private Double concurrencyLatencyTolerance = 1.5;
+    
+    /**
+     * 在途内存预算（MB），包括正在识别图片的解码大小和批量处理中缓存的结果，0表示不限制
+     */
+    private Integer memoryBudgetMb = 1024;
+    
+    /**
+     * 工作进程处理该数量的图片后回收重启，0表示不限制
+     */
+    private Integer workerMaxImages = 2000;
+    
+    /**
+     * 工作进程常驻内存（RSS）超过该值（MB）后回收重启，0表示不限制
+     */
+    private Integer workerMaxRssMb = 2048;
+    
+    /**
+     * 是否由模板进程（zygote）fork工作进程：模型只加载一次，新进程以写时复制方式共享模型内存
+     */
+    private Boolean workerZygoteEnabled = false;
+    
+    /**
+     * 链路区间导出方式：none（不导出）、file（写入本地OTLP/JSON文件）、otlp（POST到OTLP/HTTP采集端）
+     */
+    private String traceExport = "none";
+    
+    /**
+     * 链路导出文件路径（trace-export=file时使用）
+     */
+    private String traceExportFile = "output/traces/spans.jsonl";
+    
+    /**
+     * OTLP/HTTP采集端地址（trace-export=otlp时使用）
+     */
+    private String traceOtlpEndpoint = "http://localhost:4318/v1/traces";
+    
+    /**
+     * CLASSIFY模式快速识别时图片最长边（像素）
+     */
+    private Integer classifyMaxSideLen = 640;
+    
+    /**
+     * CLASSIFY模式快速识别时最多识别的文本区域数（按面积从大到小），仅ONNX引擎支持
+     */
+    private Integer classifyMaxRegions = 8;
+    
+    /**
+     * 快速识别的分类得分达到该值才直接返回
+     */
+    private Integer classifyEarlyExitScore = 3;
+    
+    /**
+     * 快速识别的分类得分至少领先第二名的分差，不足时视为有歧义并做完整识别
+     */
+    private Integer classifyMinMargin = 2;
+    
+    /**
+     * 预检时图片宽或高小于该值（像素）直接拒绝
+     */
+    private Integer preflightMinSidePx = 16;
+    
+    /**
+     * 预检时图片像素数超过该值（百万像素）直接拒绝，0表示不限制
+     */
+    private Integer preflightMaxMegapixels = 100;
+    
+    /**
+     * 批量处理时是否跳过内容完全相同的文件，复用第一个文件的识别结果
+     */
+    private Boolean preflightDedupEnabled = true;
+    
+    /**
+     * 目录批量处理时是否按预测识别耗时从大到小分派（最长处理时间优先），结果顺序不变
+     */
+    private Boolean batchLongestFirstEnabled = true;
+    
+    /**
+     * 处理压缩包时已读取但尚未识别完成的条目数上限
+     */
+    private Integer archiveReadAhead = 16;
+    
+    /**
+     * 是否对单张图片识别开启对冲请求
+     */
+    private Boolean hedgeEnabled = false;
+    
+    /**
+     * 识别超过近期耗时的该分位数仍未完成时发出对冲请求
+     */
+    private Double hedgePercentile = 95.0;
+    
+    /**
+     * 对冲等待时间的下限（毫秒）
+     */
+    private Long hedgeMinDelayMs = 100L;
+    
+    /**
+     * 对冲请求最多占用的识别容量比例
+     */
+    private Double hedgeBudgetRatio = 0.1;
+    
+    /**
+     * 请求未指定时的结果落盘方式（OFF、JSON、JSON_WITH_VISUALIZATION）
+     */
+    private OutputMode outputMode = OutputMode.JSON;
+    
+    /**
+     * 等待写盘的结果数上限
+     */
+    private Integer outputQueueCapacity = 1000;
+    
+    /**
+     * 写盘队列满时提交结果最多等待的时间（毫秒），超时后丢弃该结果并在响应中标记
+     */
+    private Long outputEnqueueTimeoutMs = 1000L;
+    
+    /**
+     * 写盘队列中压缩包条目原图内容的总大小上限（MB），JSON_WITH_VISUALIZATION模式下才会保留原图
+     */
+    private Long outputQueueMaxMb = 128L;
 }
@@ -1,7 +1,12 @@
 package com.twx.ocr.controller;
 
+import com.twx.ocr.dto.HealthStatus;
+import com.twx.ocr.dto.OcrMetrics;
 import com.twx.ocr.dto.OcrRequest;
 import com.twx.ocr.dto.OcrResponse;
+import com.twx.ocr.dto.OutputMode;
+import com.twx.ocr.dto.ProcessingMode;
+import com.twx.ocr.dto.ResponseView;
 import com.twx.ocr.service.OcrService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,11 +15,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 
 /**
  * OCR识别控制器
@@ -53,7 +60,7 @@ public class OcrController {
     
     @Operation(
             summary = "处理单个图片文件",
-            description = "处理指定路径的单个图片文件，识别证件类型并提取文字内容"
+            description = "处理指定路径的单个图片文件，识别证件类型、提取文字内容和关键字段"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "处理成功"),
@@ -63,10 +70,29 @@ public class OcrController {
     @PostMapping("/process-single")
     public ResponseEntity<OcrResponse> processSingleImage(
             @Parameter(description = "图片文件的完整路径", required = true, example = "D:/images/idcard.jpg")
-            @RequestParam String imagePath) {
+            @RequestParam String imagePath,
+            @Parameter(description = "是否只返回关键字段（不返回识别文本列表）")
+            @RequestParam(defaultValue = "false") boolean fieldsOnly,
+            @Parameter(description = "响应视图：TYPE只返回类型，FIELDS返回类型和关键字段，FULL返回全部文本")
+            @RequestParam(required = false) ResponseView view,
+            @Parameter(description = "是否返回各阶段耗时（timings）")
+            @RequestParam(defaultValue = "false") boolean includeTimings,
+            @Parameter(description = "处理模式：FULL完整识别，CLASSIFY只判断证件类型（快速识别明确时提前返回）")
+            @RequestParam(required = false) ProcessingMode mode,
+            @Parameter(description = "结果落盘方式：OFF、JSON、JSON_WITH_VISUALIZATION（另写可视化图片），为空时使用服务配置")
+            @RequestParam(required = false) OutputMode outputMode,
+            @Parameter(description = "结果文件输出目录，为空时使用服务配置")
+            @RequestParam(required = false) String outputDir) {
         log.info("收到单个图片处理请求: {}", imagePath);
         
-        OcrResponse response = ocrService.processSingleImage(imagePath);
+        OcrRequest options = new OcrRequest();
+        options.setFieldsOnly(fieldsOnly);
+        options.setView(view);
+        options.setIncludeTimings(includeTimings);
+        options.setMode(mode);
+        options.setOutputMode(outputMode);
+        options.setOutputDir(outputDir);
+        OcrResponse response = ocrService.processSingleImage(imagePath, options);
         
         log.info("单个图片处理完成，成功: {}", response.getSuccess());
         
@@ -84,11 +110,33 @@ public class OcrController {
     })
     @PostMapping("/process-batch")
     public ResponseEntity<OcrResponse> processBatchImages(
-            @Parameter(description = "包含图片文件的目录路径", required = true, example = "D:/images/")
-            @RequestParam String directoryPath) {
+            @Parameter(description = "包含图片文件的目录路径，或ZIP/TAR/TAR.GZ压缩包路径", required = true, example = "D:/images/")
+            @RequestParam String directoryPath,
+            @Parameter(description = "是否只返回关键字段（不返回识别文本列表）")
+            @RequestParam(defaultValue = "false") boolean fieldsOnly,
+            @Parameter(description = "响应视图：TYPE只返回类型，FIELDS返回类型和关键字段，FULL返回全部文本")
+            @RequestParam(required = false) ResponseView view,
+            @Parameter(description = "每页条数，结果超过该数量时分页返回，用nextCursor读取后续页")
+            @RequestParam(required = false) @Min(value = 1, message = "每页条数必须大于0") Integer pageSize,
+            @Parameter(description = "是否返回各阶段耗时（timings）")
+            @RequestParam(defaultValue = "false") boolean includeTimings,
+            @Parameter(description = "处理模式：FULL完整识别，CLASSIFY只判断证件类型（快速识别明确时提前返回）")
+            @RequestParam(required = false) ProcessingMode mode,
+            @Parameter(description = "结果落盘方式：OFF、JSON、JSON_WITH_VISUALIZATION（另写可视化图片），为空时使用服务配置")
+            @RequestParam(required = false) OutputMode outputMode,
+            @Parameter(description = "结果文件输出目录，为空时使用服务配置")
+            @RequestParam(required = false) String outputDir) {
         log.info("收到批量图片处理请求: {}", directoryPath);
         
-        OcrResponse response = ocrService.processBatchImages(directoryPath);
+        OcrRequest options = new OcrRequest();
+        options.setFieldsOnly(fieldsOnly);
+        options.setView(view);
+        options.setPageSize(pageSize);
+        options.setIncludeTimings(includeTimings);
+        options.setMode(mode);
+        options.setOutputMode(outputMode);
+        options.setOutputDir(outputDir);
+        OcrResponse response = ocrService.processBatchImages(directoryPath, options);
         
         log.info("批量图片处理完成，成功: {}, 总数: {}, 成功: {}, 失败: {}", 
                 response.getSuccess(), 
@@ -99,15 +147,72 @@ public class OcrController {
         return ResponseEntity.ok(response);
     }
     
+    @Operation(
+            summary = "读取分页批量结果",
+            description = "使用批量处理响应中的nextCursor读取后续页，直到nextCursor为空"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "读取完成"),
+            @ApiResponse(responseCode = "400", description = "游标无效")
+    })
+    @GetMapping("/batch-results")
+    public ResponseEntity<OcrResponse> fetchBatchPage(
+            @Parameter(description = "上一页返回的nextCursor", required = true)
+            @RequestParam String cursor,
+            @Parameter(description = "每页条数")
+            @RequestParam(defaultValue = "100") @Min(value = 1, message = "每页条数必须大于0") int pageSize) {
+        return ResponseEntity.ok(ocrService.fetchBatchPage(cursor, pageSize));
+    }
+    
     @Operation(
             summary = "健康检查",
-            description = "检查OCR服务是否正常运行"
+            description = "检查OCR服务是否已具备预热完成的处理能力"
     )
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "服务正常")
+            @ApiResponse(responseCode = "200", description = "服务正常"),
+            @ApiResponse(responseCode = "503", description = "服务未就绪")
     })
     @GetMapping("/health")
     public ResponseEntity<String> health() {
+        if (!ocrService.readiness().getReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("OCR服务未就绪");
+        }
         return ResponseEntity.ok("OCR服务运行正常");
     }
+    
+    @Operation(
+            summary = "存活检查",
+            description = "检查服务进程是否存活，并返回工作进程数量和最近一次识别耗时"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "服务存活")
+    })
+    @GetMapping("/health/liveness")
+    public ResponseEntity<HealthStatus> liveness() {
+        return ResponseEntity.ok(ocrService.liveness());
+    }
+    
+    @Operation(
+            summary = "就绪检查",
+            description = "只有存在预热完成的OCR工作进程时才返回200，否则返回503"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "服务就绪"),
+            @ApiResponse(responseCode = "503", description = "工作进程尚未预热完成")
+    })
+    @GetMapping("/health/readiness")
+    public ResponseEntity<HealthStatus> readiness() {
+        HealthStatus status = ocrService.readiness();
+        return ResponseEntity.status(status.getReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(status);
+    }
+    
+    @Operation(
+            summary = "运行指标",
+            description = "返回当前自适应并发上限、在途请求数、等待数、CPU配额和识别耗时均线"
+    )
+    @GetMapping("/metrics")
+    public ResponseEntity<OcrMetrics> metrics() {
+        return ResponseEntity.ok(ocrService.metrics());
+    }
 }
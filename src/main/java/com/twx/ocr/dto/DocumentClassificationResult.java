@@ -1,10 +1,12 @@
 package com.twx.ocr.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 文档分类识别结果
@@ -28,8 +30,15 @@ public class DocumentClassificationResult {
     /**
      * 识别到的文本列表
      */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<String> recTexts;
     
+    /**
+     * 按证件类型提取的关键字段
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ExtractedField> fields;
+    
     /**
      * 错误信息（如果处理失败）
      */
@@ -40,13 +49,37 @@ public class DocumentClassificationResult {
      */
     private String confidence;
     
+    /**
+     * CLASSIFY模式下实际走的识别路径：early表示快速识别即已确定类型，full表示有歧义后做了完整识别
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String processingPath;
+    
+    /**
+     * 与批次中该文件内容完全相同，结果直接复用该文件的识别结果
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String duplicateOf;
+    
     /**
      * 处理是否成功
      */
     private Boolean success;
     
+    /**
+     * 各阶段耗时（毫秒），按开始顺序排列，最后为total；仅在请求includeTimings时返回
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> timings;
+    
     /**
      * 输出文件路径（如果保存了结果文件）
      */
     private String outputFilePath;
+    
+    /**
+     * 需要保存结果文件但写盘队列已满、结果被丢弃时为true
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean outputDropped;
 }
@@ -0,0 +1,36 @@
+package com.twx.ocr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 证件关键字段
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExtractedField {
+
+    /**
+     * 字段键（如 idNumber、creditCode）
+     */
+    private String key;
+
+    /**
+     * 字段中文名称（如 公民身份号码）
+     */
+    private String label;
+
+    /**
+     * 字段值
+     */
+    private String value;
+
+    /**
+     * 校验位是否通过（不支持校验的字段为null）
+     */
+    private Boolean valid;
+}
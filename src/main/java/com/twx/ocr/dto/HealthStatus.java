@@ -0,0 +1,88 @@
+package com.twx.ocr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 服务健康状态（存活/就绪探针）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HealthStatus {
+
+    /**
+     * 状态（UP、DOWN）
+     */
+    private String status;
+
+    /**
+     * 是否已具备预热完成的处理能力
+     */
+    private Boolean ready;
+
+    /**
+     * 启动预热是否已结束
+     */
+    private Boolean warmupCompleted;
+
+    /**
+     * 配置的工作进程数量
+     */
+    private Integer configuredWorkers;
+
+    /**
+     * 存活的工作进程数量
+     */
+    private Integer liveWorkers;
+
+    /**
+     * 已预热的工作进程数量
+     */
+    private Integer warmWorkers;
+
+    /**
+     * 正在处理请求的工作进程数量
+     */
+    private Integer busyWorkers;
+
+    /**
+     * 因达到图片数或内存阈值而回收的工作进程累计数量
+     */
+    private Integer recycledWorkers;
+
+    /**
+     * 工作进程中最大的常驻内存（MB），无法读取时为-1
+     */
+    private Long maxWorkerRssMb;
+
+    /**
+     * 最近一次识别耗时（毫秒），尚未识别时为-1
+     */
+    private Long lastInferenceLatencyMs;
+
+    /**
+     * 最近一个工作进程从启动到就绪的耗时（毫秒，不含预热识别），尚未启动时为-1
+     */
+    private Long lastWorkerStartMs;
+
+    /**
+     * 模板进程pid，未使用模板进程时为-1
+     */
+    private Long zygotePid;
+
+    /**
+     * 最近一次工作进程错误（如果有）
+     */
+    private String lastError;
+
+    /**
+     * 检查时间
+     */
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,118 @@
+package com.twx.ocr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * OCR调度运行指标
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OcrMetrics {
+
+    /**
+     * 当前自适应并发上限
+     */
+    private Integer concurrencyLimit;
+
+    /**
+     * 并发上限的下界
+     */
+    private Integer minConcurrencyLimit;
+
+    /**
+     * 并发上限的上界
+     */
+    private Integer maxConcurrencyLimit;
+
+    /**
+     * 正在识别的请求数
+     */
+    private Integer inFlight;
+
+    /**
+     * 等待并发许可的请求数
+     */
+    private Integer waiting;
+
+    /**
+     * 容器CPU配额对应的核数
+     */
+    private Integer cpuQuota;
+
+    /**
+     * 基线识别耗时（毫秒），尚无样本时为-1
+     */
+    private Long baselineLatencyMs;
+
+    /**
+     * 近期平均识别耗时（毫秒），尚无样本时为-1
+     */
+    private Long recentLatencyMs;
+
+    /**
+     * 在途内存预算（MB），0表示不限制
+     */
+    private Long memoryBudgetMb;
+
+    /**
+     * 已占用的内存预算（MB）
+     */
+    private Long memoryInUseMb;
+
+    /**
+     * 等待内存预算的请求数
+     */
+    private Integer memoryWaiting;
+
+    /**
+     * 是否开启单张图片识别的对冲请求
+     */
+    private Boolean hedgeEnabled;
+
+    /**
+     * 当前对冲等待时间（毫秒，近期耗时的分位数），未开启或样本不足时为-1
+     */
+    private Long hedgeDelayMs;
+
+    /**
+     * 可对冲的单张图片请求数
+     */
+    private Long hedgeRequests;
+
+    /**
+     * 已发出的对冲请求数
+     */
+    private Long hedgesFired;
+
+    /**
+     * 对冲请求先于主请求返回的次数
+     */
+    private Long hedgesWon;
+
+    /**
+     * 因预算或空闲容量不足未发出的对冲数
+     */
+    private Long hedgesSkipped;
+
+    /**
+     * 等待写盘的结果数
+     */
+    private Integer outputQueuedRecords;
+
+    /**
+     * 因写盘队列满被丢弃的结果数
+     */
+    private Long outputDroppedRecords;
+
+    /**
+     * 采集时间
+     */
+    private LocalDateTime timestamp;
+}
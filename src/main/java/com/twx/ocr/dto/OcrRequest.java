@@ -3,6 +3,7 @@ package com.twx.ocr.dto;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
@@ -26,12 +27,43 @@ public class OcrRequest {
     private Boolean batchProcess = false;
     
     /**
-     * 是否保存结果到文件
+     * 是否保存结果到文件，为false时等同于 outputMode=OFF
      */
     private Boolean saveToFile = true;
     
     /**
-     * 输出目录（可选，默认为output）
+     * 输出目录（可选，为空时使用 ocr.default-output-dir）
      */
-    private String outputDir = "output";
+    private String outputDir;
+    
+    /**
+     * 结果落盘方式（OFF、JSON、JSON_WITH_VISUALIZATION），为空时使用 ocr.output-mode
+     */
+    private OutputMode outputMode;
+    
+    /**
+     * 是否只返回关键字段（不返回识别文本列表recTexts），等同于 view=FIELDS
+     */
+    private Boolean fieldsOnly = false;
+    
+    /**
+     * 响应视图（TYPE、FIELDS、FULL），为空时默认FULL
+     */
+    private ResponseView view;
+    
+    /**
+     * 处理模式（FULL、CLASSIFY），为空时默认FULL；CLASSIFY只返回证件类型
+     */
+    private ProcessingMode mode;
+    
+    /**
+     * 批量结果每页条数（可选，为空时一次返回全部结果）
+     */
+    @Min(value = 1, message = "每页条数必须大于0")
+    private Integer pageSize;
+    
+    /**
+     * 是否在响应中返回各阶段耗时（timings）
+     */
+    private Boolean includeTimings = false;
 }
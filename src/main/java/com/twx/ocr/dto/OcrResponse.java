@@ -1,11 +1,13 @@
 package com.twx.ocr.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * OCR响应结果
@@ -55,4 +57,40 @@ public class OcrResponse {
      * 失败处理的文件数
      */
     private Integer failureCount;
+    
+    /**
+     * 批量处理时预检未通过的文件数，按拒绝原因（如EMPTY_FILE、CORRUPT_HEADER）汇总；没有拒绝时为空
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Integer> rejectionCounts;
+    
+    /**
+     * 批量处理时内容与其他文件完全相同、未重复识别的文件数
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer duplicateCount;
+    
+    /**
+     * 批量结果编号（分页返回时用于关联后续页）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String batchId;
+    
+    /**
+     * 下一页游标（没有更多结果时为空）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+    
+    /**
+     * 链路编号（W3C Trace Context格式），与响应头X-Trace-Id和导出的区间一致
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String traceId;
+    
+    /**
+     * 请求级各阶段耗时（毫秒），批量处理时同名阶段为各图片累计值；仅在请求includeTimings时返回
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> timings;
 }
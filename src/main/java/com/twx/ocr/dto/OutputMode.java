@@ -0,0 +1,22 @@
+package com.twx.ocr.dto;
+
+/**
+ * 识别结果的落盘方式，文件由后台线程异步写入输出目录
+ */
+public enum OutputMode {
+
+    /**
+     * 不写文件
+     */
+    OFF,
+
+    /**
+     * 每张图片写一个结果JSON文件（{文件名}_classification_result.json）
+     */
+    JSON,
+
+    /**
+     * 结果JSON文件，另外写一张标出文本区域的可视化图片（{文件名}_ocr_res_img.png）
+     */
+    JSON_WITH_VISUALIZATION
+}
@@ -0,0 +1,18 @@
+package com.twx.ocr.dto;
+
+/**
+ * 处理模式，决定识别的深度
+ */
+public enum ProcessingMode {
+
+    /**
+     * 完整识别全部文字，返回类型、关键字段和识别文本
+     */
+    FULL,
+
+    /**
+     * 只判断证件类型：先在缩小的图片上识别最大的几个文本区域，
+     * 分类结果足够明确时直接返回，有歧义时再做一次完整识别
+     */
+    CLASSIFY
+}
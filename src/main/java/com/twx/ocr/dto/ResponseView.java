@@ -0,0 +1,22 @@
+package com.twx.ocr.dto;
+
+/**
+ * 响应视图，决定每个识别结果返回哪些字段
+ */
+public enum ResponseView {
+
+    /**
+     * 只返回证件类型
+     */
+    TYPE,
+
+    /**
+     * 返回证件类型和关键字段
+     */
+    FIELDS,
+
+    /**
+     * 返回证件类型、关键字段和全部识别文本
+     */
+    FULL
+}
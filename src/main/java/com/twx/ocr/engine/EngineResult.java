@@ -0,0 +1,58 @@
+package com.twx.ocr.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.awt.Rectangle;
+import java.util.List;
+
+/**
+ * 识别引擎返回的原始结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EngineResult {
+
+    /**
+     * 证件类型；引擎不做分类时为空，由服务层按识别文本分类
+     */
+    private String documentType;
+
+    /**
+     * 识别到的文本列表
+     */
+    private List<String> recTexts;
+
+    /**
+     * 文本区域，仅在任务要求返回区域时填写，用于绘制可视化图片
+     */
+    private List<Rectangle> boxes;
+
+    /**
+     * 识别失败原因（成功时为空）
+     */
+    private String error;
+
+    /**
+     * 引擎内部识别耗时（毫秒）
+     */
+    private Long elapsedMs;
+
+    /**
+     * 识别路径（early、full），仅CLASSIFY模式下由服务层填写
+     */
+    private String processingPath;
+
+    /**
+     * 结果因写盘队列满未能保存到文件，由服务层填写
+     */
+    private boolean outputDropped;
+
+    public static EngineResult failure(String error) {
+        return EngineResult.builder().error(error).build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.twx.ocr.engine;
+
+import com.twx.ocr.dto.HealthStatus;
+
+import java.io.IOException;
+
+/**
+ * OCR识别引擎SPI
+ * <p>
+ * 通过 ocr.engine 选择实现：python（常驻Python工作进程，默认）、onnx（进程内ONNX Runtime）、stub（测试桩）。
+ * 实现必须线程安全，会被多个请求线程同时调用。
+ */
+public interface OcrEngine {
+
+    /**
+     * 引擎名称
+     *
+     * @return 与 ocr.engine 配置值一致的名称
+     */
+    String getName();
+
+    /**
+     * 识别一张图片
+     *
+     * @param task 识别任务
+     * @return 识别结果；识别失败（如未识别到文字）时返回带error的结果，引擎故障时抛出异常
+     */
+    EngineResult recognize(OcrTask task) throws IOException, InterruptedException;
+
+    /**
+     * 是否有可立即处理请求的空闲资源，不阻塞；对冲请求据此决定是否发出
+     *
+     * @return 没有独立识别资源的引擎（如进程内引擎，只受并发许可限制）始终为true
+     */
+    default boolean hasIdleCapacity() {
+        return true;
+    }
+
+    /**
+     * 存活检查
+     *
+     * @return 健康状态
+     */
+    HealthStatus liveness();
+
+    /**
+     * 就绪检查，只有引擎已预热、可以立即处理请求时才为UP
+     *
+     * @return 健康状态
+     */
+    HealthStatus readiness();
+}
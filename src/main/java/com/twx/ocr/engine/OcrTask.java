@@ -0,0 +1,52 @@
+package com.twx.ocr.engine;
+
+import com.twx.ocr.tracing.Span;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 识别任务
+ */
+@Getter
+@Builder
+@ToString
+public class OcrTask {
+
+    /**
+     * 图片文件绝对路径；图片来自压缩包时为条目名称
+     */
+    private final String imagePath;
+
+    /**
+     * 图片文件内容（如压缩包中的条目），为空时引擎按imagePath读取文件
+     */
+    @ToString.Exclude
+    private final byte[] imageBytes;
+
+    /**
+     * 快速识别时的最长边限制（像素），为空时使用引擎默认的完整识别
+     */
+    private final Integer maxSideLen;
+
+    /**
+     * 快速识别时最多识别的文本区域数（按面积从大到小选取），为空时识别全部区域
+     */
+    private final Integer maxRegions;
+
+    /**
+     * 是否返回文本区域（绘制可视化图片时需要）
+     */
+    private final boolean returnBoxes;
+
+    /**
+     * 只使用空闲的识别资源，没有时立即失败而不等待（对冲请求）
+     */
+    private final boolean idleOnly;
+
+    /**
+     * 所属链路中该图片的区间，引擎在其下记录各阶段耗时（可为空）
+     */
+    @ToString.Exclude
+    private final Span span;
+}
@@ -0,0 +1,128 @@
+package com.twx.ocr.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.HealthStatus;
+import com.twx.ocr.service.worker.PythonWorkerPool;
+import com.twx.ocr.tracing.Span;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 基于常驻Python工作进程（PaddleOCR）的识别引擎
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ocr", name = "engine", havingValue = "python", matchIfMissing = true)
+public class PythonProcessOcrEngine implements OcrEngine {
+
+    private final OcrConfig ocrConfig;
+    private final PythonWorkerPool workerPool;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public String getName() {
+        return "python";
+    }
+
+    @Override
+    public EngineResult recognize(OcrTask task) throws IOException, InterruptedException {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("image_path", task.getImagePath());
+        if (task.getImageBytes() != null) {
+            // 压缩包中的图片不落盘，内容随请求发送给工作进程
+            request.put("image_b64", Base64.getEncoder().encodeToString(task.getImageBytes()));
+        }
+        if (task.getMaxSideLen() != null) {
+            // 快速识别：工作进程缩小图片、跳过预处理和结果保存
+            request.put("max_side_len", task.getMaxSideLen());
+        }
+        if (task.isReturnBoxes()) {
+            request.put("return_boxes", true);
+        }
+        Span span = task.getSpan();
+        if (span != null && span.isRecording()) {
+            // 链路编号随请求传给工作进程，便于对照Python侧日志
+            request.put("trace_id", span.getTrace().getTraceId());
+            request.put("span_id", span.getSpanId());
+        }
+
+        if (ocrConfig.getDebugMode()) {
+            log.info("提交识别请求: {}", task.getImagePath());
+        }
+
+        JsonNode result = workerPool.execute(request, span, !task.isIdleOnly());
+
+        if (ocrConfig.getDebugMode()) {
+            log.info("Python工作进程输出: {}", result);
+        }
+
+        Span parseSpan = Span.childOf(span, "parse_result");
+        try {
+            return parseResult(result);
+        } finally {
+            parseSpan.end();
+        }
+    }
+
+    @Override
+    public boolean hasIdleCapacity() {
+        return workerPool.hasIdleWorker();
+    }
+
+    @Override
+    public HealthStatus liveness() {
+        return workerPool.liveness();
+    }
+
+    @Override
+    public HealthStatus readiness() {
+        return workerPool.readiness();
+    }
+
+    /**
+     * 解析Python工作进程的输出结果
+     */
+    private EngineResult parseResult(JsonNode jsonNode) {
+        // 检查是否有错误
+        if (jsonNode.has("error")) {
+            return EngineResult.failure(jsonNode.get("error").asText());
+        }
+
+        List<String> recTexts = new ArrayList<>();
+        if (jsonNode.has("rec_texts") && jsonNode.get("rec_texts").isArray()) {
+            for (JsonNode textNode : jsonNode.get("rec_texts")) {
+                recTexts.add(textNode.asText());
+            }
+        }
+
+        List<Rectangle> boxes = null;
+        if (jsonNode.has("boxes") && jsonNode.get("boxes").isArray()) {
+            // 工作进程按 [x1, y1, x2, y2] 返回文本区域
+            boxes = new ArrayList<>();
+            for (JsonNode box : jsonNode.get("boxes")) {
+                int x1 = box.get(0).asInt();
+                int y1 = box.get(1).asInt();
+                boxes.add(new Rectangle(x1, y1, box.get(2).asInt() - x1, box.get(3).asInt() - y1));
+            }
+        }
+
+        return EngineResult.builder()
+                .documentType(jsonNode.has("document_type") ? jsonNode.get("document_type").asText() : null)
+                .recTexts(recTexts)
+                .boxes(boxes)
+                .elapsedMs(jsonNode.has("elapsed_ms") ? jsonNode.get("elapsed_ms").asLong() : null)
+                .build();
+    }
+}
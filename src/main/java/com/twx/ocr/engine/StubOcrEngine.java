@@ -0,0 +1,72 @@
+package com.twx.ocr.engine;
+
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.HealthStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 测试桩引擎：不做任何识别，按配置的延迟返回固定文本，始终就绪
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ocr", name = "engine", havingValue = "stub")
+public class StubOcrEngine implements OcrEngine {
+
+    private static final List<String> DEFAULT_TEXTS = Arrays.asList(
+            "中华人民共和国", "居民身份证", "姓名", "张三", "性别男民族汉",
+            "出生1949年12月31日", "住址北京市朝阳区某某街道1号", "公民身份号码11010519491231002X");
+
+    private final OcrConfig ocrConfig;
+
+    @Override
+    public String getName() {
+        return "stub";
+    }
+
+    @Override
+    public EngineResult recognize(OcrTask task) throws InterruptedException {
+        if (ocrConfig.getStubLatencyMs() > 0) {
+            Thread.sleep(ocrConfig.getStubLatencyMs());
+        }
+        if (task.getImageBytes() == null && !new File(task.getImagePath()).isFile()) {
+            return EngineResult.failure("图片不存在: " + task.getImagePath());
+        }
+        List<String> texts = ocrConfig.getStubTexts() == null || ocrConfig.getStubTexts().isEmpty() ?
+                DEFAULT_TEXTS : ocrConfig.getStubTexts();
+        return EngineResult.builder()
+                .recTexts(texts)
+                .elapsedMs(ocrConfig.getStubLatencyMs().longValue())
+                .build();
+    }
+
+    @Override
+    public HealthStatus liveness() {
+        return status();
+    }
+
+    @Override
+    public HealthStatus readiness() {
+        return status();
+    }
+
+    private HealthStatus status() {
+        return HealthStatus.builder()
+                .status("UP")
+                .ready(true)
+                .warmupCompleted(true)
+                .configuredWorkers(0)
+                .liveWorkers(0)
+                .warmWorkers(0)
+                .busyWorkers(0)
+                .lastInferenceLatencyMs(ocrConfig.getStubLatencyMs().longValue())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
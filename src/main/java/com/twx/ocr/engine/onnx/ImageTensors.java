@@ -0,0 +1,60 @@
+package com.twx.ocr.engine.onnx;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * 图片缩放与张量填充工具
+ * <p>
+ * PaddleOCR用OpenCV读图，通道顺序为BGR，这里写入张量时保持相同的通道顺序，
+ * 以便直接使用paddle2onnx导出的模型。
+ */
+final class ImageTensors {
+
+    private ImageTensors() {
+    }
+
+    /**
+     * 双线性缩放到指定尺寸
+     */
+    static BufferedImage resize(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * 以CHW布局、BGR通道顺序写入张量：(像素/255 - mean) / std
+     *
+     * @param data   目标数组
+     * @param offset 该图片在数组中的起始位置
+     * @param stride 张量宽度（可大于图片宽度，多余部分保持为0作为填充）
+     */
+    static void fillBgr(BufferedImage image, float[] data, int offset, int stride, int tensorHeight,
+                        float[] mean, float[] std) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int plane = stride * tensorHeight;
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int base = offset + y * stride;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                float r = ((rgb >> 16) & 0xFF) / 255f;
+                float g = ((rgb >> 8) & 0xFF) / 255f;
+                float b = (rgb & 0xFF) / 255f;
+                data[base + x] = (b - mean[0]) / std[0];
+                data[plane + base + x] = (g - mean[1]) / std[1];
+                data[2 * plane + base + x] = (r - mean[2]) / std[2];
+            }
+        }
+    }
+}
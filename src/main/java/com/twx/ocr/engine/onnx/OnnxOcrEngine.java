@@ -0,0 +1,241 @@
+package com.twx.ocr.engine.onnx;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.HealthStatus;
+import com.twx.ocr.engine.EngineResult;
+import com.twx.ocr.engine.OcrEngine;
+import com.twx.ocr.engine.OcrTask;
+import com.twx.ocr.exception.OcrException;
+import com.twx.ocr.tracing.Span;
+import com.twx.ocr.util.WarmupImages;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内ONNX Runtime识别引擎（CPU）
+ * <p>
+ * 加载PaddleOCR经paddle2onnx导出的检测、识别模型，在JVM内完成检测与识别，省去进程间通信和Python解释器开销。
+ * 会话在所有请求间共享（OrtSession线程安全），应用启动后在后台加载并预热，模型就绪前就绪探针为DOWN。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ocr", name = "engine", havingValue = "onnx")
+public class OnnxOcrEngine implements OcrEngine {
+
+    private final OcrConfig ocrConfig;
+
+    private final AtomicInteger busyRequests = new AtomicInteger();
+
+    private volatile TextDetector detector;
+
+    private volatile TextRecognizer recognizer;
+
+    private volatile boolean warm;
+
+    private volatile boolean warmupCompleted;
+
+    private volatile long lastInferenceLatencyMs = -1;
+
+    private volatile String lastError;
+
+    @Override
+    public String getName() {
+        return "onnx";
+    }
+
+    /**
+     * 容器刷新完成后在后台加载模型并做一次预热推理，命令行批处理运行前即开始
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void warmUp() {
+        if (!ocrConfig.getWarmupEnabled()) {
+            log.info("已关闭ONNX模型预热，模型将在首次请求时加载");
+            warmupCompleted = true;
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                recognize(OcrTask.builder().imagePath(WarmupImages.get().getAbsolutePath()).build());
+                log.info("ONNX模型预热完成，预热识别耗时: {}ms", lastInferenceLatencyMs);
+            } catch (Exception e) {
+                recordError("ONNX模型预热失败", e);
+            } finally {
+                warmupCompleted = true;
+            }
+        }, "ocr-onnx-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public EngineResult recognize(OcrTask task) throws IOException {
+        ensureLoaded();
+
+        Span decodeSpan = Span.childOf(task.getSpan(), "onnx.decode");
+        BufferedImage image;
+        try {
+            image = task.getImageBytes() != null ?
+                    ImageIO.read(new ByteArrayInputStream(task.getImageBytes())) : ImageIO.read(new File(task.getImagePath()));
+        } finally {
+            decodeSpan.end();
+        }
+        if (image == null) {
+            return EngineResult.failure("无法读取图片: " + task.getImagePath());
+        }
+
+        long startTime = System.currentTimeMillis();
+        busyRequests.incrementAndGet();
+        try {
+            Span detectSpan = Span.childOf(task.getSpan(), "onnx.detect");
+            List<Rectangle> boxes;
+            try {
+                boxes = task.getMaxSideLen() != null ?
+                        detector.detect(image, task.getMaxSideLen()) : detector.detect(image);
+                boxes = limitRegions(boxes, task.getMaxRegions());
+                detectSpan.setAttribute("boxes", boxes.size());
+            } finally {
+                detectSpan.end();
+            }
+            Span recognizeSpan = Span.childOf(task.getSpan(), "onnx.recognize");
+            List<String> texts;
+            try {
+                texts = boxes.isEmpty() ? null : recognizer.recognize(image, boxes);
+            } finally {
+                recognizeSpan.end();
+            }
+            long elapsed = System.currentTimeMillis() - startTime;
+            lastInferenceLatencyMs = elapsed;
+            warm = true;
+
+            if (texts == null || texts.isEmpty()) {
+                return EngineResult.failure("未能识别到任何文字内容");
+            }
+            return EngineResult.builder()
+                    .recTexts(texts)
+                    .boxes(task.isReturnBoxes() ? boxes : null)
+                    .elapsedMs(elapsed)
+                    .build();
+        } catch (OrtException e) {
+            recordError("ONNX推理失败", e);
+            throw new OcrException("ONNX推理失败: " + e.getMessage(), e);
+        } finally {
+            busyRequests.decrementAndGet();
+        }
+    }
+
+    /**
+     * 只保留面积最大的若干文本区域（证件标题、号码等关键文字通常字号较大），再恢复阅读顺序
+     */
+    private List<Rectangle> limitRegions(List<Rectangle> boxes, Integer maxRegions) {
+        if (maxRegions == null || maxRegions <= 0 || boxes.size() <= maxRegions) {
+            return boxes;
+        }
+        List<Rectangle> largest = new ArrayList<>(boxes);
+        largest.sort(Comparator.comparingLong((Rectangle box) -> (long) box.width * box.height).reversed());
+        largest = new ArrayList<>(largest.subList(0, maxRegions));
+        TextDetector.sortReadingOrder(largest);
+        return largest;
+    }
+
+    @Override
+    public HealthStatus liveness() {
+        return snapshot("UP");
+    }
+
+    @Override
+    public HealthStatus readiness() {
+        return snapshot(warm ? "UP" : "DOWN");
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        try {
+            if (detector != null) {
+                detector.close();
+            }
+            if (recognizer != null) {
+                recognizer.close();
+            }
+        } catch (OrtException e) {
+            log.warn("关闭ONNX会话失败: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (recognizer != null) {
+            return;
+        }
+        synchronized (this) {
+            if (recognizer != null) {
+                return;
+            }
+            long startTime = System.currentTimeMillis();
+            try {
+                OrtEnvironment environment = OrtEnvironment.getEnvironment();
+                List<String> dictionary = Files.readAllLines(Paths.get(ocrConfig.getOnnxRecDictPath()), StandardCharsets.UTF_8);
+                detector = new TextDetector(environment,
+                        environment.createSession(ocrConfig.getOnnxDetModelPath(), sessionOptions()), ocrConfig);
+                recognizer = new TextRecognizer(environment,
+                        environment.createSession(ocrConfig.getOnnxRecModelPath(), sessionOptions()), dictionary, ocrConfig);
+            } catch (OrtException | IOException e) {
+                recordError("加载ONNX模型失败", e);
+                throw new OcrException("加载ONNX模型失败: " + e.getMessage(), e);
+            }
+            log.info("ONNX模型加载完成，耗时: {}ms", System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private OrtSession.SessionOptions sessionOptions() throws OrtException {
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+        if (ocrConfig.getOnnxIntraOpThreads() > 0) {
+            options.setIntraOpNumThreads(ocrConfig.getOnnxIntraOpThreads());
+        }
+        return options;
+    }
+
+    private HealthStatus snapshot(String status) {
+        return HealthStatus.builder()
+                .status(status)
+                .ready(warm)
+                .warmupCompleted(warmupCompleted)
+                .configuredWorkers(0)
+                .liveWorkers(0)
+                .warmWorkers(0)
+                .busyWorkers(busyRequests.get())
+                .lastInferenceLatencyMs(lastInferenceLatencyMs)
+                .lastError(lastError)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private void recordError(String message, Exception e) {
+        lastError = message + ": " + e.getMessage();
+        log.error(message, e);
+    }
+}
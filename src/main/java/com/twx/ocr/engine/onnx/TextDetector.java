@@ -0,0 +1,211 @@
+package com.twx.ocr.engine.onnx;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.twx.ocr.config.OcrConfig;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 基于DB模型的文本检测
+ * <p>
+ * 对概率图二值化后按8连通域取文本区域，用区域内平均概率过滤，再按DB的unclip规则外扩。
+ * 证件扫描件基本水平，这里使用轴对齐矩形代替最小外接旋转矩形。
+ */
+class TextDetector implements AutoCloseable {
+
+    private static final float[] MEAN = {0.485f, 0.456f, 0.406f};
+
+    private static final float[] STD = {0.229f, 0.224f, 0.225f};
+
+    /**
+     * 文本框最短边小于该值时丢弃
+     */
+    private static final int MIN_BOX_SIZE = 3;
+
+    /**
+     * 纵向相差小于该值的文本框视为同一行
+     */
+    private static final int SAME_LINE_TOLERANCE = 10;
+
+    private final OrtEnvironment environment;
+
+    private final OrtSession session;
+
+    private final String inputName;
+
+    private final int limitSideLen;
+
+    private final float threshold;
+
+    private final double boxThreshold;
+
+    private final double unclipRatio;
+
+    TextDetector(OrtEnvironment environment, OrtSession session, OcrConfig ocrConfig) {
+        this(environment, session, session.getInputNames().iterator().next(), ocrConfig.getOnnxDetLimitSideLen(),
+                ocrConfig.getOnnxDetThreshold().floatValue(), ocrConfig.getOnnxDetBoxThreshold(),
+                ocrConfig.getOnnxDetUnclipRatio());
+    }
+
+    TextDetector(OrtEnvironment environment, OrtSession session, String inputName, int limitSideLen,
+                 float threshold, double boxThreshold, double unclipRatio) {
+        this.environment = environment;
+        this.session = session;
+        this.inputName = inputName;
+        this.limitSideLen = limitSideLen;
+        this.threshold = threshold;
+        this.boxThreshold = boxThreshold;
+        this.unclipRatio = unclipRatio;
+    }
+
+    /**
+     * 检测文本区域，返回原图坐标系下按阅读顺序排列的文本框
+     */
+    List<Rectangle> detect(BufferedImage image) throws OrtException {
+        return detect(image, limitSideLen);
+    }
+
+    /**
+     * 按指定的最长边限制检测，用于快速识别时在更小的尺寸上检测
+     */
+    List<Rectangle> detect(BufferedImage image, int limitSideLen) throws OrtException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.max(width, height) > limitSideLen ? (double) limitSideLen / Math.max(width, height) : 1.0;
+        int resizedWidth = Math.max(32, (int) Math.round(width * ratio / 32) * 32);
+        int resizedHeight = Math.max(32, (int) Math.round(height * ratio / 32) * 32);
+
+        float[] data = new float[3 * resizedWidth * resizedHeight];
+        ImageTensors.fillBgr(ImageTensors.resize(image, resizedWidth, resizedHeight),
+                data, 0, resizedWidth, resizedHeight, MEAN, STD);
+
+        long[] shape = {1, 3, resizedHeight, resizedWidth};
+        try (OnnxTensor input = OnnxTensor.createTensor(environment, FloatBuffer.wrap(data), shape);
+             OrtSession.Result result = session.run(Collections.singletonMap(inputName, input))) {
+            FloatBuffer probabilities = ((OnnxTensor) result.get(0)).getFloatBuffer();
+            float[] map = new float[resizedWidth * resizedHeight];
+            probabilities.get(map);
+            return extractBoxes(map, resizedWidth, resizedHeight,
+                    (double) width / resizedWidth, (double) height / resizedHeight, width, height);
+        }
+    }
+
+    /**
+     * 从概率图中提取文本框并换算到原图坐标系
+     *
+     * @param scaleX 原图宽度与概率图宽度之比
+     * @param scaleY 原图高度与概率图高度之比
+     */
+    List<Rectangle> extractBoxes(float[] map, int mapWidth, int mapHeight,
+                                 double scaleX, double scaleY, int imageWidth, int imageHeight) {
+        boolean[] visited = new boolean[map.length];
+        int[] stack = new int[map.length];
+        List<Rectangle> boxes = new ArrayList<>();
+
+        for (int start = 0; start < map.length; start++) {
+            if (visited[start] || map[start] <= threshold) {
+                continue;
+            }
+
+            // 8连通域扩展
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxX = -1;
+            int maxY = -1;
+            double scoreSum = 0;
+            int count = 0;
+            int top = 0;
+            stack[top++] = start;
+            visited[start] = true;
+            while (top > 0) {
+                int index = stack[--top];
+                int x = index % mapWidth;
+                int y = index / mapWidth;
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+                scoreSum += map[index];
+                count++;
+                for (int dy = -1; dy <= 1; dy++) {
+                    int ny = y + dy;
+                    if (ny < 0 || ny >= mapHeight) {
+                        continue;
+                    }
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        if (nx < 0 || nx >= mapWidth) {
+                            continue;
+                        }
+                        int neighbor = ny * mapWidth + nx;
+                        if (!visited[neighbor] && map[neighbor] > threshold) {
+                            visited[neighbor] = true;
+                            stack[top++] = neighbor;
+                        }
+                    }
+                }
+            }
+
+            int boxWidth = maxX - minX + 1;
+            int boxHeight = maxY - minY + 1;
+            if (Math.min(boxWidth, boxHeight) < MIN_BOX_SIZE || scoreSum / count < boxThreshold) {
+                continue;
+            }
+
+            // DB unclip：按 面积*比例/周长 向外扩展
+            double distance = (double) boxWidth * boxHeight * unclipRatio / (2.0 * (boxWidth + boxHeight));
+            int left = clamp((int) Math.floor((minX - distance) * scaleX), imageWidth - 1);
+            int upper = clamp((int) Math.floor((minY - distance) * scaleY), imageHeight - 1);
+            int right = clamp((int) Math.ceil((maxX + 1 + distance) * scaleX), imageWidth);
+            int lower = clamp((int) Math.ceil((maxY + 1 + distance) * scaleY), imageHeight);
+            if (right - left >= MIN_BOX_SIZE && lower - upper >= MIN_BOX_SIZE) {
+                boxes.add(new Rectangle(left, upper, right - left, lower - upper));
+            }
+        }
+
+        sortReadingOrder(boxes);
+        return boxes;
+    }
+
+    /**
+     * 按阅读顺序排序：从上到下，同一行内从左到右
+     * <p>
+     * 先按上边缘排序再分行，而不是用“纵向相差小于容差即比较横坐标”的比较器直接排序：
+     * 阶梯状排列的文本框会使后者不满足传递性，排序时可能抛出异常。
+     */
+    static void sortReadingOrder(List<Rectangle> boxes) {
+        boxes.sort(Comparator.comparingInt((Rectangle box) -> box.y).thenComparingInt(box -> box.x));
+        int lineStart = 0;
+        for (int i = 1; i <= boxes.size(); i++) {
+            if (i == boxes.size() || startsNewLine(boxes.get(lineStart), boxes.get(i))) {
+                boxes.subList(lineStart, i).sort(Comparator.comparingInt(box -> box.x));
+                lineStart = i;
+            }
+        }
+    }
+
+    /**
+     * 文本框比所在行的第一个文本框低出容差，或纵向已不再与其重叠时另起一行
+     */
+    private static boolean startsNewLine(Rectangle lineFirst, Rectangle box) {
+        return box.y - lineFirst.y >= SAME_LINE_TOLERANCE || box.y >= lineFirst.y + lineFirst.height;
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(value, max));
+    }
+
+    @Override
+    public void close() throws OrtException {
+        session.close();
+    }
+}
@@ -0,0 +1,160 @@
+package com.twx.ocr.engine.onnx;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.twx.ocr.config.OcrConfig;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于CRNN/SVTR模型的文本行识别，CTC贪心解码
+ */
+class TextRecognizer implements AutoCloseable {
+
+    private static final float[] MEAN = {0.5f, 0.5f, 0.5f};
+
+    private static final float[] STD = {0.5f, 0.5f, 0.5f};
+
+    /**
+     * 识别模型输入高度（PP-OCRv3/v4为48）
+     */
+    private static final int INPUT_HEIGHT = 48;
+
+    /**
+     * 识别模型默认输入宽度，批内最长文本行更宽时按比例加宽
+     */
+    private static final int MIN_INPUT_WIDTH = 320;
+
+    private final OrtEnvironment environment;
+
+    private final OrtSession session;
+
+    private final String inputName;
+
+    /**
+     * 下标0为CTC空白，之后依次为字典字符，最后一个为空格
+     */
+    private final List<String> characters;
+
+    private final int batchSize;
+
+    private final double dropScore;
+
+    TextRecognizer(OrtEnvironment environment, OrtSession session, List<String> dictionary, OcrConfig ocrConfig) {
+        this(environment, session, session.getInputNames().iterator().next(), dictionary,
+                ocrConfig.getOnnxRecBatchSize(), ocrConfig.getOnnxRecDropScore());
+    }
+
+    TextRecognizer(OrtEnvironment environment, OrtSession session, String inputName, List<String> dictionary,
+                   int batchSize, double dropScore) {
+        this.environment = environment;
+        this.session = session;
+        this.inputName = inputName;
+        this.characters = new ArrayList<>(dictionary.size() + 2);
+        this.characters.add("");
+        this.characters.addAll(dictionary);
+        this.characters.add(" ");
+        this.batchSize = Math.max(1, batchSize);
+        this.dropScore = dropScore;
+    }
+
+    /**
+     * 识别各文本框中的文字，按文本框顺序返回，得分过低的结果被丢弃
+     */
+    List<String> recognize(BufferedImage image, List<Rectangle> boxes) throws OrtException {
+        List<String> texts = new ArrayList<>();
+        for (int from = 0; from < boxes.size(); from += batchSize) {
+            List<Rectangle> batch = boxes.subList(from, Math.min(from + batchSize, boxes.size()));
+            texts.addAll(recognizeBatch(image, batch));
+        }
+        return texts;
+    }
+
+    private List<String> recognizeBatch(BufferedImage image, List<Rectangle> boxes) throws OrtException {
+        List<BufferedImage> crops = new ArrayList<>(boxes.size());
+        double maxRatio = (double) MIN_INPUT_WIDTH / INPUT_HEIGHT;
+        for (Rectangle box : boxes) {
+            BufferedImage crop = image.getSubimage(box.x, box.y, box.width, box.height);
+            crops.add(crop);
+            maxRatio = Math.max(maxRatio, (double) box.width / box.height);
+        }
+
+        int inputWidth = (int) Math.ceil(INPUT_HEIGHT * maxRatio);
+        int sampleSize = 3 * INPUT_HEIGHT * inputWidth;
+        float[] data = new float[crops.size() * sampleSize];
+        for (int i = 0; i < crops.size(); i++) {
+            BufferedImage crop = crops.get(i);
+            int width = Math.min(inputWidth,
+                    Math.max(1, (int) Math.ceil(INPUT_HEIGHT * (double) crop.getWidth() / crop.getHeight())));
+            ImageTensors.fillBgr(ImageTensors.resize(crop, width, INPUT_HEIGHT),
+                    data, i * sampleSize, inputWidth, INPUT_HEIGHT, MEAN, STD);
+        }
+
+        long[] shape = {crops.size(), 3, INPUT_HEIGHT, inputWidth};
+        try (OnnxTensor input = OnnxTensor.createTensor(environment, FloatBuffer.wrap(data), shape);
+             OrtSession.Result result = session.run(Collections.singletonMap(inputName, input))) {
+            OnnxTensor output = (OnnxTensor) result.get(0);
+            long[] outputShape = output.getInfo().getShape();
+            int steps = (int) outputShape[1];
+            int classes = (int) outputShape[2];
+            float[] probabilities = new float[crops.size() * steps * classes];
+            output.getFloatBuffer().get(probabilities);
+
+            List<String> texts = new ArrayList<>(crops.size());
+            for (int i = 0; i < crops.size(); i++) {
+                String text = decode(probabilities, i * steps * classes, steps, classes);
+                if (text != null) {
+                    texts.add(text);
+                }
+            }
+            return texts;
+        }
+    }
+
+    /**
+     * CTC贪心解码：逐步取最大概率类别，去掉空白和连续重复，得分为保留字符概率的平均值
+     *
+     * @return 解码出的文本，为空或得分低于dropScore时为null
+     */
+    String decode(float[] probabilities, int offset, int steps, int classes) {
+        StringBuilder text = new StringBuilder();
+        double scoreSum = 0;
+        int kept = 0;
+        int previous = -1;
+        for (int t = 0; t < steps; t++) {
+            int base = offset + t * classes;
+            int best = 0;
+            float bestScore = probabilities[base];
+            for (int c = 1; c < classes; c++) {
+                if (probabilities[base + c] > bestScore) {
+                    bestScore = probabilities[base + c];
+                    best = c;
+                }
+            }
+            if (best != 0 && best != previous && best < characters.size()) {
+                text.append(characters.get(best));
+                scoreSum += bestScore;
+                kept++;
+            }
+            previous = best;
+        }
+
+        String result = text.toString().trim();
+        if (kept == 0 || result.isEmpty() || scoreSum / kept < dropScore) {
+            return null;
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws OrtException {
+        session.close();
+    }
+}
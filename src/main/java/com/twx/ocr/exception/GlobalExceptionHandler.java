@@ -9,6 +9,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import javax.validation.ConstraintViolationException;
 import java.time.LocalDateTime;
 
 /**
@@ -63,6 +64,25 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
     
+    /**
+     * 处理请求参数约束异常
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<OcrResponse> handleConstraintViolationException(ConstraintViolationException e) {
+        log.error("参数验证异常: {}", e.getMessage());
+        
+        String errorMessage = e.getConstraintViolations().isEmpty() ? "请求参数验证失败" :
+                e.getConstraintViolations().iterator().next().getMessage();
+        
+        OcrResponse response = OcrResponse.builder()
+                .success(false)
+                .errorMessage(errorMessage)
+                .timestamp(LocalDateTime.now())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+    
     /**
      * 处理其他异常
      */
@@ -0,0 +1,71 @@
+package com.twx.ocr.extraction;
+
+import com.twx.ocr.dto.ExtractedField;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 字段提取器基类，提供按标签和按正则查找字段值的公共方法
+ * <p>
+ * 所有正则都在子类中以静态常量预编译，提取时不再编译表达式。
+ */
+public abstract class AbstractFieldExtractor implements FieldExtractor {
+
+    /**
+     * 编译"标签 + 可选分隔符 + 值"形式的正则，值为第1个分组
+     */
+    protected static Pattern labelPattern(String label) {
+        return Pattern.compile("^" + label + "[:：\\s]*(.*)$");
+    }
+
+    /**
+     * 按标签查找字段值。OCR经常把标签和值拆成两行，同一行没有值时取下一行。
+     */
+    protected String findLabeled(List<String> texts, Pattern labelPattern) {
+        for (int i = 0; i < texts.size(); i++) {
+            Matcher matcher = labelPattern.matcher(texts.get(i).trim());
+            if (matcher.find()) {
+                String value = matcher.group(1).trim();
+                if (!value.isEmpty()) {
+                    return value;
+                }
+                if (i + 1 < texts.size()) {
+                    String next = texts.get(i + 1).trim();
+                    return next.isEmpty() ? null : next;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 返回第一个匹配行的第1个分组（无分组时返回整个匹配）
+     */
+    protected String findFirst(List<String> texts, Pattern pattern) {
+        for (String text : texts) {
+            Matcher matcher = pattern.matcher(text.trim());
+            if (matcher.find()) {
+                return (matcher.groupCount() > 0 ? matcher.group(1) : matcher.group()).trim();
+            }
+        }
+        return null;
+    }
+
+    protected void addField(List<ExtractedField> fields, String key, String label, String value) {
+        addField(fields, key, label, value, null);
+    }
+
+    protected void addField(List<ExtractedField> fields, String key, String label, String value, Boolean valid) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        fields.add(ExtractedField.builder()
+                .key(key)
+                .label(label)
+                .value(value)
+                .valid(valid)
+                .build());
+    }
+}
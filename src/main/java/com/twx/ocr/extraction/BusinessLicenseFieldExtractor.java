@@ -0,0 +1,65 @@
+package com.twx.ocr.extraction;
+
+import com.twx.ocr.dto.ExtractedField;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 营业执照字段提取器
+ */
+@Component
+public class BusinessLicenseFieldExtractor extends AbstractFieldExtractor {
+
+    private static final Pattern CREDIT_CODE = Pattern.compile(
+            "(?<![0-9A-Z])([0-9A-HJ-NPQRTUWXY]{2}\\d{6}[0-9A-HJ-NPQRTUWXY]{10})(?![0-9A-Z])");
+
+    private static final Pattern COMPANY_NAME = labelPattern("名称");
+
+    private static final Pattern COMPANY_TYPE = labelPattern("类型");
+
+    private static final Pattern LEGAL_REPRESENTATIVE = labelPattern("法定代表人");
+
+    private static final Pattern REGISTERED_CAPITAL = labelPattern("注册资本");
+
+    private static final Pattern ESTABLISHED_DATE = Pattern.compile(
+            "成立日期[:：\\s]*(\\d{4}\\s*年\\s*\\d{1,2}\\s*月\\s*\\d{1,2}\\s*日)");
+
+    private static final Pattern BUSINESS_TERM = labelPattern("营业期限");
+
+    private static final Pattern ADDRESS = labelPattern("住所");
+
+    @Override
+    public String getDocumentType() {
+        return "营业执照";
+    }
+
+    @Override
+    public List<ExtractedField> extract(List<String> recTexts) {
+        List<ExtractedField> fields = new ArrayList<>();
+
+        String creditCode = findCreditCode(recTexts);
+        if (creditCode != null) {
+            addField(fields, "creditCode", "统一社会信用代码", creditCode, CheckDigits.isValidCreditCode(creditCode));
+        }
+
+        addField(fields, "companyName", "名称", findLabeled(recTexts, COMPANY_NAME));
+        addField(fields, "companyType", "类型", findLabeled(recTexts, COMPANY_TYPE));
+        addField(fields, "legalRepresentative", "法定代表人", findLabeled(recTexts, LEGAL_REPRESENTATIVE));
+        addField(fields, "registeredCapital", "注册资本", findLabeled(recTexts, REGISTERED_CAPITAL));
+        addField(fields, "establishedDate", "成立日期", findFirst(recTexts, ESTABLISHED_DATE));
+        addField(fields, "businessTerm", "营业期限", findLabeled(recTexts, BUSINESS_TERM));
+        addField(fields, "address", "住所", findLabeled(recTexts, ADDRESS));
+        return fields;
+    }
+
+    private String findCreditCode(List<String> recTexts) {
+        List<String> upper = new ArrayList<>(recTexts.size());
+        for (String text : recTexts) {
+            upper.add(text.toUpperCase());
+        }
+        return findFirst(upper, CREDIT_CODE);
+    }
+}
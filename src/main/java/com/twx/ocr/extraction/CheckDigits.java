@@ -0,0 +1,94 @@
+package com.twx.ocr.extraction;
+
+/**
+ * 证件号码校验位工具类
+ */
+public final class CheckDigits {
+
+    /**
+     * 身份证号码前17位加权因子（GB 11643-1999）
+     */
+    private static final int[] ID_WEIGHTS = {7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2};
+
+    private static final char[] ID_CHECK_CODES = {'1', '0', 'X', '9', '8', '7', '6', '5', '4', '3', '2'};
+
+    /**
+     * 统一社会信用代码字符集（GB 32100-2015），字符在串中的位置即其代码值
+     */
+    private static final String CREDIT_CODE_CHARSET = "0123456789ABCDEFGHJKLMNPQRTUWXY";
+
+    private static final int[] CREDIT_CODE_WEIGHTS = {1, 3, 9, 27, 19, 26, 16, 17, 20, 29, 25, 13, 8, 24, 10, 30, 28};
+
+    /**
+     * 机读区校验位加权因子（ICAO 9303）
+     */
+    private static final int[] MRZ_WEIGHTS = {7, 3, 1};
+
+    private CheckDigits() {
+    }
+
+    /**
+     * 校验18位居民身份证号码
+     */
+    public static boolean isValidIdNumber(String idNumber) {
+        if (idNumber == null || idNumber.length() != 18) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = idNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            sum += (c - '0') * ID_WEIGHTS[i];
+        }
+        return Character.toUpperCase(idNumber.charAt(17)) == ID_CHECK_CODES[sum % 11];
+    }
+
+    /**
+     * 校验18位统一社会信用代码
+     */
+    public static boolean isValidCreditCode(String creditCode) {
+        if (creditCode == null || creditCode.length() != 18) {
+            return false;
+        }
+        String code = creditCode.toUpperCase();
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            int value = CREDIT_CODE_CHARSET.indexOf(code.charAt(i));
+            if (value < 0) {
+                return false;
+            }
+            sum += value * CREDIT_CODE_WEIGHTS[i];
+        }
+        int check = (31 - sum % 31) % 31;
+        return code.charAt(17) == CREDIT_CODE_CHARSET.charAt(check);
+    }
+
+    /**
+     * 计算护照机读区字段的校验位
+     */
+    public static int mrzCheckDigit(String field) {
+        int sum = 0;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            int value;
+            if (c >= '0' && c <= '9') {
+                value = c - '0';
+            } else if (c >= 'A' && c <= 'Z') {
+                value = c - 'A' + 10;
+            } else {
+                value = 0;
+            }
+            sum += value * MRZ_WEIGHTS[i % 3];
+        }
+        return sum % 10;
+    }
+
+    /**
+     * 校验护照机读区字段及其校验位
+     */
+    public static boolean isValidMrzField(String field, char checkDigit) {
+        return checkDigit >= '0' && checkDigit <= '9' && mrzCheckDigit(field) == checkDigit - '0';
+    }
+}
@@ -0,0 +1,51 @@
+package com.twx.ocr.extraction;
+
+import com.twx.ocr.dto.ExtractedField;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 机动车驾驶证字段提取器
+ */
+@Component
+public class DrivingLicenseFieldExtractor extends AbstractFieldExtractor {
+
+    private static final Pattern NAME = labelPattern("姓名");
+
+    /**
+     * 驾驶证证号即持证人的身份证号码
+     */
+    private static final Pattern LICENSE_NUMBER = Pattern.compile("(?<!\\d)(\\d{17}[\\dXx])(?!\\d)");
+
+    private static final Pattern VEHICLE_CLASS = Pattern.compile("准驾车型[:：\\s]*([A-DMNP][1-3]?(?:[A-DMNP][1-3]?)*)");
+
+    private static final Pattern FIRST_ISSUE_DATE = Pattern.compile("初次领证日期[:：\\s]*(\\d{4}-\\d{2}-\\d{2})");
+
+    private static final Pattern VALID_PERIOD = labelPattern("有效期限");
+
+    @Override
+    public String getDocumentType() {
+        return "驾驶证";
+    }
+
+    @Override
+    public List<ExtractedField> extract(List<String> recTexts) {
+        List<ExtractedField> fields = new ArrayList<>();
+
+        addField(fields, "name", "姓名", findLabeled(recTexts, NAME));
+
+        String licenseNumber = findFirst(recTexts, LICENSE_NUMBER);
+        if (licenseNumber != null) {
+            licenseNumber = licenseNumber.toUpperCase();
+            addField(fields, "licenseNumber", "证号", licenseNumber, CheckDigits.isValidIdNumber(licenseNumber));
+        }
+
+        addField(fields, "vehicleClass", "准驾车型", findFirst(recTexts, VEHICLE_CLASS));
+        addField(fields, "firstIssueDate", "初次领证日期", findFirst(recTexts, FIRST_ISSUE_DATE));
+        addField(fields, "validPeriod", "有效期限", findLabeled(recTexts, VALID_PERIOD));
+        return fields;
+    }
+}
@@ -0,0 +1,35 @@
+package com.twx.ocr.extraction;
+
+import com.twx.ocr.dto.ExtractedField;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 关键字段提取服务，按证件类型分派到对应的提取器
+ */
+@Component
+public class FieldExtractionService {
+
+    private final Map<String, FieldExtractor> extractors = new HashMap<>();
+
+    public FieldExtractionService(List<FieldExtractor> extractors) {
+        for (FieldExtractor extractor : extractors) {
+            this.extractors.put(extractor.getDocumentType(), extractor);
+        }
+    }
+
+    /**
+     * 提取关键字段，未知证件类型返回空列表
+     */
+    public List<ExtractedField> extract(String documentType, List<String> recTexts) {
+        FieldExtractor extractor = documentType == null ? null : extractors.get(documentType);
+        if (extractor == null || recTexts == null || recTexts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return extractor.extract(recTexts);
+    }
+}
@@ -0,0 +1,26 @@
+package com.twx.ocr.extraction;
+
+import com.twx.ocr.dto.ExtractedField;
+
+import java.util.List;
+
+/**
+ * 证件关键字段提取器，每种证件类型对应一个实现
+ */
+public interface FieldExtractor {
+
+    /**
+     * 支持的证件类型（与分类结果中的documentType一致）
+     *
+     * @return 证件类型
+     */
+    String getDocumentType();
+
+    /**
+     * 从识别文本中提取关键字段
+     *
+     * @param recTexts 识别到的文本列表
+     * @return 关键字段列表，未识别到的字段不返回
+     */
+    List<ExtractedField> extract(List<String> recTexts);
+}
@@ -0,0 +1,83 @@
+package com.twx.ocr.extraction;
+
+import com.twx.ocr.dto.ExtractedField;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 居民身份证字段提取器（正反面）
+ */
+@Component
+public class IdCardFieldExtractor extends AbstractFieldExtractor {
+
+    private static final Pattern NAME = labelPattern("姓名");
+
+    private static final Pattern GENDER = Pattern.compile("性别[:：\\s]*([男女])");
+
+    private static final Pattern ETHNICITY = Pattern.compile("民族[:：\\s]*([\\u4e00-\\u9fa5]{1,6})");
+
+    private static final Pattern BIRTH_DATE = Pattern.compile("出生[:：\\s]*(\\d{4}\\s*年\\s*\\d{1,2}\\s*月\\s*\\d{1,2}\\s*日)");
+
+    private static final Pattern ADDRESS = labelPattern("住址");
+
+    private static final Pattern ID_NUMBER = Pattern.compile("(?<!\\d)(\\d{17}[\\dXx])(?!\\d)");
+
+    private static final Pattern ISSUING_AUTHORITY = labelPattern("签发机关");
+
+    private static final Pattern VALID_PERIOD = Pattern.compile(
+            "有效期限[:：\\s]*(\\d{4}\\.\\d{2}\\.\\d{2}\\s*[-—]\\s*(?:\\d{4}\\.\\d{2}\\.\\d{2}|长期))");
+
+    /**
+     * 住址可能折行，遇到这些标签时停止拼接
+     */
+    private static final Pattern NEXT_LABEL = Pattern.compile("^(公民身份号码|签发机关|有效期限|姓名|性别|民族|出生)");
+
+    @Override
+    public String getDocumentType() {
+        return "身份证";
+    }
+
+    @Override
+    public List<ExtractedField> extract(List<String> recTexts) {
+        List<ExtractedField> fields = new ArrayList<>();
+
+        addField(fields, "name", "姓名", findLabeled(recTexts, NAME));
+        addField(fields, "gender", "性别", findFirst(recTexts, GENDER));
+        addField(fields, "ethnicity", "民族", findFirst(recTexts, ETHNICITY));
+        addField(fields, "birthDate", "出生", findFirst(recTexts, BIRTH_DATE));
+        addField(fields, "address", "住址", findAddress(recTexts));
+
+        String idNumber = findFirst(recTexts, ID_NUMBER);
+        if (idNumber != null) {
+            idNumber = idNumber.toUpperCase();
+            addField(fields, "idNumber", "公民身份号码", idNumber, CheckDigits.isValidIdNumber(idNumber));
+        }
+
+        addField(fields, "issuingAuthority", "签发机关", findLabeled(recTexts, ISSUING_AUTHORITY));
+        addField(fields, "validPeriod", "有效期限", findFirst(recTexts, VALID_PERIOD));
+        return fields;
+    }
+
+    private String findAddress(List<String> recTexts) {
+        for (int i = 0; i < recTexts.size(); i++) {
+            Matcher matcher = ADDRESS.matcher(recTexts.get(i).trim());
+            if (!matcher.find()) {
+                continue;
+            }
+            StringBuilder address = new StringBuilder(matcher.group(1).trim());
+            for (int j = i + 1; j < recTexts.size(); j++) {
+                String line = recTexts.get(j).trim();
+                if (NEXT_LABEL.matcher(line).find() || ID_NUMBER.matcher(line).find()) {
+                    break;
+                }
+                address.append(line);
+            }
+            return address.toString();
+        }
+        return null;
+    }
+}
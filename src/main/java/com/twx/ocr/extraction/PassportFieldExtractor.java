@@ -0,0 +1,90 @@
+package com.twx.ocr.extraction;
+
+import com.twx.ocr.dto.ExtractedField;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 护照字段提取器，优先使用机读区（MRZ）并校验其校验位
+ */
+@Component
+public class PassportFieldExtractor extends AbstractFieldExtractor {
+
+    private static final Pattern PASSPORT_NUMBER = Pattern.compile("(?<![0-9A-Z])([EGDSP]\\d{8}|E[A-Z]\\d{7})(?![0-9A-Z])");
+
+    private static final Pattern NAME = labelPattern("姓名");
+
+    private static final Pattern ISSUE_DATE = labelPattern("签发日期");
+
+    private static final Pattern ISSUING_AUTHORITY = labelPattern("签发机关");
+
+    private static final Pattern EXPIRY_DATE = labelPattern("有效期至");
+
+    /**
+     * 机读区第一行：P + 类型 + 签发国 + 姓<<名
+     */
+    private static final Pattern MRZ_LINE_1 = Pattern.compile("^P[A-Z<]([A-Z<]{3})([A-Z<]{5,39})$");
+
+    /**
+     * 机读区第二行：护照号、国籍、出生日期、性别、有效期，均带校验位
+     */
+    private static final Pattern MRZ_LINE_2 = Pattern.compile(
+            "^([A-Z0-9<]{9})([0-9<])([A-Z<]{3})(\\d{6})([0-9<])([MF<])(\\d{6})([0-9<])");
+
+    private static final Pattern MRZ_FILLER = Pattern.compile("<+");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Override
+    public String getDocumentType() {
+        return "护照";
+    }
+
+    @Override
+    public List<ExtractedField> extract(List<String> recTexts) {
+        List<ExtractedField> fields = new ArrayList<>();
+        boolean numberFromMrz = false;
+
+        for (String text : recTexts) {
+            String line = WHITESPACE.matcher(text.toUpperCase()).replaceAll("");
+
+            Matcher names = MRZ_LINE_1.matcher(line);
+            if (names.find()) {
+                String[] parts = names.group(2).split("<<", 2);
+                addField(fields, "surname", "姓", MRZ_FILLER.matcher(parts[0]).replaceAll(" ").trim());
+                if (parts.length > 1) {
+                    addField(fields, "givenNames", "名", MRZ_FILLER.matcher(parts[1]).replaceAll(" ").trim());
+                }
+                continue;
+            }
+
+            Matcher mrz = MRZ_LINE_2.matcher(line);
+            if (mrz.find()) {
+                String number = mrz.group(1);
+                addField(fields, "passportNumber", "护照号码", number.replace("<", ""),
+                        CheckDigits.isValidMrzField(number, mrz.group(2).charAt(0)));
+                addField(fields, "nationality", "国籍", mrz.group(3).replace("<", ""));
+                addField(fields, "birthDate", "出生日期", mrz.group(4),
+                        CheckDigits.isValidMrzField(mrz.group(4), mrz.group(5).charAt(0)));
+                addField(fields, "sex", "性别", mrz.group(6).replace("<", ""));
+                addField(fields, "expiryDate", "有效期至", mrz.group(7),
+                        CheckDigits.isValidMrzField(mrz.group(7), mrz.group(8).charAt(0)));
+                numberFromMrz = true;
+            }
+        }
+
+        if (!numberFromMrz) {
+            addField(fields, "passportNumber", "护照号码", findFirst(recTexts, PASSPORT_NUMBER));
+            addField(fields, "expiryDate", "有效期至", findLabeled(recTexts, EXPIRY_DATE));
+        }
+
+        addField(fields, "name", "姓名", findLabeled(recTexts, NAME));
+        addField(fields, "issueDate", "签发日期", findLabeled(recTexts, ISSUE_DATE));
+        addField(fields, "issuingAuthority", "签发机关", findLabeled(recTexts, ISSUING_AUTHORITY));
+        return fields;
+    }
+}
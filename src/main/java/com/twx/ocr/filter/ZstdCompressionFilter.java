@@ -0,0 +1,98 @@
+package com.twx.ocr.filter;
+
+import com.github.luben.zstd.Zstd;
+import com.twx.ocr.config.OcrConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * zstd响应压缩过滤器
+ * <p>
+ * 客户端在Accept-Encoding中声明zstd时，对OCR接口的JSON响应做zstd压缩；
+ * 其余客户端由容器的server.compression按gzip压缩。已设置Content-Encoding的响应容器不会再次压缩。
+ */
+@Component
+@RequiredArgsConstructor
+public class ZstdCompressionFilter extends OncePerRequestFilter {
+
+    private static final String ZSTD = "zstd";
+
+    private final OcrConfig ocrConfig;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !ocrConfig.getZstdEnabled()
+                || !request.getRequestURI().startsWith(request.getContextPath() + "/api/")
+                || !acceptsZstd(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        byte[] body = wrapper.getContentAsByteArray();
+        if (body.length < ocrConfig.getCompressionMinBytes() || !isJson(wrapper.getContentType())
+                || wrapper.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        byte[] compressed = Zstd.compress(body, ocrConfig.getZstdLevel());
+        wrapper.resetBuffer();
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, ZSTD);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentLength(compressed.length);
+        response.getOutputStream().write(compressed);
+    }
+
+    /**
+     * 判断Accept-Encoding是否接受zstd（q=0表示明确拒绝）
+     */
+    static boolean acceptsZstd(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parts = token.trim().split(";");
+            if (!ZSTD.equals(parts[0].trim())) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
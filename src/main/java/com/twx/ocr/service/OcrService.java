@@ -1,5 +1,7 @@
 package com.twx.ocr.service;
 
+import com.twx.ocr.dto.HealthStatus;
+import com.twx.ocr.dto.OcrMetrics;
 import com.twx.ocr.dto.OcrRequest;
 import com.twx.ocr.dto.OcrResponse;
 
@@ -24,6 +26,15 @@ public interface OcrService {
      */
     OcrResponse processSingleImage(String imagePath);
     
+    /**
+     * 按请求选项处理单个图片文件
+     * 
+     * @param imagePath 图片文件路径
+     * @param options 请求选项（如是否只返回关键字段）
+     * @return OCR处理结果
+     */
+    OcrResponse processSingleImage(String imagePath, OcrRequest options);
+    
     /**
      * 批量处理目录下的图片文件
      * 
@@ -31,4 +42,43 @@ public interface OcrService {
      * @return OCR处理结果
      */
     OcrResponse processBatchImages(String directoryPath);
+    
+    /**
+     * 按请求选项批量处理目录下的图片文件
+     * 
+     * @param directoryPath 目录路径
+     * @param options 请求选项（如是否只返回关键字段）
+     * @return OCR处理结果
+     */
+    OcrResponse processBatchImages(String directoryPath, OcrRequest options);
+    
+    /**
+     * 按游标读取分页批量结果的下一页
+     * 
+     * @param cursor 上一页返回的nextCursor
+     * @param pageSize 每页条数
+     * @return 该页的处理结果
+     */
+    OcrResponse fetchBatchPage(String cursor, int pageSize);
+    
+    /**
+     * 调度运行指标，包括当前自适应并发上限
+     * 
+     * @return 运行指标
+     */
+    OcrMetrics metrics();
+    
+    /**
+     * 存活检查，返回工作进程统计信息
+     * 
+     * @return 健康状态
+     */
+    HealthStatus liveness();
+    
+    /**
+     * 就绪检查，只有存在预热完成的工作进程时才为UP
+     * 
+     * @return 健康状态
+     */
+    HealthStatus readiness();
 }
@@ -0,0 +1,173 @@
+package com.twx.ocr.service.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.DocumentClassificationResult;
+import com.twx.ocr.exception.OcrException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分页批量结果存储
+ * <p>
+ * 批量处理只执行一次，结果按响应视图裁剪后暂存在内存中，客户端用游标逐页读取。
+ * 按批次数、结果总大小（按序列化后的JSON估算）和保留时间限制，超出时淘汰最久未访问的批次；
+ * 单个批次就超过大小上限时只保留该批次。
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchResultStore {
+
+    private static final long MB = 1024L * 1024;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final OcrConfig ocrConfig;
+
+    private final LinkedHashMap<String, StoredBatch> batches = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 已保存批次的估算大小之和（字节）
+     */
+    private long storedBytes;
+
+    /**
+     * 保存批量结果并返回批次编号
+     */
+    public synchronized String save(StoredBatch batch) {
+        evictExpired();
+        String batchId = UUID.randomUUID().toString().replace("-", "");
+        batches.put(batchId, batch);
+        storedBytes += batch.getEstimatedBytes();
+        long maxBytes = ocrConfig.getBatchResultMaxMb() * MB;
+        while (batches.size() > 1 && (batches.size() > ocrConfig.getBatchResultMaxEntries() || storedBytes > maxBytes)) {
+            Iterator<StoredBatch> eldest = batches.values().iterator();
+            storedBytes -= eldest.next().getEstimatedBytes();
+            eldest.remove();
+        }
+        return batchId;
+    }
+
+    /**
+     * 已保存批次的估算大小之和（字节）
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * 读取游标所指的一页结果
+     */
+    public synchronized Page page(String cursor, int pageSize) {
+        evictExpired();
+        String[] parts = decodeCursor(cursor);
+        StoredBatch batch = batches.get(parts[0]);
+        if (batch == null) {
+            throw new OcrException("批量结果不存在或已过期");
+        }
+        int offset = Integer.parseInt(parts[1]);
+        return slice(parts[0], batch, offset, pageSize);
+    }
+
+    /**
+     * 截取一页结果，并生成下一页游标
+     */
+    public static Page slice(String batchId, StoredBatch batch, int offset, int pageSize) {
+        List<DocumentClassificationResult> results = batch.getResults();
+        int from = Math.min(offset, results.size());
+        int to = Math.min(from + pageSize, results.size());
+        String nextCursor = to < results.size() ? encodeCursor(batchId, to) : null;
+        return new Page(new ArrayList<>(results.subList(from, to)), nextCursor, batch);
+    }
+
+    public static String encodeCursor(String batchId, int offset) {
+        String raw = batchId + ":" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            if (parts.length != 2 || Integer.parseInt(parts[1]) < 0) {
+                throw new OcrException("无效的分页游标: " + cursor);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new OcrException("无效的分页游标: " + cursor);
+        }
+    }
+
+    private void evictExpired() {
+        long expireBefore = System.currentTimeMillis()
+                - TimeUnit.MINUTES.toMillis(ocrConfig.getBatchResultTtlMinutes());
+        Iterator<StoredBatch> iterator = batches.values().iterator();
+        while (iterator.hasNext()) {
+            StoredBatch batch = iterator.next();
+            if (batch.getCreatedAt() < expireBefore) {
+                storedBytes -= batch.getEstimatedBytes();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 暂存的批量结果
+     */
+    @Getter
+    public static class StoredBatch {
+
+        private final List<DocumentClassificationResult> results;
+
+        private final int successCount;
+
+        private final int failureCount;
+
+        private final long createdAt = System.currentTimeMillis();
+
+        /**
+         * 结果序列化为JSON后的大小，近似其在堆中的占用
+         */
+        private final long estimatedBytes;
+
+        public StoredBatch(List<DocumentClassificationResult> results, int successCount, int failureCount) {
+            this.results = results;
+            this.successCount = successCount;
+            this.failureCount = failureCount;
+            this.estimatedBytes = estimateBytes(results);
+        }
+
+        private static long estimateBytes(List<DocumentClassificationResult> results) {
+            try {
+                return OBJECT_MAPPER.writeValueAsBytes(results).length;
+            } catch (JsonProcessingException e) {
+                throw new OcrException("估算批量结果大小失败", e);
+            }
+        }
+    }
+
+    /**
+     * 一页结果
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Page {
+
+        private final List<DocumentClassificationResult> results;
+
+        private final String nextCursor;
+
+        private final StoredBatch batch;
+    }
+}
@@ -0,0 +1,166 @@
+package com.twx.ocr.service.batch;
+
+import com.twx.ocr.service.preflight.PreflightResult;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 图片识别耗时模型
+ * <p>
+ * 以像素数（百万）和文件大小（MB）为特征，对已完成识别的耗时做指数加权最小二乘在线拟合：
+ * 耗时 ≈ a + b × 像素数 + c × 文件大小。样本不足或无法求解时退回为按像素数估算，
+ * 读不到尺寸的图片按预检的解码大小折算像素数。批量处理据此按预测耗时从大到小分派。
+ */
+@Component
+public class ImageCostModel {
+
+    /**
+     * 开始使用拟合结果所需的最少样本数
+     */
+    static final int MIN_SAMPLES = 10;
+
+    /**
+     * 每个新样本到来时旧样本权重的衰减系数，有效样本数约为 1 / (1 - DECAY)
+     */
+    private static final double DECAY = 0.99;
+
+    /**
+     * 岭回归系数，避免图片尺寸都相同时方程奇异
+     */
+    private static final double RIDGE = 1e-6;
+
+    private static final int FEATURES = 3;
+
+    private static final double MB = 1024.0 * 1024;
+
+    private final double[][] xtx = new double[FEATURES][FEATURES];
+
+    private final double[] xty = new double[FEATURES];
+
+    private int samples;
+
+    private boolean dirty;
+
+    /**
+     * 拟合出的系数，尚未拟合时为null
+     */
+    private double[] coefficients;
+
+    /**
+     * 记录一次完成的识别耗时（毫秒）
+     */
+    public synchronized void record(PreflightResult preflight, long elapsedMs) {
+        double[] x = features(preflight);
+        for (int i = 0; i < FEATURES; i++) {
+            for (int j = 0; j < FEATURES; j++) {
+                xtx[i][j] = xtx[i][j] * DECAY + x[i] * x[j];
+            }
+            xty[i] = xty[i] * DECAY + x[i] * elapsedMs;
+        }
+        samples++;
+        dirty = true;
+    }
+
+    /**
+     * 批量估算识别耗时，同一批次内的估算使用同一组系数，结果可直接比较大小
+     *
+     * @return 预测耗时（毫秒）；尚未拟合时为像素数（百万），仅用于排序
+     */
+    public synchronized double[] estimate(List<PreflightResult> preflights) {
+        double[] fitted = fit();
+        double[] costs = new double[preflights.size()];
+        for (int i = 0; i < costs.length; i++) {
+            double[] x = features(preflights.get(i));
+            costs[i] = fitted == null ? x[1] : Math.max(0, dot(fitted, x));
+        }
+        return costs;
+    }
+
+    /**
+     * 已记录的样本数
+     */
+    public synchronized int getSamples() {
+        return samples;
+    }
+
+    /**
+     * 拟合出的系数（常数项、每百万像素、每MB），尚未拟合时为null
+     */
+    synchronized double[] coefficients() {
+        return fit();
+    }
+
+    private double[] fit() {
+        if (!dirty || samples < MIN_SAMPLES) {
+            return coefficients;
+        }
+        dirty = false;
+        double[][] a = new double[FEATURES][FEATURES + 1];
+        for (int i = 0; i < FEATURES; i++) {
+            System.arraycopy(xtx[i], 0, a[i], 0, FEATURES);
+            // 常数项不做正则
+            if (i > 0) {
+                a[i][i] += RIDGE * xtx[0][0];
+            }
+            a[i][FEATURES] = xty[i];
+        }
+        double[] solved = solve(a);
+        // 像素数和文件大小都不应使耗时减少，拟合出负系数时说明样本不足以区分，继续使用上一组系数
+        if (solved != null && solved[1] >= 0 && solved[2] >= 0) {
+            coefficients = solved;
+        }
+        return coefficients;
+    }
+
+    /**
+     * 部分主元高斯消元求解增广矩阵，奇异时返回null
+     */
+    private static double[] solve(double[][] a) {
+        int n = a.length;
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            if (Math.abs(a[pivot][col]) < 1e-12) {
+                return null;
+            }
+            double[] swap = a[col];
+            a[col] = a[pivot];
+            a[pivot] = swap;
+            for (int row = col + 1; row < n; row++) {
+                double factor = a[row][col] / a[col][col];
+                for (int k = col; k <= n; k++) {
+                    a[row][k] -= factor * a[col][k];
+                }
+            }
+        }
+        double[] x = new double[n];
+        for (int row = n - 1; row >= 0; row--) {
+            double sum = a[row][n];
+            for (int k = row + 1; k < n; k++) {
+                sum -= a[row][k] * x[k];
+            }
+            x[row] = sum / a[row][row];
+        }
+        return x;
+    }
+
+    private static double[] features(PreflightResult preflight) {
+        double megapixels = preflight.getDimension() != null ?
+                (double) preflight.getDimension().width * preflight.getDimension().height / 1_000_000 :
+                preflight.getEstimatedDecodedBytes() / 3.0 / 1_000_000;
+        return new double[]{1, megapixels, preflight.getSizeBytes() / MB};
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
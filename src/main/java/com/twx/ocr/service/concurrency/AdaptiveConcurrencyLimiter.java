@@ -0,0 +1,238 @@
+package com.twx.ocr.service.concurrency;
+
+import com.twx.ocr.exception.OcrException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于识别耗时梯度的自适应并发限制器
+ * <p>
+ * 维护两条耗时均线：长期均线作为无排队时的基线，短期均线反映当前负载。
+ * 短期耗时未超过基线的容忍倍数时按 limit + sqrt(limit) 逐步放大，超过后按 基线/短期耗时 的比例收缩；
+ * 识别失败（超时、进程崩溃等）时乘性减小。并发数始终限制在 [minLimit, maxLimit] 内。
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * 短期均线平滑系数
+     */
+    private static final double SHORT_ALPHA = 0.5;
+
+    /**
+     * 长期均线平滑系数（约等于最近600次的滑动平均）
+     */
+    private static final double LONG_ALPHA = 2.0 / 601;
+
+    /**
+     * 新并发数与旧并发数的混合比例，避免单次样本造成剧烈抖动
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * 识别失败时的乘性减小系数
+     */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition permitAvailable = lock.newCondition();
+
+    private volatile double estimatedLimit;
+
+    private int inFlight;
+
+    private int waiting;
+
+    private double shortLatencyMs = -1;
+
+    private double longLatencyMs = -1;
+
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, int initialLimit, double tolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1.0, tolerance);
+        this.estimatedLimit = clamp(initialLimit);
+    }
+
+    /**
+     * 获取一个并发许可，超时抛出异常
+     *
+     * @return 许可获取时间（纳秒），归还许可时传回
+     */
+    public long acquire(long timeoutMs) throws InterruptedException {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            waiting++;
+            try {
+                while (inFlight >= getLimit()) {
+                    if (remainingNanos <= 0) {
+                        throw new OcrException("等待OCR并发许可超时，当前并发上限: " + getLimit());
+                    }
+                    remainingNanos = permitAvailable.awaitNanos(remainingNanos);
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 有空闲许可时立即获取，否则不等待
+     *
+     * @return 许可获取时间（纳秒），没有空闲许可时返回-1
+     */
+    public long tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= getLimit()) {
+                return -1;
+            }
+            inFlight++;
+            return System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还被取消的调用的许可，耗时不代表容量，不调整并发数
+     */
+    public void abandon() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还许可并根据本次耗时调整并发数
+     *
+     * @param startNanos acquire返回的时间
+     * @param dropped    本次识别是否因超时或引擎故障失败
+     */
+    public void release(long startNanos, boolean dropped) {
+        release((System.nanoTime() - startNanos) / 1_000_000.0, dropped);
+    }
+
+    void release(double latencyMs, boolean dropped) {
+        lock.lock();
+        try {
+            int previousLimit = getLimit();
+            if (dropped) {
+                estimatedLimit = clamp(estimatedLimit * BACKOFF_RATIO);
+            } else {
+                update(latencyMs);
+            }
+            inFlight--;
+            if (getLimit() > previousLimit) {
+                permitAvailable.signalAll();
+            } else {
+                permitAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(double latencyMs) {
+        if (shortLatencyMs < 0) {
+            shortLatencyMs = latencyMs;
+            longLatencyMs = latencyMs;
+            return;
+        }
+        shortLatencyMs = shortLatencyMs * (1 - SHORT_ALPHA) + latencyMs * SHORT_ALPHA;
+        longLatencyMs = longLatencyMs * (1 - LONG_ALPHA) + latencyMs * LONG_ALPHA;
+
+        // 负载下降后让基线尽快跟上，否则会长时间误判为过载之后的“低耗时”
+        if (longLatencyMs / shortLatencyMs > 2) {
+            longLatencyMs *= 0.95;
+        }
+
+        // 并发远未用满时耗时不能说明容量问题，不做调整
+        if (inFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longLatencyMs / shortLatencyMs));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        estimatedLimit = clamp(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    private double clamp(double limit) {
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * 基线耗时（毫秒），尚无样本时为-1
+     */
+    public long getBaselineLatencyMs() {
+        lock.lock();
+        try {
+            return Math.round(longLatencyMs);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 近期平均耗时（毫秒），尚无样本时为-1
+     */
+    public long getRecentLatencyMs() {
+        lock.lock();
+        try {
+            return Math.round(shortLatencyMs);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
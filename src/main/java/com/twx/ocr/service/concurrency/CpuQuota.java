@@ -0,0 +1,91 @@
+package com.twx.ocr.service.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 容器CPU配额探测
+ * <p>
+ * 读取cgroup v2的 cpu.max 或 cgroup v1的 cpu.cfs_quota_us/cpu.cfs_period_us，
+ * 与 availableProcessors 取较小值。较早的Java 8版本不感知容器配额，直接使用核数会高估并发能力。
+ */
+@Slf4j
+public final class CpuQuota {
+
+    private static final Path CGROUP_V2_CPU_MAX = Paths.get("/sys/fs/cgroup/cpu.max");
+
+    private static final Path[] CGROUP_V1_DIRS = {
+            Paths.get("/sys/fs/cgroup/cpu"),
+            Paths.get("/sys/fs/cgroup/cpu,cpuacct")
+    };
+
+    private CpuQuota() {
+    }
+
+    /**
+     * 当前进程实际可用的CPU核数（向上取整，至少为1）
+     */
+    public static int effectiveProcessors() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        Double quota = readQuota();
+        if (quota == null) {
+            return processors;
+        }
+        return Math.max(1, Math.min(processors, (int) Math.ceil(quota)));
+    }
+
+    /**
+     * 读取cgroup CPU配额（核数），未设置配额或无法读取时返回null
+     */
+    static Double readQuota() {
+        try {
+            if (Files.isReadable(CGROUP_V2_CPU_MAX)) {
+                return parseCgroupV2(read(CGROUP_V2_CPU_MAX));
+            }
+            for (Path dir : CGROUP_V1_DIRS) {
+                Path quota = dir.resolve("cpu.cfs_quota_us");
+                Path period = dir.resolve("cpu.cfs_period_us");
+                if (Files.isReadable(quota) && Files.isReadable(period)) {
+                    return parseCgroupV1(read(quota), read(period));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("读取cgroup CPU配额失败: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 解析cgroup v2的cpu.max，格式为“$MAX $PERIOD”，MAX为max表示不限制
+     */
+    static Double parseCgroupV2(String content) {
+        String[] parts = content.trim().split("\\s+");
+        if (parts.length < 2 || "max".equals(parts[0])) {
+            return null;
+        }
+        return quotaOf(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    /**
+     * 解析cgroup v1的配额和周期，配额为-1表示不限制
+     */
+    static Double parseCgroupV1(String quota, String period) {
+        return quotaOf(Long.parseLong(quota.trim()), Long.parseLong(period.trim()));
+    }
+
+    private static Double quotaOf(long quota, long period) {
+        if (quota <= 0 || period <= 0) {
+            return null;
+        }
+        return (double) quota / period;
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,146 @@
+package com.twx.ocr.service.concurrency;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求策略
+ * <p>
+ * 记录最近的识别耗时，单张图片识别超过其指定分位数仍未完成时才发出对冲请求。
+ * 对冲预算按令牌计：每个请求积累 budgetRatio 个令牌，每次对冲消耗一个，
+ * 令牌上限为 max(1, 并发上限 × budgetRatio)，因此对冲请求占用的识别容量不超过 budgetRatio。
+ */
+public class HedgePolicy {
+
+    /**
+     * 计算分位数使用的最近样本数
+     */
+    static final int WINDOW_SIZE = 512;
+
+    /**
+     * 样本数不足时耗时分布不可靠，不发出对冲
+     */
+    static final int MIN_SAMPLES = 20;
+
+    /**
+     * 令牌按小数累加，比较时留出浮点误差
+     */
+    private static final double TOKEN_EPSILON = 1e-9;
+
+    private final boolean enabled;
+
+    private final double percentile;
+
+    private final long minDelayMs;
+
+    private final double budgetRatio;
+
+    private final long[] window = new long[WINDOW_SIZE];
+
+    private int samples;
+
+    private int next;
+
+    private double tokens;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong fired = new AtomicLong();
+
+    private final AtomicLong won = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    public HedgePolicy(boolean enabled, double percentile, long minDelayMs, double budgetRatio) {
+        this.enabled = enabled && budgetRatio > 0;
+        this.percentile = Math.max(1, Math.min(99.9, percentile));
+        this.minDelayMs = Math.max(0, minDelayMs);
+        this.budgetRatio = budgetRatio;
+    }
+
+    /**
+     * 记录一次完成的识别耗时（毫秒）
+     */
+    public synchronized void record(long latencyMs) {
+        window[next] = latencyMs;
+        next = (next + 1) % WINDOW_SIZE;
+        samples = Math.min(samples + 1, WINDOW_SIZE);
+    }
+
+    /**
+     * 开始一个可对冲的请求，积累对冲令牌
+     *
+     * @param capacity 当前并发上限，决定令牌上限
+     * @return 发出对冲前的等待时间（毫秒），未开启或样本不足时返回-1
+     */
+    public synchronized long begin(int capacity) {
+        if (!enabled) {
+            return -1;
+        }
+        requests.incrementAndGet();
+        tokens = Math.min(Math.max(1.0, capacity * budgetRatio), tokens + budgetRatio);
+        return samples < MIN_SAMPLES ? -1 : Math.max(minDelayMs, percentileLatency());
+    }
+
+    /**
+     * 消耗一个对冲令牌，预算不足时返回false
+     */
+    public synchronized boolean tryConsume() {
+        if (tokens < 1 - TOKEN_EPSILON) {
+            skipped.incrementAndGet();
+            return false;
+        }
+        tokens = Math.max(0, tokens - 1);
+        return true;
+    }
+
+    /**
+     * 令牌已消耗但没有空闲容量，对冲未发出，退还令牌
+     */
+    public synchronized void refund() {
+        tokens += 1;
+        skipped.incrementAndGet();
+    }
+
+    public void recordFired() {
+        fired.incrementAndGet();
+    }
+
+    public void recordWon() {
+        won.incrementAndGet();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 当前对冲等待时间（毫秒），未开启或样本不足时为-1
+     */
+    public synchronized long currentDelayMs() {
+        return !enabled || samples < MIN_SAMPLES ? -1 : Math.max(minDelayMs, percentileLatency());
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFired() {
+        return fired.get();
+    }
+
+    public long getWon() {
+        return won.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    private long percentileLatency() {
+        long[] sorted = Arrays.copyOf(window, samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * samples) - 1;
+        return sorted[Math.max(0, Math.min(samples - 1, index))];
+    }
+}
@@ -0,0 +1,173 @@
+package com.twx.ocr.service.concurrency;
+
+import com.twx.ocr.exception.OcrException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 全局在途内存预算（字节）
+ * <p>
+ * 新的识别任务按估算的图片解码大小申请预算，预算不足时等待；批量处理中缓存的结果通过 {@link #reserve(Reservation, long)}
+ * 计入占用但不等待。同一批次的任务申请预算时不计该批次自己缓存的结果，避免结果占满预算后自己等自己；
+ * 其他请求仍会因这部分占用而等待。单个任务超过总预算时，只要当前没有其他占用就放行。
+ */
+public class MemoryBudget {
+
+    private final long capacityBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    private long usedBytes;
+
+    private int waiting;
+
+    /**
+     * @param capacityBytes 预算总量，小于等于0表示不限制（仍统计占用）
+     */
+    public MemoryBudget(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * 申请预算，不足时等待，超时抛出异常
+     */
+    public void acquire(long bytes, long timeoutMs) throws InterruptedException {
+        acquire(bytes, timeoutMs, null);
+    }
+
+    /**
+     * 申请预算，不足时等待，超时抛出异常
+     *
+     * @param own 任务所属批次缓存结果的占用，判断是否充足时不计入；为null表示不属于任何批次
+     */
+    public void acquire(long bytes, long timeoutMs, Reservation own) throws InterruptedException {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            waiting++;
+            try {
+                while (exceeds(bytes, own)) {
+                    if (remainingNanos <= 0) {
+                        throw new OcrException("等待内存预算超时，当前占用: " + usedBytes / (1024 * 1024) + "MB");
+                    }
+                    remainingNanos = released.awaitNanos(remainingNanos);
+                }
+            } finally {
+                waiting--;
+            }
+            usedBytes += bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 预算充足时立即申请，不足时不等待
+     *
+     * @return 是否申请成功
+     */
+    public boolean tryAcquire(long bytes) {
+        lock.lock();
+        try {
+            if (capacityBytes > 0 && usedBytes > 0 && usedBytes + bytes > capacityBytes) {
+                return false;
+            }
+            usedBytes += bytes;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 计入批次缓存结果的占用，不等待；批次结束后通过 {@link #release(Reservation)} 一并归还
+     */
+    public void reserve(Reservation reservation, long bytes) {
+        lock.lock();
+        try {
+            reservation.bytes += bytes;
+            usedBytes += bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还批次缓存结果的全部占用
+     */
+    public void release(Reservation reservation) {
+        lock.lock();
+        try {
+            long bytes = reservation.bytes;
+            reservation.bytes = 0;
+            usedBytes = Math.max(0, usedBytes - bytes);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 直接计入占用，不等待
+     */
+    public void reserve(long bytes) {
+        lock.lock();
+        try {
+            usedBytes += bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还预算
+     */
+    public void release(long bytes) {
+        lock.lock();
+        try {
+            usedBytes = Math.max(0, usedBytes - bytes);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean exceeds(long bytes, Reservation own) {
+        long used = own != null ? usedBytes - own.bytes : usedBytes;
+        return capacityBytes > 0 && used > 0 && used + bytes > capacityBytes;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一个批次缓存结果的预算占用，由预算的锁保护
+     */
+    public static final class Reservation {
+
+        private long bytes;
+    }
+}
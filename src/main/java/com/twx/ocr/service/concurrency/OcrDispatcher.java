@@ -0,0 +1,375 @@
+package com.twx.ocr.service.concurrency;
+
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.OcrMetrics;
+import com.twx.ocr.exception.OcrException;
+import com.twx.ocr.tracing.Span;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OCR识别调度器
+ * <p>
+ * 所有识别调用先按图片解码大小申请内存预算，再经过自适应并发限制器，并发上限随主机实际承载能力自动调整；
+ * 批量任务通过内部线程池并行提交，实际并行度同样受两者约束。
+ * <p>
+ * 单张图片识别可开启对冲（ocr.hedge-enabled）：超过近期耗时的指定分位数仍未完成、且有空闲工作进程、
+ * 并发许可和对冲预算时，再发出一个相同的请求，先成功返回的结果生效，另一个被取消。
+ * 分位数只按经 {@link #hedgedCall} 成功完成的请求统计，不包括批量任务。
+ */
+@Slf4j
+@Component
+public class OcrDispatcher {
+
+    /**
+     * 在并发许可内执行的识别调用
+     */
+    public interface Call<T> {
+        T call() throws IOException, InterruptedException;
+    }
+
+    /**
+     * 可对冲的识别
+     */
+    public interface Hedged<T> {
+
+        /**
+         * 按区间创建一次识别调用，主请求使用原区间，对冲请求使用其下的hedge子区间
+         *
+         * @param hedge 是否为对冲请求；对冲请求只能使用空闲资源，不能排队等待
+         */
+        Call<T> attempt(Span span, boolean hedge);
+
+        /**
+         * 是否有可立即处理对冲请求的空闲资源（如空闲工作进程），不阻塞
+         */
+        default boolean hasIdleCapacity() {
+            return true;
+        }
+
+        /**
+         * 返回的结果是否表示失败；失败的一方不算胜出，继续等待另一个
+         */
+        default boolean isFailure(T result) {
+            return false;
+        }
+    }
+
+    private static final long MB = 1024L * 1024;
+
+    private final OcrConfig ocrConfig;
+
+    private final int cpuQuota;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final MemoryBudget memoryBudget;
+
+    private final ExecutorService batchExecutor;
+
+    private final ExecutorService hedgeExecutor;
+
+    private final HedgePolicy hedgePolicy;
+
+    public OcrDispatcher(OcrConfig ocrConfig) {
+        this.ocrConfig = ocrConfig;
+        this.cpuQuota = CpuQuota.effectiveProcessors();
+
+        int maxLimit = ocrConfig.getConcurrencyMaxLimit() > 0 ? ocrConfig.getConcurrencyMaxLimit() : cpuQuota;
+        int initialLimit = ocrConfig.getConcurrencyInitialLimit() > 0 ?
+                ocrConfig.getConcurrencyInitialLimit() : ocrConfig.getWorkerCount();
+        this.limiter = new AdaptiveConcurrencyLimiter(ocrConfig.getConcurrencyMinLimit(), maxLimit,
+                initialLimit, ocrConfig.getConcurrencyLatencyTolerance());
+
+        this.memoryBudget = new MemoryBudget(ocrConfig.getMemoryBudgetMb() * MB);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.batchExecutor = Executors.newFixedThreadPool(limiter.getMaxLimit(), runnable -> {
+            Thread thread = new Thread(runnable, "ocr-dispatch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // 对冲请求的线程数同样受并发许可限制，这里不再设上限
+        AtomicInteger hedgeThreadIndex = new AtomicInteger();
+        this.hedgeExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ocr-hedge-" + hedgeThreadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hedgePolicy = new HedgePolicy(ocrConfig.getHedgeEnabled(), ocrConfig.getHedgePercentile(),
+                ocrConfig.getHedgeMinDelayMs(), ocrConfig.getHedgeBudgetRatio());
+
+        if (ocrConfig.getWorkerCount() > limiter.getMaxLimit()) {
+            log.warn("工作进程数({})超过并发上限({})，多余的工作进程不会被同时使用，可调整 ocr.concurrency-max-limit",
+                    ocrConfig.getWorkerCount(), limiter.getMaxLimit());
+        }
+        log.info("OCR并发限制器已初始化，CPU配额: {}核，并发范围: {}-{}，初始并发: {}",
+                cpuQuota, limiter.getMinLimit(), limiter.getMaxLimit(), limiter.getLimit());
+    }
+
+    /**
+     * 在当前线程中申请内存预算和并发许可后执行识别
+     *
+     * @param bytes 任务占用的内存估算（字节）
+     * @param span  任务所属区间，等待预算和许可的时间记为queue阶段
+     */
+    public <T> T call(long bytes, Span span, Call<T> call) throws IOException, InterruptedException {
+        return call(bytes, span, null, call);
+    }
+
+    /**
+     * @param buffered 任务所属批次缓存结果的占用，申请预算时不计入
+     */
+    private <T> T call(long bytes, Span span, MemoryBudget.Reservation buffered, Call<T> call)
+            throws IOException, InterruptedException {
+        long startNanos = acquirePermit(bytes, span, buffered);
+        return runWithPermit(startNanos, bytes, call, null);
+    }
+
+    /**
+     * 排队申请内存预算和并发许可，等待时间记为queue阶段
+     *
+     * @return 许可的开始时间，交给 {@link #runWithPermit} 归还
+     */
+    private long acquirePermit(long bytes, Span span, MemoryBudget.Reservation buffered) throws InterruptedException {
+        long timeoutMs = TimeUnit.SECONDS.toMillis(ocrConfig.getTimeoutSeconds());
+        Span queue = Span.childOf(span, "queue");
+        try {
+            memoryBudget.acquire(bytes, timeoutMs, buffered);
+            try {
+                return limiter.acquire(timeoutMs);
+            } catch (InterruptedException | RuntimeException e) {
+                memoryBudget.release(bytes);
+                throw e;
+            }
+        } finally {
+            queue.end();
+        }
+    }
+
+    /**
+     * 在已获得的许可内执行，结束后归还许可和预算；被取消（中断）的调用不计入并发调整
+     *
+     * @param hedged 不为null时把成功结果的耗时计入对冲分位数
+     */
+    private <T> T runWithPermit(long startNanos, long bytes, Call<T> call, Hedged<T> hedged)
+            throws IOException, InterruptedException {
+        boolean dropped = true;
+        boolean cancelled = false;
+        try {
+            T result = call.call();
+            dropped = false;
+            if (hedged != null && !hedged.isFailure(result)) {
+                hedgePolicy.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+            return result;
+        } catch (InterruptedException e) {
+            cancelled = true;
+            throw e;
+        } finally {
+            if (cancelled) {
+                limiter.abandon();
+            } else {
+                limiter.release(startNanos, dropped);
+            }
+            memoryBudget.release(bytes);
+        }
+    }
+
+    /**
+     * 带对冲的单张图片识别
+     * <p>
+     * 主请求超过对冲等待时间仍未完成时，若对冲预算、空闲资源、空闲并发许可和内存预算都满足，立即发出对冲请求；
+     * 两者中先成功返回的结果生效，先返回的抛出异常或返回失败结果时等待另一个，结束后取消仍在执行的一方。
+     */
+    public <T> T hedgedCall(long bytes, Span span, Hedged<T> hedged) throws IOException, InterruptedException {
+        long delayMs = hedgePolicy.begin(limiter.getLimit());
+        if (delayMs < 0) {
+            return primaryCall(bytes, span, hedged);
+        }
+
+        CompletionService<T> completion = new ExecutorCompletionService<>(hedgeExecutor);
+        Future<T> primary = completion.submit(() -> primaryCall(bytes, span, hedged));
+        Future<T> hedge = null;
+        try {
+            Future<T> first = completion.poll(delayMs, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                hedge = startHedge(bytes, span, hedged, completion);
+                first = completion.take();
+            }
+            if (hedge == null) {
+                return result(first);
+            }
+            Future<T> winner = first;
+            T value;
+            try {
+                value = result(first);
+            } catch (IOException | RuntimeException e) {
+                log.debug("对冲中先返回的请求失败，等待另一个: {}", e.getMessage());
+                winner = completion.take();
+                value = result(winner);
+            }
+            if (hedged.isFailure(value) && winner == first) {
+                // 先返回的是失败结果，另一个成功时以其为准，也失败时仍返回先到的失败结果
+                log.debug("对冲中先返回的结果失败，等待另一个");
+                Future<T> other = completion.take();
+                try {
+                    T otherValue = result(other);
+                    if (!hedged.isFailure(otherValue)) {
+                        winner = other;
+                        value = otherValue;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.debug("对冲中另一个请求也失败: {}", e.getMessage());
+                }
+            }
+            if (winner == hedge) {
+                hedgePolicy.recordWon();
+                if (span != null) {
+                    span.setAttribute("hedge.won", true);
+                }
+            }
+            return value;
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 执行主请求，排队等待预算和许可
+     */
+    private <T> T primaryCall(long bytes, Span span, Hedged<T> hedged) throws IOException, InterruptedException {
+        long startNanos = acquirePermit(bytes, span, null);
+        return runWithPermit(startNanos, bytes, hedged.attempt(span, false), hedged);
+    }
+
+    /**
+     * 在空闲容量上发出对冲请求，预算或容量不足时返回null
+     */
+    private <T> Future<T> startHedge(long bytes, Span span, Hedged<T> hedged, CompletionService<T> completion) {
+        if (!hedgePolicy.tryConsume()) {
+            return null;
+        }
+        // 没有空闲工作进程时对冲请求只会排在主请求之后，不如不发
+        if (!hedged.hasIdleCapacity()) {
+            hedgePolicy.refund();
+            return null;
+        }
+        // 只使用空闲的许可和预算，对冲请求从不排队
+        long startNanos = limiter.tryAcquire();
+        if (startNanos < 0) {
+            hedgePolicy.refund();
+            return null;
+        }
+        if (!memoryBudget.tryAcquire(bytes)) {
+            limiter.abandon();
+            hedgePolicy.refund();
+            return null;
+        }
+        hedgePolicy.recordFired();
+        Span hedgeSpan = Span.childOf(span, "hedge");
+        if (span != null) {
+            span.setAttribute("hedge.fired", true);
+        }
+        return completion.submit(() -> {
+            try {
+                return runWithPermit(startNanos, bytes, hedged.attempt(hedgeSpan, true), hedged);
+            } finally {
+                hedgeSpan.end();
+            }
+        });
+    }
+
+    private static <T> T result(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new OcrException("识别失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 提交到批量线程池执行，适用于批量处理中的单张图片
+     *
+     * @param buffered 所属批次缓存结果的占用，见 {@link #openBuffer()}
+     */
+    public <T> Future<T> submit(long bytes, Span span, MemoryBudget.Reservation buffered, Call<T> call) {
+        return batchExecutor.submit(() -> this.call(bytes, span, buffered, call));
+    }
+
+    /**
+     * 为一个批次创建缓存结果的预算占用，该批次的任务申请预算时不计入这部分
+     */
+    public MemoryBudget.Reservation openBuffer() {
+        return new MemoryBudget.Reservation();
+    }
+
+    /**
+     * 计入批量处理中缓存的结果大小，不等待预算，处理结束后需调用 {@link #releaseBuffered(MemoryBudget.Reservation)}
+     */
+    public void reserveBuffered(MemoryBudget.Reservation buffered, long bytes) {
+        memoryBudget.reserve(buffered, bytes);
+    }
+
+    public void releaseBuffered(MemoryBudget.Reservation buffered) {
+        memoryBudget.release(buffered);
+    }
+
+    /**
+     * 并发限制器和内存预算运行指标
+     */
+    public OcrMetrics metrics() {
+        return OcrMetrics.builder()
+                .concurrencyLimit(limiter.getLimit())
+                .minConcurrencyLimit(limiter.getMinLimit())
+                .maxConcurrencyLimit(limiter.getMaxLimit())
+                .inFlight(limiter.getInFlight())
+                .waiting(limiter.getWaiting())
+                .cpuQuota(cpuQuota)
+                .baselineLatencyMs(limiter.getBaselineLatencyMs())
+                .recentLatencyMs(limiter.getRecentLatencyMs())
+                .memoryBudgetMb(memoryBudget.getCapacityBytes() / MB)
+                .memoryInUseMb(memoryBudget.getUsedBytes() / MB)
+                .memoryWaiting(memoryBudget.getWaiting())
+                .hedgeEnabled(hedgePolicy.isEnabled())
+                .hedgeDelayMs(hedgePolicy.currentDelayMs())
+                .hedgeRequests(hedgePolicy.getRequests())
+                .hedgesFired(hedgePolicy.getFired())
+                .hedgesWon(hedgePolicy.getWon())
+                .hedgesSkipped(hedgePolicy.getSkipped())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+        hedgeExecutor.shutdownNow();
+    }
+}
@@ -1,37 +1,95 @@
 package com.twx.ocr.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twx.ocr.classification.Classification;
+import com.twx.ocr.classification.DocumentClassifier;
 import com.twx.ocr.config.OcrConfig;
 import com.twx.ocr.dto.DocumentClassificationResult;
+import com.twx.ocr.dto.ExtractedField;
+import com.twx.ocr.dto.HealthStatus;
+import com.twx.ocr.dto.OcrMetrics;
 import com.twx.ocr.dto.OcrRequest;
 import com.twx.ocr.dto.OcrResponse;
+import com.twx.ocr.dto.OutputMode;
+import com.twx.ocr.dto.ProcessingMode;
+import com.twx.ocr.dto.ResponseView;
+import com.twx.ocr.engine.EngineResult;
+import com.twx.ocr.engine.OcrEngine;
+import com.twx.ocr.engine.OcrTask;
 import com.twx.ocr.exception.OcrException;
+import com.twx.ocr.extraction.FieldExtractionService;
 import com.twx.ocr.service.OcrService;
+import com.twx.ocr.service.batch.BatchResultStore;
+import com.twx.ocr.service.batch.ImageCostModel;
+import com.twx.ocr.service.concurrency.MemoryBudget;
+import com.twx.ocr.service.concurrency.OcrDispatcher;
+import com.twx.ocr.service.output.OutputRecord;
+import com.twx.ocr.service.output.ResultOutputWriter;
+import com.twx.ocr.service.preflight.PreflightFilter;
+import com.twx.ocr.service.preflight.PreflightResult;
+import com.twx.ocr.tracing.Span;
+import com.twx.ocr.tracing.Trace;
+import com.twx.ocr.tracing.Tracer;
+import com.twx.ocr.util.ArchiveImages;
 import com.twx.ocr.util.FileUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
- * Python OCR服务实现
+ * OCR服务实现
+ * <p>
+ * 负责参数校验、批量调度、分类补全、字段提取和结果裁剪，具体识别委托给通过 ocr.engine 选择的 {@link OcrEngine}。
+ * 识别前由 {@link PreflightFilter} 预检，批量处理时拒绝的文件不分派，内容重复的文件复用第一个文件的结果。
+ * 批量输入可以是目录或压缩包（ZIP、TAR、TAR.GZ），压缩包条目流式读取后直接在内存中识别，结果按条目名称返回。
+ * 识别调用经 {@link OcrDispatcher} 自适应限流，批量处理时各图片并行识别，结果保持目录顺序；单张图片识别可开启对冲请求。
+ * 目录批量处理按 {@link ImageCostModel} 预测的耗时从大到小分派，避免大图排在最后时其他工作进程空闲。
+ * 每个请求对应一条链路，各阶段耗时记录为区间，按需随响应返回并导出。
+ * CLASSIFY模式先做快速识别，分类结果明确时提前返回，有歧义时才做完整识别。
+ * 结果文件和可视化图片按请求的outputMode交给 {@link ResultOutputWriter} 在后台写入，识别不等待磁盘。
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PythonOcrService implements OcrService {
     
+    /**
+     * 单条结果对象本身的估算开销（字节）
+     */
+    private static final long RESULT_OVERHEAD_BYTES = 1024;
+    
+    /**
+     * 快速识别即已确定类型
+     */
+    private static final String PATH_EARLY = "early";
+    
+    /**
+     * 快速识别有歧义，做了完整识别
+     */
+    private static final String PATH_FULL = "full";
+    
     private final OcrConfig ocrConfig;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OcrEngine ocrEngine;
+    private final DocumentClassifier documentClassifier;
+    private final FieldExtractionService fieldExtractionService;
+    private final BatchResultStore batchResultStore;
+    private final OcrDispatcher ocrDispatcher;
+    private final Tracer tracer;
+    private final PreflightFilter preflightFilter;
+    private final ResultOutputWriter outputWriter;
+    private final ImageCostModel imageCostModel;
     
     @Override
     public OcrResponse processOcr(OcrRequest request) {
@@ -41,12 +99,14 @@ public class PythonOcrService implements OcrService {
             
             String imagePath = request.getImagePath();
             
-            // 检查路径类型
-            if (FileUtils.isFile(imagePath)) {
-                return processSingleImage(imagePath);
+            // 检查路径类型，压缩包按批量处理
+            if (FileUtils.isFile(imagePath) && ArchiveImages.isArchive(imagePath)) {
+                return processBatchImages(imagePath, request);
+            } else if (FileUtils.isFile(imagePath)) {
+                return processSingleImage(imagePath, request);
             } else if (FileUtils.isDirectory(imagePath)) {
                 if (request.getBatchProcess()) {
-                    return processBatchImages(imagePath);
+                    return processBatchImages(imagePath, request);
                 } else {
                     throw new OcrException("指定路径是目录，请设置batchProcess=true进行批量处理");
                 }
@@ -66,15 +126,26 @@ public class PythonOcrService implements OcrService {
     
     @Override
     public OcrResponse processSingleImage(String imagePath) {
+        return processSingleImage(imagePath, new OcrRequest());
+    }
+    
+    @Override
+    public OcrResponse processSingleImage(String imagePath, OcrRequest options) {
+        Trace trace = tracer.start("ocr.process-single");
+        Span root = trace.getRoot().setAttribute("image.path", imagePath);
         try {
             // 验证文件
-            validateImageFile(imagePath);
-            
-            // 执行Python脚本
-            String result = executePythonScript(imagePath);
+            Span validateSpan = root.child("validate");
+            PreflightResult preflight;
+            try {
+                validateOutputDir(options);
+                preflight = validateImageFile(imagePath);
+            } finally {
+                validateSpan.end();
+            }
             
-            // 解析结果
-            DocumentClassificationResult classificationResult = parseResult(result, imagePath);
+            // 识别并解析结果
+            DocumentClassificationResult classificationResult = recognize(imagePath, preflight, options, root);
             
             return OcrResponse.builder()
                     .success(true)
@@ -83,10 +154,13 @@ public class PythonOcrService implements OcrService {
                     .totalProcessed(1)
                     .successCount(classificationResult.getSuccess() ? 1 : 0)
                     .failureCount(classificationResult.getSuccess() ? 0 : 1)
+                    .traceId(trace.getTraceId())
+                    .timings(timingsIfRequested(root, options))
                     .build();
                     
         } catch (Exception e) {
             log.error("处理单个图片失败: {}", imagePath, e);
+            root.setError(e.getMessage());
             return OcrResponse.builder()
                     .success(false)
                     .errorMessage(e.getMessage())
@@ -94,59 +168,304 @@ public class PythonOcrService implements OcrService {
                     .totalProcessed(1)
                     .successCount(0)
                     .failureCount(1)
+                    .traceId(trace.getTraceId())
+                    .timings(timingsIfRequested(root, options))
                     .build();
+        } finally {
+            tracer.finish(trace);
         }
     }
     
     @Override
     public OcrResponse processBatchImages(String directoryPath) {
+        return processBatchImages(directoryPath, new OcrRequest());
+    }
+    
+    @Override
+    public OcrResponse processBatchImages(String directoryPath, OcrRequest options) {
+        boolean archive = FileUtils.isFile(directoryPath) && ArchiveImages.isArchive(directoryPath);
+        Trace trace = tracer.start(archive ? "ocr.process-archive" : "ocr.process-batch");
+        Span root = trace.getRoot().setAttribute(archive ? "archive.path" : "directory.path", directoryPath);
+        List<BatchItem> items = new ArrayList<>();
+        MemoryBudget.Reservation buffered = ocrDispatcher.openBuffer();
         try {
-            // 获取目录下的所有图片文件
-            List<String> imageFiles = FileUtils.getImageFiles(directoryPath, ocrConfig.getSupportedFormats());
-            
-            if (imageFiles.isEmpty()) {
-                throw new OcrException("目录中未找到支持的图片文件: " + directoryPath);
+            validateOutputDir(options);
+            if (archive) {
+                submitArchive(directoryPath, options, root, items, buffered);
+            } else {
+                submitDirectory(directoryPath, options, root, items, buffered);
             }
-            
-            List<DocumentClassificationResult> results = new ArrayList<>();
-            int successCount = 0;
-            int failureCount = 0;
-            
-            // 处理每个图片文件
-            for (String imageFile : imageFiles) {
-                try {
-                    String result = executePythonScript(imageFile);
-                    DocumentClassificationResult classificationResult = parseResult(result, imageFile);
-                    results.add(classificationResult);
-                    
-                    if (classificationResult.getSuccess()) {
-                        successCount++;
-                    } else {
-                        failureCount++;
+            return collectBatch(items, options, root, trace, buffered);
+        } catch (Exception e) {
+            log.error("批量处理图片失败: {}", directoryPath, e);
+            root.setError(e.getMessage());
+            return OcrResponse.builder()
+                    .success(false)
+                    .errorMessage(e.getMessage())
+                    .timestamp(LocalDateTime.now())
+                    .traceId(trace.getTraceId())
+                    .build();
+        } finally {
+            for (BatchItem item : items) {
+                if (item.future != null) {
+                    item.future.cancel(true);
+                }
+            }
+            ocrDispatcher.releaseBuffered(buffered);
+            tracer.finish(trace);
+        }
+    }
+
+    /**
+     * 预检目录下的图片并并行提交，实际并发数由自适应限制器控制
+     */
+    private void submitDirectory(String directoryPath, OcrRequest options, Span root, List<BatchItem> items,
+                                 MemoryBudget.Reservation buffered) {
+        // 获取目录下的所有图片文件
+        Span listSpan = root.child("list_files");
+        List<String> imageFiles;
+        try {
+            imageFiles = FileUtils.getImageFiles(directoryPath, ocrConfig.getSupportedFormats());
+        } finally {
+            listSpan.end();
+        }
+        root.setAttribute("image.count", imageFiles.size());
+        
+        if (imageFiles.isEmpty()) {
+            throw new OcrException("目录中未找到支持的图片文件: " + directoryPath);
+        }
+        
+        // 分派前预检，拒绝的文件和重复文件不进入工作进程
+        Span preflightSpan = root.child("preflight");
+        List<PreflightResult> preflights;
+        try {
+            preflights = preflightFilter.inspectAll(imageFiles);
+        } finally {
+            preflightSpan.end();
+        }
+        
+        Map<String, Integer> indexByPath = new HashMap<>();
+        for (PreflightResult preflight : preflights) {
+            Span imageSpan = root.child("image").setAttribute("image.path", preflight.getImagePath());
+            Integer duplicateOfIndex = preflight.getDuplicateOf() != null ?
+                    indexByPath.get(preflight.getDuplicateOf()) : null;
+            indexByPath.putIfAbsent(preflight.getImagePath(), items.size());
+            items.add(new BatchItem(preflight, imageSpan, null, duplicateOfIndex != null ? duplicateOfIndex : -1));
+        }
+        
+        for (BatchItem item : dispatchOrder(items)) {
+            PreflightResult preflight = item.preflight;
+            item.future = ocrDispatcher.submit(preflight.getEstimatedDecodedBytes(), item.span, buffered, () -> recordCost(
+                    preflight, options, runEngine(preflight.getImagePath(), null, options, item.span)));
+        }
+    }
+
+    /**
+     * 需要识别的图片的分派顺序：按预测耗时从大到小，预测相同时保持目录顺序
+     * <p>
+     * 调度线程空闲时按此顺序取下一张，大图最先开始，末尾只剩小图，批次总耗时接近总工作量除以并发数。
+     */
+    private List<BatchItem> dispatchOrder(List<BatchItem> items) {
+        List<BatchItem> pending = new ArrayList<>();
+        for (BatchItem item : items) {
+            if (item.preflight.isAccepted() && item.preflight.getDuplicateOf() == null) {
+                pending.add(item);
+            }
+        }
+        if (!ocrConfig.getBatchLongestFirstEnabled() || pending.size() < 2) {
+            return pending;
+        }
+        
+        List<PreflightResult> preflights = new ArrayList<>(pending.size());
+        for (BatchItem item : pending) {
+            preflights.add(item.preflight);
+        }
+        double[] costs = imageCostModel.estimate(preflights);
+        Map<BatchItem, Double> costByItem = new HashMap<>();
+        for (int i = 0; i < costs.length; i++) {
+            costByItem.put(pending.get(i), costs[i]);
+            pending.get(i).span.setAttribute("schedule.estimated_cost", costs[i]);
+        }
+        pending.sort(Comparator.comparing(costByItem::get, Comparator.reverseOrder()));
+        return pending;
+    }
+
+    /**
+     * 用批量任务的识别结果训练耗时模型
+     * <p>
+     * 只取引擎上报的自身处理耗时（elapsedMs），不含等待工作进程、写盘等时间；
+     * CLASSIFY模式可能提前返回，耗时不代表图片的识别代价，不记录。
+     */
+    private EngineResult recordCost(PreflightResult preflight, OcrRequest options, EngineResult result) {
+        if (options.getMode() != ProcessingMode.CLASSIFY && result.getError() == null && result.getElapsedMs() != null) {
+            imageCostModel.record(preflight, result.getElapsedMs());
+        }
+        return result;
+    }
+
+    /**
+     * 按条目顺序流式读取压缩包，逐个预检并提交，条目内容只在内存中
+     * <p>
+     * 已读取但尚未识别完成的条目数不超过 ocr.archive-read-ahead，避免大压缩包占满内存。
+     * 条目读取后即分派，不等待整个压缩包读完，因此不按预测耗时排序。
+     */
+    private void submitArchive(String archivePath, OcrRequest options, Span root, List<BatchItem> items,
+                               MemoryBudget.Reservation buffered) throws IOException, InterruptedException {
+        long maxEntryBytes = ocrConfig.getMaxFileSizeMb() * 1024L * 1024L;
+        int readAhead = Math.max(1, ocrConfig.getArchiveReadAhead());
+        // 压缩包中可能有同名条目，重复条目按序号指向第一个条目
+        Map<String, Integer> firstByDigest = new HashMap<>();
+        Deque<Future<EngineResult>> pending = new ArrayDeque<>();
+        
+        Span readSpan = root.child("read_archive");
+        try {
+            ArchiveImages.read(archivePath, ocrConfig.getSupportedFormats(), maxEntryBytes, entry -> {
+                String entryName = entry.getName();
+                PreflightResult preflight = preflightFilter.inspect(entryName, entry.getSize(), entry.getContent());
+                int duplicateOfIndex = -1;
+                if (preflight.isAccepted() && ocrConfig.getPreflightDedupEnabled()) {
+                    Integer first = firstByDigest.putIfAbsent(PreflightFilter.digest(entry.getContent()), items.size());
+                    if (first != null) {
+                        duplicateOfIndex = first;
+                        preflight = preflight.toBuilder().duplicateOf(items.get(first).preflight.getImagePath()).build();
                     }
-                } catch (Exception e) {
-                    log.error("处理图片失败: {}", imageFile, e);
-                    DocumentClassificationResult errorResult = DocumentClassificationResult.builder()
+                }
+                
+                Span imageSpan = root.child("image").setAttribute("image.path", entryName);
+                Future<EngineResult> future = null;
+                if (preflight.isAccepted() && preflight.getDuplicateOf() == null) {
+                    waitForReadAhead(pending, readAhead);
+                    byte[] content = entry.getContent();
+                    PreflightResult accepted = preflight;
+                    future = ocrDispatcher.submit(preflight.getEstimatedDecodedBytes(), imageSpan, buffered, () -> recordCost(
+                            accepted, options, runEngine(entryName, content, options, imageSpan)));
+                    pending.add(future);
+                }
+                items.add(new BatchItem(preflight, imageSpan, future, duplicateOfIndex));
+            });
+        } finally {
+            readSpan.end();
+        }
+        root.setAttribute("image.count", items.size());
+        
+        if (items.isEmpty()) {
+            throw new OcrException("压缩包中未找到支持的图片文件: " + archivePath);
+        }
+    }
+
+    /**
+     * 等待在途条目数低于预读上限
+     */
+    private void waitForReadAhead(Deque<Future<EngineResult>> pending, int readAhead) throws InterruptedException {
+        pending.removeIf(Future::isDone);
+        while (pending.size() >= readAhead) {
+            try {
+                pending.peek().get();
+            } catch (ExecutionException e) {
+                // 失败在收集结果时统一处理
+            }
+            pending.removeIf(Future::isDone);
+        }
+    }
+
+    /**
+     * 按提交顺序收集每个图片的结果，缓存的结果计入内存预算，由调用方在批次结束后归还
+     */
+    private OcrResponse collectBatch(List<BatchItem> items, OcrRequest options, Span root, Trace trace,
+                                     MemoryBudget.Reservation buffered) throws InterruptedException {
+        List<PreflightResult> preflights = new ArrayList<>(items.size());
+        int duplicateCount = 0;
+        for (BatchItem item : items) {
+            preflights.add(item.preflight);
+            if (item.preflight.getDuplicateOf() != null) {
+                duplicateCount++;
+            }
+        }
+        Map<String, Integer> rejectionCounts = PreflightFilter.summarizeRejections(preflights);
+        if (rejectionCounts != null || duplicateCount > 0) {
+            log.info("批量预检完成，共 {} 个文件，拒绝: {}，重复: {}", items.size(),
+                    rejectionCounts != null ? rejectionCounts : Collections.emptyMap(), duplicateCount);
+        }
+        
+        List<DocumentClassificationResult> results = new ArrayList<>();
+        int successCount = 0;
+        int failureCount = 0;
+        
+        for (BatchItem item : items) {
+            PreflightResult preflight = item.preflight;
+            String imageFile = preflight.getImagePath();
+            Span imageSpan = item.span;
+            DocumentClassificationResult classificationResult;
+            try {
+                if (!preflight.isAccepted()) {
+                    classificationResult = DocumentClassificationResult.builder()
                             .imagePath(imageFile)
                             .success(false)
-                            .error(e.getMessage())
+                            .error(preflight.getMessage())
                             .build();
-                    results.add(errorResult);
-                    failureCount++;
+                } else if (preflight.getDuplicateOf() != null) {
+                    // 重复文件总在第一个文件之后，直接复用其结果
+                    imageSpan.setAttribute("duplicate.of", preflight.getDuplicateOf());
+                    classificationResult = duplicateResult(results.get(item.duplicateOfIndex),
+                            imageFile, preflight.getDuplicateOf());
+                } else {
+                    classificationResult = buildResult(item.future.get(), imageFile, options, imageSpan);
                 }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("处理图片失败: {}", imageFile, cause);
+                classificationResult = DocumentClassificationResult.builder()
+                        .imagePath(imageFile)
+                        .success(false)
+                        .error(cause.getMessage())
+                        .build();
             }
+            finishResult(classificationResult, imageSpan, options);
+            results.add(classificationResult);
+            long resultBytes = estimateResultBytes(classificationResult);
+            ocrDispatcher.reserveBuffered(buffered, resultBytes);
             
-            return OcrResponse.builder()
-                    .success(true)
-                    .timestamp(LocalDateTime.now())
-                    .results(results)
-                    .totalProcessed(imageFiles.size())
-                    .successCount(successCount)
-                    .failureCount(failureCount)
-                    .build();
-                    
+            if (classificationResult.getSuccess()) {
+                successCount++;
+            } else {
+                failureCount++;
+            }
+        }
+        
+        Integer pageSize = options.getPageSize();
+        if (pageSize != null && results.size() > pageSize) {
+            // 结果较多时只返回第一页，其余暂存供游标读取
+            BatchResultStore.StoredBatch batch = new BatchResultStore.StoredBatch(results, successCount, failureCount);
+            String batchId = batchResultStore.save(batch);
+            OcrResponse response = buildPageResponse(batchId, BatchResultStore.slice(batchId, batch, 0, pageSize));
+            response.setTraceId(trace.getTraceId());
+            response.setTimings(timingsIfRequested(root, options));
+            response.setRejectionCounts(rejectionCounts);
+            response.setDuplicateCount(duplicateCount);
+            return response;
+        }
+        
+        return OcrResponse.builder()
+                .success(true)
+                .timestamp(LocalDateTime.now())
+                .results(results)
+                .totalProcessed(items.size())
+                .successCount(successCount)
+                .failureCount(failureCount)
+                .rejectionCounts(rejectionCounts)
+                .duplicateCount(duplicateCount)
+                .traceId(trace.getTraceId())
+                .timings(timingsIfRequested(root, options))
+                .build();
+    }
+
+    @Override
+    public OcrResponse fetchBatchPage(String cursor, int pageSize) {
+        try {
+            BatchResultStore.Page page = batchResultStore.page(cursor, pageSize);
+            return buildPageResponse(null, page);
         } catch (Exception e) {
-            log.error("批量处理图片失败: {}", directoryPath, e);
+            log.error("读取分页批量结果失败: {}", cursor, e);
             return OcrResponse.builder()
                     .success(false)
                     .errorMessage(e.getMessage())
@@ -155,6 +474,55 @@ public class PythonOcrService implements OcrService {
         }
     }
 
+    @Override
+    public OcrMetrics metrics() {
+        OcrMetrics metrics = ocrDispatcher.metrics();
+        metrics.setOutputQueuedRecords(outputWriter.getQueuedRecords());
+        metrics.setOutputDroppedRecords(outputWriter.getDroppedRecords());
+        return metrics;
+    }
+
+    @Override
+    public HealthStatus liveness() {
+        return ocrEngine.liveness();
+    }
+
+    @Override
+    public HealthStatus readiness() {
+        return ocrEngine.readiness();
+    }
+
+    /**
+     * 构建分页批量结果响应
+     */
+    private OcrResponse buildPageResponse(String batchId, BatchResultStore.Page page) {
+        BatchResultStore.StoredBatch batch = page.getBatch();
+        return OcrResponse.builder()
+                .success(true)
+                .timestamp(LocalDateTime.now())
+                .results(page.getResults())
+                .totalProcessed(batch.getResults().size())
+                .successCount(batch.getSuccessCount())
+                .failureCount(batch.getFailureCount())
+                .batchId(batchId)
+                .nextCursor(page.getNextCursor())
+                .build();
+    }
+
+    /**
+     * 解析响应视图，兼容fieldsOnly参数
+     */
+    private ResponseView resolveView(OcrRequest options) {
+        if (options.getMode() == ProcessingMode.CLASSIFY) {
+            // 快速识别只覆盖部分文字，字段和文本不完整，只返回类型
+            return ResponseView.TYPE;
+        }
+        if (options.getView() != null) {
+            return options.getView();
+        }
+        return Boolean.TRUE.equals(options.getFieldsOnly()) ? ResponseView.FIELDS : ResponseView.FULL;
+    }
+
     /**
      * 验证请求参数
      */
@@ -168,158 +536,292 @@ public class PythonOcrService implements OcrService {
     }
 
     /**
-     * 验证图片文件
+     * 需要写结果文件时在识别前检查输出目录，避免识别完成后才发现目录不合法
      */
-    private void validateImageFile(String imagePath) {
-        FileUtils.validateFileExists(imagePath);
-        FileUtils.validateFileFormat(imagePath, ocrConfig.getSupportedFormats());
-        FileUtils.validateFileSize(imagePath, ocrConfig.getMaxFileSizeMb());
+    private void validateOutputDir(OcrRequest options) {
+        if (outputWriter.resolveMode(options) != OutputMode.OFF) {
+            outputWriter.resolveOutputDir(options);
+        }
     }
 
     /**
-     * 执行Python脚本
+     * 验证图片文件，未通过预检时抛出异常
      */
-    private String executePythonScript(String imagePath) throws IOException, InterruptedException {
-        // 构建命令
-        String absoluteImagePath = FileUtils.getAbsolutePath(imagePath);
-        String absoluteScriptPath = FileUtils.getAbsolutePath(ocrConfig.getScriptPath());
-
-        ProcessBuilder processBuilder = new ProcessBuilder(
-                ocrConfig.getPythonPath(),
-                absoluteScriptPath,
-                absoluteImagePath
-        );
-
-        // 设置工作目录
-        processBuilder.directory(new File(System.getProperty("user.dir")));
-
-        // 设置环境变量以确保UTF-8编码
-        processBuilder.environment().put("PYTHONIOENCODING", "utf-8");
-
-        if (ocrConfig.getDebugMode()) {
-            log.info("执行命令: {} {} {}",
-                    ocrConfig.getPythonPath(), absoluteScriptPath, absoluteImagePath);
-        }
-
-        // 启动进程
-        Process process = processBuilder.start();
-
-        // 读取输出
-        StringBuilder output = new StringBuilder();
-        StringBuilder errorOutput = new StringBuilder();
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
-             BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream(), "UTF-8"))) {
-
-            String line;
-            boolean jsonStarted = false;
-            while ((line = reader.readLine()) != null) {
-                // 只保留JSON部分，忽略Python的print输出
-                if (line.trim().startsWith("{") || jsonStarted) {
-                    jsonStarted = true;
-                    output.append(line).append("\n");
-                } else if (line.trim().startsWith("}")) {
-                    output.append(line).append("\n");
-                    break; // JSON结束
-                }
-            }
+    private PreflightResult validateImageFile(String imagePath) {
+        PreflightResult preflight = preflightFilter.inspect(imagePath);
+        if (!preflight.isAccepted()) {
+            throw new OcrException(preflight.getMessage());
+        }
+        return preflight;
+    }
 
-            while ((line = errorReader.readLine()) != null) {
-                errorOutput.append(line).append("\n");
+    /**
+     * 调用识别引擎处理单张图片，开启对冲时慢请求会在空闲工作进程上再发一次，只保存生效的结果
+     * <p>
+     * CLASSIFY模式可能提前返回，耗时分布与完整识别不同，不参与对冲。两次尝试读取同一个文件，
+     * 工作进程只读输入文件、在内存中预处理，不会互相覆盖或删除对方的中间文件。
+     */
+    private DocumentClassificationResult recognize(String imagePath, PreflightResult preflight, OcrRequest options,
+                                                   Span parent) throws IOException, InterruptedException {
+        Span imageSpan = parent.child("image").setAttribute("image.path", imagePath);
+        try {
+            OutputMode outputMode = outputWriter.resolveMode(options);
+            boolean returnBoxes = outputMode == OutputMode.JSON_WITH_VISUALIZATION;
+            EngineResult engineResult;
+            if (options.getMode() == ProcessingMode.CLASSIFY) {
+                engineResult = ocrDispatcher.call(preflight.getEstimatedDecodedBytes(), imageSpan,
+                        () -> runPasses(imagePath, null, options, imageSpan, returnBoxes));
+            } else {
+                engineResult = ocrDispatcher.hedgedCall(preflight.getEstimatedDecodedBytes(), imageSpan,
+                        new OcrDispatcher.Hedged<EngineResult>() {
+                            @Override
+                            public OcrDispatcher.Call<EngineResult> attempt(Span span, boolean hedge) {
+                                return () -> ocrEngine.recognize(
+                                        buildTask(imagePath, null, span, false, returnBoxes, hedge));
+                            }
+
+                            @Override
+                            public boolean hasIdleCapacity() {
+                                return ocrEngine.hasIdleCapacity();
+                            }
+
+                            @Override
+                            public boolean isFailure(EngineResult result) {
+                                return result.getError() != null;
+                            }
+                        });
+            }
+            if (outputMode != OutputMode.OFF) {
+                submitOutput(engineResult, imagePath, null, options, outputMode);
             }
+            return finishResult(buildResult(engineResult, imagePath, options, imageSpan), imageSpan, options);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            imageSpan.setError(e.getMessage());
+            imageSpan.end();
+            throw e;
         }
+    }
 
-        // 等待进程完成
-        boolean finished = process.waitFor(ocrConfig.getTimeoutSeconds(), TimeUnit.SECONDS);
-
-        if (!finished) {
-            process.destroyForcibly();
-            throw new OcrException("Python脚本执行超时");
+    /**
+     * 调用识别引擎并把结果交给后台写盘，写盘不占用识别时间
+     */
+    private EngineResult runEngine(String imagePath, byte[] imageBytes, OcrRequest options, Span imageSpan)
+            throws IOException, InterruptedException {
+        OutputMode outputMode = outputWriter.resolveMode(options);
+        EngineResult engineResult = runPasses(imagePath, imageBytes, options, imageSpan,
+                outputMode == OutputMode.JSON_WITH_VISUALIZATION);
+        if (outputMode != OutputMode.OFF) {
+            submitOutput(engineResult, imagePath, imageBytes, options, outputMode);
         }
+        return engineResult;
+    }
 
-        int exitCode = process.exitValue();
-        if (exitCode != 0) {
-            String errorMsg = errorOutput.toString();
-            log.error("Python脚本执行失败，退出码: {}, 错误信息: {}", exitCode, errorMsg);
-            throw new OcrException("Python脚本执行失败: " + errorMsg);
+    /**
+     * 按处理模式调用识别引擎，在同一个并发许可内完成快速识别和可能的完整识别
+     */
+    private EngineResult runPasses(String imagePath, byte[] imageBytes, OcrRequest options, Span imageSpan,
+                                   boolean returnBoxes) throws IOException, InterruptedException {
+        if (options.getMode() != ProcessingMode.CLASSIFY) {
+            return ocrEngine.recognize(buildTask(imagePath, imageBytes, imageSpan, false, returnBoxes));
         }
 
-        String result = output.toString().trim();
-        if (ocrConfig.getDebugMode()) {
-            log.info("Python脚本输出: {}", result);
+        // 快速识别的文本区域是缩小后图片上的坐标，不用于可视化
+        Span earlySpan = imageSpan.child("pass.early");
+        EngineResult early;
+        try {
+            early = ocrEngine.recognize(buildTask(imagePath, imageBytes, earlySpan, true, false));
+        } finally {
+            earlySpan.end();
+        }
+        if (early.getError() == null && isConclusive(documentClassifier.classify(early.getRecTexts()))) {
+            early.setProcessingPath(PATH_EARLY);
+            imageSpan.setAttribute("processing.path", PATH_EARLY);
+            return early;
         }
 
-        return result;
+        // 快速识别失败或分类有歧义（如只识别到“中华人民共和国”），在原图上完整识别
+        log.debug("快速识别未能确定证件类型，执行完整识别: {}", imagePath);
+        Span fullSpan = imageSpan.child("pass.full");
+        EngineResult full;
+        try {
+            full = ocrEngine.recognize(buildTask(imagePath, imageBytes, fullSpan, false, returnBoxes));
+        } finally {
+            fullSpan.end();
+        }
+        full.setProcessingPath(PATH_FULL);
+        imageSpan.setAttribute("processing.path", PATH_FULL);
+        return full;
     }
 
     /**
-     * 解析Python脚本的输出结果
+     * 提交识别结果等待写盘；引擎未分类时（如ONNX引擎）按识别文本补全证件类型，写盘队列满被丢弃时在结果中标记
      */
-    private DocumentClassificationResult parseResult(String jsonResult, String imagePath) {
-        try {
-            // 清理输出，只保留JSON部分
-            String cleanJson = extractJsonFromOutput(jsonResult);
+    private void submitOutput(EngineResult engineResult, String imagePath, byte[] imageBytes, OcrRequest options,
+                              OutputMode outputMode) {
+        String documentType = engineResult.getDocumentType();
+        if (documentType == null && engineResult.getError() == null) {
+            documentType = documentClassifier.classify(engineResult.getRecTexts() == null ?
+                    Collections.emptyList() : engineResult.getRecTexts()).getDocumentType();
+        }
+        boolean queued = outputWriter.submit(OutputRecord.builder()
+                .imagePath(imageBytes != null ? imagePath : FileUtils.getAbsolutePath(imagePath))
+                .archiveEntry(imageBytes != null)
+                .imageBytes(outputMode == OutputMode.JSON_WITH_VISUALIZATION ? imageBytes : null)
+                .outputDir(outputWriter.resolveOutputDir(options))
+                .mode(outputMode)
+                .documentType(documentType)
+                .recTexts(engineResult.getRecTexts())
+                .boxes(engineResult.getBoxes())
+                .processingPath(engineResult.getProcessingPath())
+                .error(engineResult.getError())
+                .build());
+        engineResult.setOutputDropped(!queued);
+    }
 
-            if (ocrConfig.getDebugMode()) {
-                log.info("清理后的JSON: {}", cleanJson);
-            }
+    /**
+     * 得分达到阈值且明显领先第二名时认为分类结果明确
+     */
+    private boolean isConclusive(Classification classification) {
+        return classification.getScore() >= ocrConfig.getClassifyEarlyExitScore()
+                && classification.getMargin() >= ocrConfig.getClassifyMinMargin();
+    }
 
-            JsonNode jsonNode = objectMapper.readTree(cleanJson);
+    /**
+     * 复制重复文件的识别结果，耗时不复制
+     */
+    private DocumentClassificationResult duplicateResult(DocumentClassificationResult original, String imagePath,
+                                                         String duplicateOf) {
+        return DocumentClassificationResult.builder()
+                .imagePath(imagePath)
+                .documentType(original.getDocumentType())
+                .recTexts(original.getRecTexts())
+                .fields(original.getFields())
+                .error(original.getError())
+                .confidence(original.getConfidence())
+                .processingPath(original.getProcessingPath())
+                .duplicateOf(duplicateOf)
+                .success(original.getSuccess())
+                .build();
+    }
 
-            // 检查是否有错误
-            if (jsonNode.has("error")) {
-                return DocumentClassificationResult.builder()
-                        .imagePath(imagePath)
-                        .success(false)
-                        .error(jsonNode.get("error").asText())
-                        .build();
-            }
+    /**
+     * 结束图片区间，按需附上该图片的各阶段耗时
+     */
+    private DocumentClassificationResult finishResult(DocumentClassificationResult result, Span imageSpan,
+                                                      OcrRequest options) {
+        imageSpan.setAttribute("document.type", result.getDocumentType());
+        if (!result.getSuccess()) {
+            imageSpan.setError(result.getError());
+        }
+        imageSpan.end();
+        result.setTimings(timingsIfRequested(imageSpan, options));
+        return result;
+    }
 
-            // 解析正常结果
-            String documentType = jsonNode.has("document_type") ?
-                    jsonNode.get("document_type").asText() : "未知类型";
+    private Map<String, Double> timingsIfRequested(Span span, OcrRequest options) {
+        return Boolean.TRUE.equals(options.getIncludeTimings()) ? span.timings() : null;
+    }
 
-            List<String> recTexts = new ArrayList<>();
-            if (jsonNode.has("rec_texts") && jsonNode.get("rec_texts").isArray()) {
-                for (JsonNode textNode : jsonNode.get("rec_texts")) {
-                    recTexts.add(textNode.asText());
-                }
+    /**
+     * 估算单条结果在内存中的大小（字节），Java字符串按每字符2字节计
+     */
+    private long estimateResultBytes(DocumentClassificationResult result) {
+        long bytes = RESULT_OVERHEAD_BYTES;
+        if (result.getRecTexts() != null) {
+            for (String text : result.getRecTexts()) {
+                bytes += 2L * text.length() + 64;
             }
+        }
+        if (result.getFields() != null) {
+            bytes += result.getFields().size() * 256L;
+        }
+        return bytes;
+    }
 
-            return DocumentClassificationResult.builder()
-                    .imagePath(imagePath)
-                    .documentType(documentType)
-                    .recTexts(recTexts)
-                    .success(true)
-                    .build();
+    /**
+     * 构建识别任务，imageBytes不为空时（压缩包条目）imagePath为条目名称
+     */
+    private OcrTask buildTask(String imagePath, byte[] imageBytes, Span span, boolean quick, boolean returnBoxes) {
+        return buildTask(imagePath, imageBytes, span, quick, returnBoxes, false);
+    }
 
-        } catch (Exception e) {
-            log.error("解析Python脚本结果失败: {}", jsonResult, e);
+    /**
+     * @param idleOnly 只使用空闲的识别资源（对冲请求）
+     */
+    private OcrTask buildTask(String imagePath, byte[] imageBytes, Span span, boolean quick, boolean returnBoxes,
+                              boolean idleOnly) {
+        return OcrTask.builder()
+                .imagePath(imageBytes != null ? imagePath : FileUtils.getAbsolutePath(imagePath))
+                .imageBytes(imageBytes)
+                .maxSideLen(quick ? ocrConfig.getClassifyMaxSideLen() : null)
+                .maxRegions(quick ? ocrConfig.getClassifyMaxRegions() : null)
+                .returnBoxes(returnBoxes)
+                .idleOnly(idleOnly)
+                .span(span)
+                .build();
+    }
+
+    /**
+     * 将引擎结果转换为分类结果：补全分类、提取关键字段并按响应视图裁剪
+     */
+    private DocumentClassificationResult buildResult(EngineResult engineResult, String imagePath, OcrRequest options,
+                                                     Span imageSpan) {
+        if (engineResult.getError() != null) {
             return DocumentClassificationResult.builder()
                     .imagePath(imagePath)
                     .success(false)
-                    .error("解析结果失败: " + e.getMessage())
+                    .error(engineResult.getError())
+                    .outputDropped(engineResult.isOutputDropped() ? true : null)
                     .build();
         }
+
+        List<String> recTexts = engineResult.getRecTexts() == null ?
+                Collections.emptyList() : engineResult.getRecTexts();
+
+        // 引擎未分类时（如ONNX引擎）按识别文本分类，置信度始终由Java分类器给出
+        Span classifySpan = imageSpan.child("classify");
+        Classification classification = documentClassifier.classify(recTexts);
+        classifySpan.end();
+        String documentType = engineResult.getDocumentType() != null ?
+                engineResult.getDocumentType() : classification.getDocumentType();
+
+        // 按响应视图裁剪结果，TYPE视图不做字段提取
+        ResponseView view = resolveView(options);
+        Span extractSpan = imageSpan.child("extract");
+        List<ExtractedField> fields = view == ResponseView.TYPE ?
+                null : fieldExtractionService.extract(documentType, recTexts);
+        extractSpan.end();
+
+        return DocumentClassificationResult.builder()
+                .imagePath(imagePath)
+                .documentType(documentType)
+                .confidence(classification.getConfidence())
+                .recTexts(view == ResponseView.FULL ? recTexts : null)
+                .fields(fields)
+                .processingPath(engineResult.getProcessingPath())
+                .outputDropped(engineResult.isOutputDropped() ? true : null)
+                .success(true)
+                .build();
     }
 
     /**
-     * 从输出中提取JSON部分
+     * 批量处理中的单个图片：预检结果、链路区间、识别任务（未分派时为空）和重复时第一个相同文件的序号（不重复时为-1）
      */
-    private String extractJsonFromOutput(String output) {
-        if (output == null || output.trim().isEmpty()) {
-            return "{}";
-        }
+    private static class BatchItem {
 
-        // 查找JSON开始和结束位置
-        int jsonStart = output.indexOf("{");
-        int jsonEnd = output.lastIndexOf("}");
+        private final PreflightResult preflight;
 
-        if (jsonStart != -1 && jsonEnd != -1 && jsonEnd > jsonStart) {
-            return output.substring(jsonStart, jsonEnd + 1);
-        }
+        private final Span span;
+
+        private Future<EngineResult> future;
 
-        // 如果没有找到完整的JSON，返回原始输出
-        return output.trim();
+        private final int duplicateOfIndex;
+
+        BatchItem(PreflightResult preflight, Span span, Future<EngineResult> future, int duplicateOfIndex) {
+            this.preflight = preflight;
+            this.span = span;
+            this.future = future;
+            this.duplicateOfIndex = duplicateOfIndex;
+        }
     }
 }
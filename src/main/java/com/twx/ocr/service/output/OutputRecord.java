@@ -0,0 +1,52 @@
+package com.twx.ocr.service.output;
+
+import com.twx.ocr.dto.OutputMode;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.awt.Rectangle;
+import java.util.List;
+
+/**
+ * 等待写盘的单张图片识别结果
+ */
+@Getter
+@Builder
+@ToString
+public class OutputRecord {
+
+    /**
+     * 图片文件绝对路径；图片来自压缩包时为条目名称
+     */
+    private final String imagePath;
+
+    /**
+     * 图片是否为压缩包条目（结果文件名包含条目所在目录）
+     */
+    private final boolean archiveEntry;
+
+    /**
+     * 压缩包条目内容，仅在需要绘制可视化图片时保留
+     */
+    @ToString.Exclude
+    private final byte[] imageBytes;
+
+    private final String outputDir;
+
+    private final OutputMode mode;
+
+    private final String documentType;
+
+    private final List<String> recTexts;
+
+    /**
+     * 文本区域，绘制可视化图片时使用
+     */
+    @ToString.Exclude
+    private final List<Rectangle> boxes;
+
+    private final String processingPath;
+
+    private final String error;
+}
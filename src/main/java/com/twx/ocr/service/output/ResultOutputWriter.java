@@ -0,0 +1,305 @@
+package com.twx.ocr.service.output;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.OcrRequest;
+import com.twx.ocr.dto.OutputMode;
+import com.twx.ocr.exception.OcrException;
+import com.twx.ocr.service.concurrency.MemoryBudget;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 识别结果异步落盘
+ * <p>
+ * 识别线程只把结果放入有界队列，由后台线程批量写入输出目录：JSON模式每张图片写一个结果文件，
+ * JSON_WITH_VISUALIZATION模式另外在原图上标出文本区域，保存为PNG。
+ * 队列中压缩包条目的原图内容另按 ocr.output-queue-max-mb 限制总大小，写完后归还。
+ * 队列满或原图内容超出上限时最多等待 ocr.output-enqueue-timeout-ms，仍无空位才丢弃并计数，由调用方在结果中标记；
+ * 关闭时把队列中剩余的结果写完。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResultOutputWriter {
+
+    private static final int MAX_BATCH_RECORDS = 64;
+
+    private static final long MB = 1024L * 1024;
+
+    /**
+     * 关闭时等待剩余结果写完的最长时间
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final OcrConfig ocrConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final AtomicLong droppedRecords = new AtomicLong();
+
+    private volatile BlockingQueue<OutputRecord> queue;
+
+    /**
+     * 队列中原图内容的占用
+     */
+    private volatile MemoryBudget queuedImageBytes;
+
+    private volatile Thread worker;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, ocrConfig.getOutputQueueCapacity()));
+        queuedImageBytes = new MemoryBudget(ocrConfig.getOutputQueueMaxMb() * MB);
+        running = true;
+        worker = new Thread(this::drainLoop, "ocr-output-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 确定请求的落盘方式：显式指定的outputMode优先，saveToFile=false时不写，否则使用 ocr.output-mode
+     */
+    public OutputMode resolveMode(OcrRequest options) {
+        if (options.getOutputMode() != null) {
+            return options.getOutputMode();
+        }
+        if (Boolean.FALSE.equals(options.getSaveToFile())) {
+            return OutputMode.OFF;
+        }
+        return ocrConfig.getOutputMode() != null ? ocrConfig.getOutputMode() : OutputMode.OFF;
+    }
+
+    /**
+     * 请求的输出目录，未指定时使用 ocr.default-output-dir
+     * <p>
+     * 请求只能指定 ocr.default-output-dir 下的相对路径，绝对路径和规范化后位于其外的路径（如包含 ..）被拒绝。
+     */
+    public String resolveOutputDir(OcrRequest options) {
+        if (!StringUtils.hasText(options.getOutputDir())) {
+            return ocrConfig.getDefaultOutputDir();
+        }
+        try {
+            Path requested = Paths.get(options.getOutputDir());
+            if (requested.isAbsolute() || requested.getRoot() != null) {
+                throw new OcrException("输出目录必须是相对于 ocr.default-output-dir 的路径: " + options.getOutputDir());
+            }
+            Path base = Paths.get(ocrConfig.getDefaultOutputDir()).toAbsolutePath().normalize();
+            Path resolved = base.resolve(requested).normalize();
+            if (!resolved.startsWith(base)) {
+                throw new OcrException("输出目录不能位于 ocr.default-output-dir 之外: " + options.getOutputDir());
+            }
+            return resolved.toString();
+        } catch (InvalidPathException e) {
+            throw new OcrException("输出目录无效: " + options.getOutputDir());
+        }
+    }
+
+    /**
+     * 提交结果等待写盘，队列满或原图内容超出上限时等待有限时间
+     *
+     * @return 结果是否会被写盘；不需要写盘时也返回true，只有被丢弃时返回false
+     */
+    public boolean submit(OutputRecord record) {
+        if (!running || record.getMode() == OutputMode.OFF) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ocrConfig.getOutputEnqueueTimeoutMs());
+        long imageBytes = imageBytes(record);
+        boolean reserved = false;
+        try {
+            if (imageBytes > 0) {
+                queuedImageBytes.acquire(imageBytes, ocrConfig.getOutputEnqueueTimeoutMs());
+                reserved = true;
+            }
+            if (queue.offer(record, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (OcrException e) {
+            log.debug("等待写盘队列的原图内存超时: {}", e.getMessage());
+        }
+        if (reserved) {
+            queuedImageBytes.release(imageBytes);
+        }
+        log.warn("结果写盘队列已满，丢弃结果: {}，累计丢弃{}条", record.getImagePath(), droppedRecords.incrementAndGet());
+        return false;
+    }
+
+    /**
+     * 因队列满被丢弃的结果数
+     */
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * 队列中原图内容的总大小（字节）
+     */
+    public long getQueuedImageBytes() {
+        MemoryBudget current = queuedImageBytes;
+        return current != null ? current.getUsedBytes() : 0;
+    }
+
+    /**
+     * 等待写盘的结果数
+     */
+    public int getQueuedRecords() {
+        BlockingQueue<OutputRecord> current = queue;
+        return current != null ? current.size() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void drainLoop() {
+        List<OutputRecord> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                OutputRecord first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // 关闭时把队列中剩余的结果写完
+                running = false;
+            }
+            queue.drainTo(batch, MAX_BATCH_RECORDS - batch.size());
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<OutputRecord> batch) {
+        // 同一批结果通常写到同一个目录，每个目录只检查一次
+        Set<String> createdDirs = new HashSet<>();
+        for (OutputRecord record : batch) {
+            try {
+                Path outputDir = Paths.get(record.getOutputDir());
+                if (createdDirs.add(record.getOutputDir())) {
+                    Files.createDirectories(outputDir);
+                }
+                String baseName = baseName(record);
+                writeJson(outputDir.resolve(baseName + "_classification_result.json"), record);
+                if (record.getMode() == OutputMode.JSON_WITH_VISUALIZATION && record.getError() == null) {
+                    writeVisualization(outputDir.resolve(baseName + "_ocr_res_img.png"), record);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("保存识别结果失败: {}: {}", record.getImagePath(), e.getMessage());
+            } finally {
+                queuedImageBytes.release(imageBytes(record));
+            }
+        }
+    }
+
+    private static long imageBytes(OutputRecord record) {
+        return record.getImageBytes() != null ? record.getImageBytes().length : 0;
+    }
+
+    /**
+     * 结果文件格式与原Python脚本保存的一致
+     */
+    private void writeJson(Path path, OutputRecord record) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (record.getError() != null) {
+            result.put("error", record.getError());
+        } else {
+            result.put("document_type", record.getDocumentType());
+            result.put("rec_texts", record.getRecTexts());
+            if (record.getProcessingPath() != null) {
+                result.put("processing_path", record.getProcessingPath());
+            }
+        }
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("timestamp", LocalDateTime.now().format(TIMESTAMP_FORMAT));
+        content.put("input_image", record.getImagePath());
+        content.put("result", result);
+        objectMapper.writeValue(path.toFile(), content);
+    }
+
+    private void writeVisualization(Path path, OutputRecord record) throws IOException {
+        BufferedImage source = record.getImageBytes() != null ?
+                ImageIO.read(new ByteArrayInputStream(record.getImageBytes())) :
+                ImageIO.read(Paths.get(record.getImagePath()).toFile());
+        if (source == null) {
+            log.debug("图片格式不支持绘制可视化图片: {}", record.getImagePath());
+            return;
+        }
+
+        BufferedImage canvas = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = canvas.createGraphics();
+        try {
+            graphics.drawImage(source, 0, 0, null);
+            if (record.getBoxes() != null) {
+                graphics.setColor(Color.RED);
+                graphics.setStroke(new BasicStroke(Math.max(2f, Math.min(canvas.getWidth(), canvas.getHeight()) / 400f)));
+                for (Rectangle box : record.getBoxes()) {
+                    graphics.drawRect(box.x, box.y, box.width, box.height);
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        ImageIO.write(canvas, "png", path.toFile());
+    }
+
+    /**
+     * 结果文件名前缀：文件取不含扩展名的文件名，压缩包条目把目录分隔符替换为下划线，避免不同目录的同名条目互相覆盖
+     */
+    private static String baseName(OutputRecord record) {
+        if (record.isArchiveEntry()) {
+            return FilenameUtils.removeExtension(record.getImagePath()).replaceAll("[/\\\\:]", "_");
+        }
+        return FilenameUtils.getBaseName(record.getImagePath());
+    }
+}
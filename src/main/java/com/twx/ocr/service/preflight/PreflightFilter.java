@@ -0,0 +1,288 @@
+package com.twx.ocr.service.preflight;
+
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.util.ImageHeaders;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.stereotype.Component;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 识别前的文件预检
+ * <p>
+ * 每个文件只做一次NIO属性读取、一次文件头魔数识别和一次文件头尺寸读取，不解码像素，
+ * 在分派到工作进程之前拒绝不存在、空、过大、格式不符、文件头损坏或尺寸异常的文件。
+ * 扩展名与实际内容不一致但格式受支持的文件按实际格式放行（识别按内容解码）。
+ * 批量预检时还会找出内容完全相同的文件，只识别其中第一个。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PreflightFilter {
+
+    private static final long MB = 1024L * 1024;
+
+    /**
+     * 文件头可直接解析或ImageIO必定支持的格式，读不到尺寸即视为文件头损坏
+     */
+    private static final List<String> HEADER_REQUIRED_FORMATS = Arrays.asList("jpg", "png", "bmp", "gif");
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final OcrConfig ocrConfig;
+
+    /**
+     * 预检单个文件
+     */
+    public PreflightResult inspect(String imagePath) {
+        Path path = Paths.get(imagePath);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return reject(imagePath, RejectReason.NOT_FOUND, null, 0);
+        } catch (IOException e) {
+            return reject(imagePath, RejectReason.UNREADABLE, e.getMessage(), 0);
+        }
+
+        long size = attributes.size();
+        if (!attributes.isRegularFile()) {
+            return reject(imagePath, RejectReason.NOT_REGULAR_FILE, null, size);
+        }
+        PreflightResult sizeRejection = checkSize(imagePath, size);
+        if (sizeRejection != null) {
+            return sizeRejection;
+        }
+
+        byte[] header = new byte[ImageHeaders.SNIFF_LENGTH];
+        int length;
+        try (InputStream input = Files.newInputStream(path)) {
+            length = readFully(input, header);
+        } catch (IOException e) {
+            return reject(imagePath, RejectReason.UNREADABLE, e.getMessage(), size);
+        }
+        return checkHeader(imagePath, size, header, length, path.toFile());
+    }
+
+    /**
+     * 预检内存中的图片内容（如压缩包条目），content为空表示条目超过大小限制未读取
+     */
+    public PreflightResult inspect(String imageName, long size, byte[] content) {
+        PreflightResult sizeRejection = checkSize(imageName, size);
+        if (sizeRejection != null) {
+            return sizeRejection;
+        }
+        if (content == null) {
+            return reject(imageName, RejectReason.UNREADABLE, null, size);
+        }
+        return checkHeader(imageName, size, content, Math.min(content.length, ImageHeaders.SNIFF_LENGTH), content);
+    }
+
+    private PreflightResult checkSize(String imagePath, long size) {
+        if (size == 0) {
+            return reject(imagePath, RejectReason.EMPTY_FILE, null, size);
+        }
+        long maxSizeBytes = ocrConfig.getMaxFileSizeMb() * MB;
+        if (size > maxSizeBytes) {
+            return reject(imagePath, RejectReason.FILE_TOO_LARGE,
+                    size / MB + "MB，最大允许" + ocrConfig.getMaxFileSizeMb() + "MB", size);
+        }
+        return null;
+    }
+
+    /**
+     * 按文件头识别格式并检查尺寸
+     *
+     * @param source 文件头无法直接解析尺寸时交给ImageIO读取的来源（File或byte[]）
+     */
+    private PreflightResult checkHeader(String imagePath, long size, byte[] header, int length, Object source) {
+        String format = ImageHeaders.sniffFormat(header, length);
+        if (format == null || !isSupported(format)) {
+            return reject(imagePath, RejectReason.UNSUPPORTED_FORMAT, format, size);
+        }
+
+        Dimension dimension = ImageHeaders.readDimensions(header, length, format);
+        if (dimension == null) {
+            dimension = source instanceof File ?
+                    ImageHeaders.readDimensions((File) source) : ImageHeaders.readDimensions((byte[]) source);
+        }
+        if (dimension == null && HEADER_REQUIRED_FORMATS.contains(format)) {
+            return reject(imagePath, RejectReason.CORRUPT_HEADER, format, size);
+        }
+        if (dimension != null && !ImageHeaders.isValid(dimension, format)) {
+            return reject(imagePath, RejectReason.CORRUPT_HEADER,
+                    format + " " + dimension.width + "x" + dimension.height, size);
+        }
+        if (dimension != null) {
+            int minSide = ocrConfig.getPreflightMinSidePx();
+            if (dimension.width < minSide || dimension.height < minSide) {
+                return reject(imagePath, RejectReason.IMAGE_TOO_SMALL,
+                        dimension.width + "x" + dimension.height, size);
+            }
+            long maxPixels = ocrConfig.getPreflightMaxMegapixels() * 1_000_000L;
+            if (maxPixels > 0 && (long) dimension.width * dimension.height > maxPixels) {
+                return reject(imagePath, RejectReason.IMAGE_TOO_LARGE,
+                        dimension.width + "x" + dimension.height, size);
+            }
+        }
+
+        return PreflightResult.builder()
+                .imagePath(imagePath)
+                .detectedFormat(format)
+                .misnamed(!format.equals(normalizeFormat(FilenameUtils.getExtension(imagePath))))
+                .sizeBytes(size)
+                .dimension(dimension)
+                .estimatedDecodedBytes(ImageHeaders.estimateDecodedBytes(dimension, size))
+                .build();
+    }
+
+    /**
+     * 预检批量文件，结果与输入顺序一致；开启去重时为内容完全相同的文件标记duplicateOf
+     * <p>
+     * 只有大小相同的文件才计算内容摘要，绝大多数文件不需要额外读取。
+     */
+    public List<PreflightResult> inspectAll(List<String> imagePaths) {
+        List<PreflightResult> results = new ArrayList<>(imagePaths.size());
+        for (String imagePath : imagePaths) {
+            results.add(inspect(imagePath));
+        }
+        if (!ocrConfig.getPreflightDedupEnabled()) {
+            return results;
+        }
+
+        // 按大小分组，组内按摘要找出第一个出现的文件
+        Map<Long, List<Integer>> bySize = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            PreflightResult result = results.get(i);
+            if (result.isAccepted()) {
+                bySize.computeIfAbsent(result.getSizeBytes(), size -> new ArrayList<>()).add(i);
+            }
+        }
+        for (List<Integer> sameSize : bySize.values()) {
+            if (sameSize.size() < 2) {
+                continue;
+            }
+            Map<String, String> firstByDigest = new HashMap<>();
+            for (int index : sameSize) {
+                PreflightResult result = results.get(index);
+                String digest = digest(result.getImagePath());
+                if (digest == null) {
+                    continue;
+                }
+                String first = firstByDigest.putIfAbsent(digest, result.getImagePath());
+                if (first != null) {
+                    results.set(index, result.toBuilder().duplicateOf(first).build());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 按拒绝原因汇总数量，没有拒绝时返回null
+     */
+    public static Map<String, Integer> summarizeRejections(List<PreflightResult> results) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (PreflightResult result : results) {
+            if (!result.isAccepted()) {
+                counts.merge(result.getRejectReason().name(), 1, Integer::sum);
+            }
+        }
+        return counts.isEmpty() ? null : counts;
+    }
+
+    private boolean isSupported(String format) {
+        return Arrays.stream(ocrConfig.getSupportedFormats())
+                .anyMatch(supported -> normalizeFormat(supported).equals(format));
+    }
+
+    /**
+     * 统一同一格式的不同扩展名
+     */
+    private static String normalizeFormat(String extension) {
+        String format = extension.toLowerCase(Locale.ROOT);
+        if ("jpeg".equals(format)) {
+            return "jpg";
+        }
+        if ("tif".equals(format)) {
+            return "tiff";
+        }
+        return format;
+    }
+
+    private String digest(String imagePath) {
+        try (InputStream input = Files.newInputStream(new File(imagePath).toPath())) {
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return toHex(digest.digest());
+        } catch (IOException e) {
+            log.warn("计算文件摘要失败，不参与去重: {}", imagePath, e);
+            return null;
+        }
+    }
+
+    /**
+     * 计算内存中图片内容的摘要，用于流式读取时去重
+     */
+    public static String digest(byte[] content) {
+        return toHex(newDigest().digest(content));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 所有JRE都必须提供SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int total = 0;
+        int read;
+        while (total < buffer.length && (read = input.read(buffer, total, buffer.length - total)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+
+    private static PreflightResult reject(String imagePath, RejectReason reason, String detail, long size) {
+        return PreflightResult.builder()
+                .imagePath(imagePath)
+                .rejectReason(reason)
+                .detail(detail)
+                .sizeBytes(size)
+                .build();
+    }
+}
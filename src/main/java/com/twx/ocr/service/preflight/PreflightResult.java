@@ -0,0 +1,76 @@
+package com.twx.ocr.service.preflight;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.awt.Dimension;
+
+/**
+ * 单个文件的预检结果
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class PreflightResult {
+
+    /**
+     * 图片文件路径
+     */
+    private final String imagePath;
+
+    /**
+     * 拒绝原因，通过预检时为空
+     */
+    private final RejectReason rejectReason;
+
+    /**
+     * 拒绝详情（如实际大小、尺寸）
+     */
+    private final String detail;
+
+    /**
+     * 按文件头识别的实际格式
+     */
+    private final String detectedFormat;
+
+    /**
+     * 扩展名与实际格式不一致（如PNG图片保存为.jpg）
+     */
+    private final boolean misnamed;
+
+    /**
+     * 文件大小（字节）
+     */
+    private final long sizeBytes;
+
+    /**
+     * 从文件头读取的宽高，格式不支持读取时为空
+     */
+    private final Dimension dimension;
+
+    /**
+     * 解码后的内存占用估算（字节），用于申请内存预算
+     */
+    private final long estimatedDecodedBytes;
+
+    /**
+     * 批次中内容完全相同的第一个文件，不重复时为空
+     */
+    private final String duplicateOf;
+
+    public boolean isAccepted() {
+        return rejectReason == null;
+    }
+
+    /**
+     * 拒绝时的错误信息
+     */
+    public String getMessage() {
+        if (rejectReason == null) {
+            return null;
+        }
+        return "预检未通过，" + rejectReason.getDescription() + (detail != null ? "（" + detail + "）" : "")
+                + ": " + imagePath;
+    }
+}
@@ -0,0 +1,35 @@
+package com.twx.ocr.service.preflight;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 预检拒绝原因
+ */
+@Getter
+@RequiredArgsConstructor
+public enum RejectReason {
+
+    NOT_FOUND("文件不存在"),
+
+    NOT_REGULAR_FILE("不是普通文件"),
+
+    EMPTY_FILE("空文件"),
+
+    FILE_TOO_LARGE("文件大小超过限制"),
+
+    UNSUPPORTED_FORMAT("文件内容不是支持的图片格式"),
+
+    CORRUPT_HEADER("图片头损坏，无法读取尺寸"),
+
+    IMAGE_TOO_SMALL("图片尺寸过小"),
+
+    IMAGE_TOO_LARGE("图片像素数超过限制"),
+
+    UNREADABLE("文件无法读取");
+
+    /**
+     * 原因说明
+     */
+    private final String description;
+}
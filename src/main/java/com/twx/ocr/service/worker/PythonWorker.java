@@ -0,0 +1,430 @@
+package com.twx.ocr.service.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.exception.OcrException;
+import com.twx.ocr.util.FileUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 常驻Python OCR工作进程
+ * <p>
+ * 进程以 --worker 模式启动，只加载一次PaddleOCR模型，之后通过标准输入/输出按行交换JSON；
+ * 或由 {@link PythonZygote} fork出来，通过本机连接使用同样的协议。
+ * 每个工作进程同一时刻只处理一个请求，由 {@link PythonWorkerPool} 负责调度。
+ */
+@Slf4j
+public class PythonWorker {
+
+    private static final AtomicInteger WORKER_SEQUENCE = new AtomicInteger();
+
+    private static final int STDERR_TAIL_LINES = 20;
+
+    @Getter
+    private final int workerId;
+
+    /**
+     * 直接启动的进程；由模板进程fork时为null
+     */
+    private final Process process;
+
+    /**
+     * 与fork出的进程通信的连接；直接启动时为null
+     */
+    private final Socket socket;
+
+    private final PythonZygote zygote;
+
+    private final BufferedWriter writer;
+
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<JsonNode> responses = new LinkedBlockingQueue<>();
+
+    private final Deque<String> stderrTail = new ArrayDeque<>();
+
+    private final AtomicLong requestSequence = new AtomicLong();
+
+    private final CountDownLatch outputClosed = new CountDownLatch(1);
+
+    @Getter
+    private final AtomicLong processedCount = new AtomicLong();
+
+    @Getter
+    private volatile long pid = -1;
+
+    @Getter
+    private volatile boolean warm;
+
+    @Getter
+    private volatile long lastLatencyMs = -1;
+
+    private volatile boolean alive = true;
+
+    /**
+     * 已发出但尚未收到响应的请求编号（等待被中断时保留，用于等待进程处理完）
+     */
+    private volatile String pendingRequestId;
+
+    /**
+     * 已安排回收（正在启动替换进程）
+     */
+    @Getter
+    private volatile boolean recycleScheduled;
+
+    /**
+     * 替换进程已就绪，本进程处理完当前请求后退出
+     */
+    @Getter
+    private volatile boolean retiring;
+
+    private PythonWorker(int workerId, Process process, Socket socket, PythonZygote zygote, ObjectMapper objectMapper)
+            throws IOException {
+        this.workerId = workerId;
+        this.process = process;
+        this.socket = socket;
+        this.zygote = zygote;
+        this.objectMapper = objectMapper;
+        OutputStream input = process != null ? process.getOutputStream() : socket.getOutputStream();
+        this.writer = new BufferedWriter(new OutputStreamWriter(input, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 启动工作进程（不等待模型加载完成）
+     */
+    public static PythonWorker start(OcrConfig ocrConfig, ObjectMapper objectMapper) throws IOException {
+        String absoluteScriptPath = FileUtils.getAbsolutePath(ocrConfig.getScriptPath());
+
+        ProcessBuilder processBuilder = new ProcessBuilder(
+                ocrConfig.getPythonPath(),
+                absoluteScriptPath,
+                "--worker"
+        );
+        processBuilder.directory(new File(System.getProperty("user.dir")));
+        processBuilder.environment().putAll(ocrConfig.getWorkerEnvironment());
+        processBuilder.environment().put("PYTHONIOENCODING", "utf-8");
+
+        int workerId = WORKER_SEQUENCE.incrementAndGet();
+        if (ocrConfig.getDebugMode()) {
+            log.info("启动OCR工作进程#{}: {} {} --worker", workerId, ocrConfig.getPythonPath(), absoluteScriptPath);
+        }
+
+        Process process = processBuilder.start();
+        PythonWorker worker = new PythonWorker(workerId, process, null, null, objectMapper);
+        worker.startReaders(process.getInputStream(), process.getErrorStream());
+        return worker;
+    }
+
+    /**
+     * 由模板进程fork工作进程（不等待就绪），模型已在模板进程中加载，通常数毫秒即可就绪
+     */
+    public static PythonWorker fork(PythonZygote zygote, ObjectMapper objectMapper) throws IOException {
+        Socket socket = zygote.fork();
+        try {
+            PythonWorker worker = new PythonWorker(WORKER_SEQUENCE.incrementAndGet(), null, socket, zygote,
+                    objectMapper);
+            // 错误输出与模板进程共用，由模板进程读取
+            worker.startReaders(socket.getInputStream(), null);
+            return worker;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void startReaders(InputStream output, InputStream errors) {
+        Thread stdoutReader = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(output, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String trimmed = line.trim();
+                    if (!trimmed.startsWith("{")) {
+                        continue;
+                    }
+                    try {
+                        responses.offer(objectMapper.readTree(trimmed));
+                    } catch (IOException e) {
+                        log.warn("工作进程#{}输出无法解析: {}", workerId, trimmed);
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("读取工作进程#{}输出结束: {}", workerId, e.getMessage());
+            } finally {
+                alive = false;
+                outputClosed.countDown();
+                // 唤醒正在等待响应的调用方
+                responses.offer(MissingNode.getInstance());
+            }
+        }, "ocr-worker-" + workerId + "-stdout");
+        stdoutReader.setDaemon(true);
+        stdoutReader.start();
+
+        if (errors == null) {
+            return;
+        }
+
+        Thread stderrReader = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(errors, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.debug("[ocr-worker-{}] {}", workerId, line);
+                    synchronized (stderrTail) {
+                        if (stderrTail.size() >= STDERR_TAIL_LINES) {
+                            stderrTail.pollFirst();
+                        }
+                        stderrTail.addLast(line);
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("读取工作进程#{}错误输出结束: {}", workerId, e.getMessage());
+            }
+        }, "ocr-worker-" + workerId + "-stderr");
+        stderrReader.setDaemon(true);
+        stderrReader.start();
+    }
+
+    /**
+     * 等待工作进程完成模型加载
+     */
+    public void awaitReady(long timeoutMs) throws InterruptedException {
+        JsonNode message = responses.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (message == null) {
+            destroy();
+            throw new OcrException("OCR工作进程#" + workerId + "启动超时");
+        }
+        if (message.isMissingNode()) {
+            throw new OcrException("OCR工作进程#" + workerId + "启动失败: " + stderrTail());
+        }
+        if (!"ready".equals(message.path("event").asText())) {
+            destroy();
+            throw new OcrException("OCR工作进程#" + workerId + "启动失败: " + message.path("error").asText());
+        }
+        pid = message.path("pid").asLong(-1);
+    }
+
+    /**
+     * 发送一个请求并同步等待结果
+     */
+    public JsonNode execute(ObjectNode request, long timeoutMs) throws IOException, InterruptedException {
+        if (!alive) {
+            throw new OcrException("OCR工作进程#" + workerId + "已退出");
+        }
+
+        String requestId = workerId + "-" + requestSequence.incrementAndGet();
+        request.put("id", requestId);
+        pendingRequestId = requestId;
+
+        long startNanos = System.nanoTime();
+        synchronized (writer) {
+            writer.write(objectMapper.writeValueAsString(request));
+            writer.newLine();
+            writer.flush();
+        }
+
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            JsonNode response = remaining > 0 ? responses.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (response == null) {
+                // 超时后进程状态不可知，直接销毁，由进程池补充
+                destroy();
+                throw new OcrException("Python脚本执行超时");
+            }
+            if (response.isMissingNode()) {
+                throw new OcrException("OCR工作进程#" + workerId + "异常退出: " + stderrTail());
+            }
+            if (requestId.equals(response.path("id").asText())) {
+                pendingRequestId = null;
+                lastLatencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                processedCount.incrementAndGet();
+                return response;
+            }
+            log.warn("工作进程#{}丢弃过期响应: {}", workerId, response.path("id").asText());
+        }
+    }
+
+    /**
+     * 等待被放弃的请求处理完并丢弃其响应，使进程可以继续接收请求
+     *
+     * @return 进程是否可继续使用；超时或进程退出时返回false
+     */
+    public boolean awaitAbandoned(long timeoutMs) throws InterruptedException {
+        String requestId = pendingRequestId;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (requestId != null && alive) {
+            long remaining = deadline - System.nanoTime();
+            JsonNode response = remaining > 0 ? responses.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (response == null || response.isMissingNode()) {
+                return false;
+            }
+            if (requestId.equals(response.path("id").asText())) {
+                pendingRequestId = null;
+                processedCount.incrementAndGet();
+                return true;
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * 标记工作进程已完成预热
+     */
+    void markWarm() {
+        this.warm = true;
+    }
+
+    void markRecycleScheduled(boolean scheduled) {
+        this.recycleScheduled = scheduled;
+    }
+
+    void markRetiring() {
+        this.retiring = true;
+    }
+
+    /**
+     * 读取工作进程常驻内存（字节），pid来自就绪消息；非Linux或读取失败时返回-1
+     * <p>
+     * fork出的进程与模板进程共享模型内存，VmRSS会重复计入共享页，优先按比例分摊的PSS计算。
+     */
+    public long readRssBytes() {
+        if (pid <= 0) {
+            return -1;
+        }
+        if (isForked()) {
+            long pss = readProcKilobytes("smaps_rollup", "Pss:");
+            if (pss >= 0) {
+                return pss * 1024;
+            }
+        }
+        long rss = readProcKilobytes("status", "VmRSS:");
+        return rss < 0 ? -1 : rss * 1024;
+    }
+
+    private long readProcKilobytes(String file, String key) {
+        Path path = Paths.get("/proc", String.valueOf(pid), file);
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                // 格式: "VmRSS:    123456 kB"
+                if (line.startsWith(key)) {
+                    String[] parts = line.substring(key.length()).trim().split("\\s+");
+                    return Long.parseLong(parts[0]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("读取工作进程#{}内存失败: {}", workerId, e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * 是否由模板进程fork而来
+     */
+    public boolean isForked() {
+        return process == null;
+    }
+
+    public boolean isAlive() {
+        return alive && (process == null || process.isAlive());
+    }
+
+    /**
+     * 通知工作进程退出，超时后强制结束
+     */
+    public void shutdown() {
+        if (isAlive()) {
+            try {
+                synchronized (writer) {
+                    writer.write("{\"cmd\":\"shutdown\"}");
+                    writer.newLine();
+                    writer.flush();
+                }
+                if (!waitForExit(5, TimeUnit.SECONDS)) {
+                    forceExit();
+                }
+            } catch (IOException e) {
+                forceExit();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                forceExit();
+            }
+        }
+        alive = false;
+        closeSocket();
+    }
+
+    /**
+     * 强制结束工作进程
+     */
+    public void destroy() {
+        alive = false;
+        forceExit();
+    }
+
+    private boolean waitForExit(long timeout, TimeUnit unit) throws InterruptedException {
+        return process != null ? process.waitFor(timeout, unit) : outputClosed.await(timeout, unit);
+    }
+
+    private void forceExit() {
+        if (process != null) {
+            process.destroyForcibly();
+            return;
+        }
+        // fork出的进程不是JVM的子进程，由模板进程结束；关闭连接后空闲的进程也会自行退出
+        zygote.kill(pid);
+        closeSocket();
+    }
+
+    private void closeSocket() {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("关闭工作进程#{}连接失败: {}", workerId, e.getMessage());
+        }
+    }
+
+    private String stderrTail() {
+        if (process == null) {
+            return zygote.stderrTail();
+        }
+        try {
+            // 给错误输出读取线程一点时间读完进程退出前的信息
+            process.waitFor(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (stderrTail) {
+            return String.join("\n", stderrTail);
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package com.twx.ocr.service.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.HealthStatus;
+import com.twx.ocr.exception.OcrException;
+import com.twx.ocr.tracing.Span;
+import com.twx.ocr.util.WarmupImages;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Python OCR工作进程池
+ * <p>
+ * 启动时按配置数量拉起工作进程，并用内置的合成图片对每个进程做一次预热识别，
+ * 只有预热完成的进程才会进入空闲队列对外提供服务。就绪探针以预热完成的进程数为准。
+ * <p>
+ * 进程处理的图片数或常驻内存超过阈值后会被回收：先启动并预热替换进程，旧进程在处理完当前请求后再退出，
+ * 回收过程中不丢弃请求，也不减少可用进程数。
+ * <p>
+ * 开启模板进程（zygote）后，模型只在模板进程中加载一次，工作进程由其fork而来，数毫秒即可就绪；
+ * 预热时只拉起就绪所需的进程，其余进程在请求到来、现有进程都忙时再按需fork。
+ * 模板进程启动失败时退回为直接启动工作进程。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ocr", name = "engine", havingValue = "python", matchIfMissing = true)
+public class PythonWorkerPool {
+
+    private final OcrConfig ocrConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BlockingQueue<PythonWorker> idleWorkers = new LinkedBlockingQueue<>();
+
+    private final Set<PythonWorker> workers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已存在或正在启动的工作进程数，用于限制进程总数不超过配置
+     */
+    private final AtomicInteger reservedSlots = new AtomicInteger();
+
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+
+    private final AtomicInteger recycledWorkers = new AtomicInteger();
+
+    private final ExecutorService lifecycleExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ocr-worker-lifecycle");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 等待被取消的请求处理完的线程，每个被取消的请求占用一个，数量不超过工作进程数
+     */
+    private final ExecutorService cancelledExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ocr-worker-cancelled");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean warmupCompleted;
+
+    private volatile boolean shuttingDown;
+
+    private volatile long lastInferenceLatencyMs = -1;
+
+    private volatile String lastError;
+
+    private volatile long lastWorkerStartMs = -1;
+
+    /**
+     * 模板进程，未开启或尚未启动时为null
+     */
+    private volatile PythonZygote zygote;
+
+    /**
+     * 模板进程启动失败，之后直接启动工作进程
+     */
+    private volatile boolean zygoteUnavailable;
+
+    /**
+     * 容器刷新完成后在后台预热工作进程，不阻塞启动流程；命令行批处理运行前即开始预热
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void warmUp() {
+        if (!ocrConfig.getWarmupEnabled()) {
+            log.info("已关闭OCR工作进程预热，工作进程将在首次请求时启动");
+            warmupCompleted = true;
+            return;
+        }
+
+        lifecycleExecutor.submit(() -> {
+            int count = prestartCount();
+            log.info("开始预热OCR工作进程，数量: {}", count);
+            for (int i = 0; i < count && !shuttingDown; i++) {
+                if (!reserveSlot()) {
+                    break;
+                }
+                try {
+                    idleWorkers.offer(startWarmWorker());
+                } catch (Exception e) {
+                    reservedSlots.decrementAndGet();
+                    recordError("预热OCR工作进程失败", e);
+                }
+            }
+            warmupCompleted = true;
+            log.info("OCR工作进程预热结束，已预热: {}/{}", countWarmWorkers(), ocrConfig.getWorkerCount());
+        });
+    }
+
+    /**
+     * 预热时启动的进程数；使用模板进程时新进程可以很快fork出来，只预热就绪所需的数量
+     */
+    private int prestartCount() {
+        if (!ocrConfig.getWorkerZygoteEnabled()) {
+            return ocrConfig.getWorkerCount();
+        }
+        return Math.min(ocrConfig.getWorkerCount(), Math.max(1, ocrConfig.getMinReadyWorkers()));
+    }
+
+    /**
+     * 获取一个空闲工作进程，必要时按需启动新进程
+     */
+    public PythonWorker acquire(long timeoutMs) throws InterruptedException {
+        PythonWorker worker = idleWorkers.poll();
+        if (worker == null && reserveSlot()) {
+            try {
+                worker = startWarmWorker();
+            } catch (Exception e) {
+                reservedSlots.decrementAndGet();
+                recordError("启动OCR工作进程失败", e);
+                throw e instanceof OcrException ? (OcrException) e : new OcrException("启动OCR工作进程失败", e);
+            }
+        }
+        if (worker == null) {
+            worker = idleWorkers.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        if (worker == null) {
+            throw new OcrException("等待OCR工作进程超时");
+        }
+        busyWorkers.incrementAndGet();
+        return worker;
+    }
+
+    /**
+     * 只取当前空闲的工作进程，不等待也不启动新进程，没有时抛出异常
+     */
+    private PythonWorker acquireIdle() {
+        PythonWorker worker = idleWorkers.poll();
+        if (worker == null) {
+            throw new OcrException("没有空闲的OCR工作进程");
+        }
+        busyWorkers.incrementAndGet();
+        return worker;
+    }
+
+    /**
+     * 是否有空闲的工作进程，不阻塞
+     */
+    public boolean hasIdleWorker() {
+        return !idleWorkers.isEmpty();
+    }
+
+    /**
+     * 归还工作进程；已退出的进程会被移除并在后台补充，达到回收阈值的进程会被替换
+     */
+    public void release(PythonWorker worker) {
+        busyWorkers.decrementAndGet();
+        if (worker.isAlive() && !shuttingDown) {
+            lastInferenceLatencyMs = worker.getLastLatencyMs();
+            if (worker.isRetiring()) {
+                // 替换进程已就绪，当前请求处理完后退出
+                recycle(worker);
+                return;
+            }
+            if (!worker.isRecycleScheduled()) {
+                String reason = recycleReason(worker);
+                if (reason != null) {
+                    scheduleRecycle(worker, reason);
+                }
+            }
+            idleWorkers.offer(worker);
+            return;
+        }
+
+        retire(worker);
+        if (!shuttingDown) {
+            scheduleReplacement();
+        }
+    }
+
+    /**
+     * 在工作进程上执行一次识别
+     */
+    public JsonNode execute(ObjectNode request) throws IOException, InterruptedException {
+        return execute(request, null);
+    }
+
+    /**
+     * 在工作进程上执行一次识别，并在给定区间下记录等待进程、进程往返以及Python侧上报的各阶段耗时
+     */
+    public JsonNode execute(ObjectNode request, Span span) throws IOException, InterruptedException {
+        return execute(request, span, true);
+    }
+
+    /**
+     * 在工作进程上执行一次识别
+     *
+     * @param waitForWorker 为false时只使用当前空闲的进程，没有时立即失败（对冲请求不排队）
+     */
+    public JsonNode execute(ObjectNode request, Span span, boolean waitForWorker)
+            throws IOException, InterruptedException {
+        long timeoutMs = TimeUnit.SECONDS.toMillis(ocrConfig.getTimeoutSeconds());
+        Span acquireSpan = Span.childOf(span, "worker.acquire");
+        PythonWorker worker;
+        try {
+            worker = waitForWorker ? acquire(timeoutMs) : acquireIdle();
+        } finally {
+            acquireSpan.end();
+        }
+
+        Span roundTrip = Span.childOf(span, "worker.roundtrip")
+                .setAttribute("worker.id", worker.getWorkerId())
+                .setAttribute("worker.pid", worker.getPid());
+        boolean abandoned = false;
+        try {
+            JsonNode response = worker.execute(request, timeoutMs);
+            recordWorkerStages(roundTrip, response);
+            return response;
+        } catch (InterruptedException e) {
+            // 请求被取消（如对冲中落败的一方），进程仍在处理这张图片，处理完后再归还
+            roundTrip.setError("已取消");
+            abandoned = true;
+            releaseWhenIdle(worker, timeoutMs);
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            roundTrip.setError(e.getMessage());
+            throw e;
+        } finally {
+            roundTrip.end();
+            if (!abandoned) {
+                release(worker);
+            }
+        }
+    }
+
+    /**
+     * 后台等待被取消的请求处理完再归还进程，避免把仍在识别的进程放回空闲队列；等待超时则销毁进程
+     */
+    private void releaseWhenIdle(PythonWorker worker, long timeoutMs) {
+        cancelledExecutor.submit(() -> {
+            try {
+                if (!worker.awaitAbandoned(timeoutMs)) {
+                    worker.destroy();
+                }
+            } catch (InterruptedException e) {
+                worker.destroy();
+                Thread.currentThread().interrupt();
+            }
+            release(worker);
+        });
+    }
+
+    /**
+     * Python侧按顺序上报各阶段耗时（timings），从往返开始处依次排列为子区间
+     */
+    private void recordWorkerStages(Span roundTrip, JsonNode response) {
+        JsonNode timings = response.path("timings");
+        if (!roundTrip.isRecording() || !timings.isObject()) {
+            return;
+        }
+        long cursor = roundTrip.getStartNanos();
+        Iterator<Map.Entry<String, JsonNode>> stages = timings.fields();
+        while (stages.hasNext()) {
+            Map.Entry<String, JsonNode> stage = stages.next();
+            long durationNanos = (long) (stage.getValue().asDouble() * TimeUnit.MILLISECONDS.toNanos(1));
+            roundTrip.addCompletedChild("python." + stage.getKey(), cursor, durationNanos);
+            cursor += durationNanos;
+        }
+    }
+
+    /**
+     * 存活探针：进程本身可响应即为UP，同时返回工作进程统计
+     */
+    public HealthStatus liveness() {
+        return snapshot("UP");
+    }
+
+    /**
+     * 就绪探针：预热完成的工作进程数达到阈值才为UP
+     */
+    public HealthStatus readiness() {
+        return snapshot(isReady() ? "UP" : "DOWN");
+    }
+
+    public boolean isReady() {
+        return countWarmWorkers() >= Math.max(1, ocrConfig.getMinReadyWorkers());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        lifecycleExecutor.shutdownNow();
+        cancelledExecutor.shutdownNow();
+        for (PythonWorker worker : workers) {
+            worker.shutdown();
+        }
+        workers.clear();
+        idleWorkers.clear();
+        if (zygote != null) {
+            zygote.shutdown();
+        }
+    }
+
+    private HealthStatus snapshot(String status) {
+        int live = 0;
+        long maxRssBytes = -1;
+        for (PythonWorker worker : workers) {
+            if (worker.isAlive()) {
+                live++;
+                maxRssBytes = Math.max(maxRssBytes, worker.readRssBytes());
+            }
+        }
+        return HealthStatus.builder()
+                .status(status)
+                .ready(isReady())
+                .warmupCompleted(warmupCompleted)
+                .configuredWorkers(ocrConfig.getWorkerCount())
+                .liveWorkers(live)
+                .warmWorkers(countWarmWorkers())
+                .busyWorkers(busyWorkers.get())
+                .recycledWorkers(recycledWorkers.get())
+                .maxWorkerRssMb(maxRssBytes < 0 ? -1 : maxRssBytes / (1024 * 1024))
+                .lastInferenceLatencyMs(lastInferenceLatencyMs)
+                .lastWorkerStartMs(lastWorkerStartMs)
+                .zygotePid(zygote != null && zygote.isAlive() ? zygote.getPid() : -1L)
+                .lastError(lastError)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private int countWarmWorkers() {
+        int warm = 0;
+        for (PythonWorker worker : workers) {
+            if (worker.isWarm() && worker.isAlive()) {
+                warm++;
+            }
+        }
+        return warm;
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = reservedSlots.get();
+            if (current >= ocrConfig.getWorkerCount()) {
+                return false;
+            }
+            if (reservedSlots.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 启动工作进程并用合成图片完成一次预热识别
+     */
+    private PythonWorker startWarmWorker() throws IOException, InterruptedException {
+        PythonZygote template = ocrConfig.getWorkerZygoteEnabled() ? zygote() : null;
+        long startTime = System.currentTimeMillis();
+        PythonWorker worker = template != null ?
+                PythonWorker.fork(template, objectMapper) : PythonWorker.start(ocrConfig, objectMapper);
+        try {
+            worker.awaitReady(TimeUnit.SECONDS.toMillis(ocrConfig.getWorkerStartTimeoutSeconds()));
+            lastWorkerStartMs = System.currentTimeMillis() - startTime;
+
+            ObjectNode request = objectMapper.createObjectNode();
+            request.put("image_path", WarmupImages.get().getAbsolutePath());
+            worker.execute(request, TimeUnit.SECONDS.toMillis(ocrConfig.getTimeoutSeconds()));
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            worker.destroy();
+            throw e;
+        }
+
+        worker.markWarm();
+        workers.add(worker);
+        lastInferenceLatencyMs = worker.getLastLatencyMs();
+        log.info("OCR工作进程#{}已就绪，pid: {}，启动耗时: {}ms，预热识别耗时: {}ms",
+                worker.getWorkerId(), worker.getPid(),
+                System.currentTimeMillis() - startTime, worker.getLastLatencyMs());
+        return worker;
+    }
+
+    /**
+     * 返回可用的模板进程，必要时启动（或在退出后重新启动）；启动失败时返回null，之后直接启动工作进程
+     */
+    private synchronized PythonZygote zygote() throws InterruptedException {
+        if (zygoteUnavailable || shuttingDown) {
+            return null;
+        }
+        if (zygote != null && zygote.isAlive()) {
+            return zygote;
+        }
+        if (zygote != null) {
+            log.warn("OCR模板进程已退出，重新启动");
+        }
+        long startTime = System.currentTimeMillis();
+        PythonZygote started = null;
+        try {
+            started = PythonZygote.start(ocrConfig, objectMapper);
+            started.awaitReady(TimeUnit.SECONDS.toMillis(ocrConfig.getWorkerStartTimeoutSeconds()));
+        } catch (IOException | RuntimeException e) {
+            if (started != null) {
+                started.destroy();
+            }
+            zygoteUnavailable = true;
+            recordError("启动OCR模板进程失败，改为直接启动工作进程", e);
+            return null;
+        } catch (InterruptedException e) {
+            started.destroy();
+            throw e;
+        }
+        zygote = started;
+        log.info("OCR模板进程已就绪，pid: {}，加载耗时: {}ms", started.getPid(), System.currentTimeMillis() - startTime);
+        return started;
+    }
+
+    private void retire(PythonWorker worker) {
+        if (workers.remove(worker)) {
+            reservedSlots.decrementAndGet();
+        }
+        worker.destroy();
+        log.warn("OCR工作进程#{}已退出，已从进程池移除", worker.getWorkerId());
+    }
+
+    /**
+     * 判断工作进程是否需要回收，返回原因，无需回收时返回null
+     */
+    private String recycleReason(PythonWorker worker) {
+        long processed = worker.getProcessedCount().get();
+        if (ocrConfig.getWorkerMaxImages() > 0 && processed >= ocrConfig.getWorkerMaxImages()) {
+            return "已处理" + processed + "张图片";
+        }
+        if (ocrConfig.getWorkerMaxRssMb() > 0) {
+            long rssMb = worker.readRssBytes() / (1024 * 1024);
+            if (rssMb > ocrConfig.getWorkerMaxRssMb()) {
+                return "常驻内存已达" + rssMb + "MB";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 后台启动替换进程，就绪后再让旧进程退出
+     */
+    private void scheduleRecycle(PythonWorker worker, String reason) {
+        worker.markRecycleScheduled(true);
+        log.info("OCR工作进程#{}{}，开始启动替换进程", worker.getWorkerId(), reason);
+        lifecycleExecutor.submit(() -> {
+            if (shuttingDown) {
+                return;
+            }
+            // 替换期间进程数暂时比配置多一个
+            reservedSlots.incrementAndGet();
+            PythonWorker replacement;
+            try {
+                replacement = startWarmWorker();
+            } catch (Exception e) {
+                reservedSlots.decrementAndGet();
+                worker.markRecycleScheduled(false);
+                recordError("启动替换OCR工作进程失败", e);
+                return;
+            }
+
+            worker.markRetiring();
+            idleWorkers.offer(replacement);
+            // 旧进程空闲时立即回收，正在处理请求时由release在请求结束后回收
+            if (idleWorkers.remove(worker)) {
+                recycle(worker);
+            }
+        });
+    }
+
+    private void recycle(PythonWorker worker) {
+        if (workers.remove(worker)) {
+            reservedSlots.decrementAndGet();
+        }
+        recycledWorkers.incrementAndGet();
+        log.info("OCR工作进程#{}已回收，共处理{}张图片", worker.getWorkerId(), worker.getProcessedCount().get());
+        // 优雅退出最多等待数秒，放到独立线程执行，避免阻塞请求线程和进程补充
+        Thread thread = new Thread(worker::shutdown, "ocr-worker-" + worker.getWorkerId() + "-recycle");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void scheduleReplacement() {
+        lifecycleExecutor.submit(() -> {
+            if (shuttingDown || !reserveSlot()) {
+                return;
+            }
+            try {
+                idleWorkers.offer(startWarmWorker());
+            } catch (Exception e) {
+                reservedSlots.decrementAndGet();
+                recordError("补充OCR工作进程失败", e);
+            }
+        });
+    }
+
+    private void recordError(String message, Exception e) {
+        lastError = message + ": " + e.getMessage();
+        log.error(message, e);
+    }
+}
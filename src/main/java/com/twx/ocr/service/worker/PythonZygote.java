@@ -0,0 +1,244 @@
+package com.twx.ocr.service.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.exception.OcrException;
+import com.twx.ocr.util.FileUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Python OCR模板进程（zygote）
+ * <p>
+ * 进程以 --zygote 模式启动，只导入依赖并加载一次模型，之后在本机回环地址上监听。
+ * 每建立一个连接，模板进程就fork出一个已加载模型的工作进程，子进程以写时复制方式共享模型内存，
+ * 并在该连接上使用与 --worker 相同的JSON行协议。连接需先发送启动时生成的令牌，防止本机其他进程借用。
+ * 工作进程的错误输出与模板进程共用同一个管道。
+ */
+@Slf4j
+public class PythonZygote {
+
+    private static final int STDERR_TAIL_LINES = 20;
+
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    private final Process process;
+
+    private final BufferedWriter writer;
+
+    private final ObjectMapper objectMapper;
+
+    private final String token;
+
+    private final BlockingQueue<JsonNode> events = new LinkedBlockingQueue<>();
+
+    private final Deque<String> stderrTail = new ArrayDeque<>();
+
+    @Getter
+    private volatile long pid = -1;
+
+    private volatile int port = -1;
+
+    private PythonZygote(Process process, ObjectMapper objectMapper, String token) {
+        this.process = process;
+        this.objectMapper = objectMapper;
+        this.token = token;
+        this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 启动模板进程（不等待模型加载完成）
+     */
+    public static PythonZygote start(OcrConfig ocrConfig, ObjectMapper objectMapper) throws IOException {
+        String absoluteScriptPath = FileUtils.getAbsolutePath(ocrConfig.getScriptPath());
+        String token = UUID.randomUUID().toString();
+
+        ProcessBuilder processBuilder = new ProcessBuilder(
+                ocrConfig.getPythonPath(),
+                absoluteScriptPath,
+                "--zygote"
+        );
+        processBuilder.directory(new File(System.getProperty("user.dir")));
+        processBuilder.environment().putAll(ocrConfig.getWorkerEnvironment());
+        processBuilder.environment().put("PYTHONIOENCODING", "utf-8");
+        processBuilder.environment().put("OCR_ZYGOTE_TOKEN", token);
+
+        if (ocrConfig.getDebugMode()) {
+            log.info("启动OCR模板进程: {} {} --zygote", ocrConfig.getPythonPath(), absoluteScriptPath);
+        }
+
+        PythonZygote zygote = new PythonZygote(processBuilder.start(), objectMapper, token);
+        zygote.startReaders();
+        return zygote;
+    }
+
+    private void startReaders() {
+        Thread stdoutReader = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String trimmed = line.trim();
+                    if (!trimmed.startsWith("{")) {
+                        continue;
+                    }
+                    try {
+                        events.offer(objectMapper.readTree(trimmed));
+                    } catch (IOException e) {
+                        log.warn("模板进程输出无法解析: {}", trimmed);
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("读取模板进程输出结束: {}", e.getMessage());
+            } finally {
+                events.offer(MissingNode.getInstance());
+            }
+        }, "ocr-zygote-stdout");
+        stdoutReader.setDaemon(true);
+        stdoutReader.start();
+
+        Thread stderrReader = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.debug("[ocr-zygote] {}", line);
+                    synchronized (stderrTail) {
+                        if (stderrTail.size() >= STDERR_TAIL_LINES) {
+                            stderrTail.pollFirst();
+                        }
+                        stderrTail.addLast(line);
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("读取模板进程错误输出结束: {}", e.getMessage());
+            }
+        }, "ocr-zygote-stderr");
+        stderrReader.setDaemon(true);
+        stderrReader.start();
+    }
+
+    /**
+     * 等待模板进程完成模型加载并开始监听
+     */
+    public void awaitReady(long timeoutMs) throws InterruptedException {
+        JsonNode message = events.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (message == null) {
+            destroy();
+            throw new OcrException("OCR模板进程启动超时");
+        }
+        if (message.isMissingNode()) {
+            // 给错误输出读取线程一点时间读完进程退出前的信息
+            process.waitFor(1, TimeUnit.SECONDS);
+            throw new OcrException("OCR模板进程启动失败: " + stderrTail());
+        }
+        if (!"ready".equals(message.path("event").asText()) || message.path("port").asInt(-1) <= 0) {
+            destroy();
+            throw new OcrException("OCR模板进程启动失败: " + message.path("error").asText());
+        }
+        pid = message.path("pid").asLong(-1);
+        port = message.path("port").asInt();
+    }
+
+    /**
+     * 请求模板进程fork一个工作进程，返回与该进程通信的连接
+     */
+    public Socket fork() throws IOException {
+        if (port <= 0 || !isAlive()) {
+            throw new OcrException("OCR模板进程未就绪");
+        }
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MS);
+            ObjectNode hello = objectMapper.createObjectNode();
+            hello.put("cmd", "fork");
+            hello.put("token", token);
+            socket.getOutputStream().write((objectMapper.writeValueAsString(hello) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 强制结束模板进程fork出的工作进程（Java 8无法按pid结束非子进程）
+     */
+    public void kill(long workerPid) {
+        if (workerPid <= 0 || !isAlive()) {
+            return;
+        }
+        try {
+            send("{\"cmd\":\"kill\",\"pid\":" + workerPid + "}");
+        } catch (IOException e) {
+            log.debug("通知模板进程结束工作进程{}失败: {}", workerPid, e.getMessage());
+        }
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * 通知模板进程退出，超时后强制结束；已fork的工作进程在连接关闭后自行退出
+     */
+    public void shutdown() {
+        if (process.isAlive()) {
+            try {
+                send("{\"cmd\":\"shutdown\"}");
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (IOException e) {
+                process.destroyForcibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    public void destroy() {
+        process.destroyForcibly();
+    }
+
+    /**
+     * 最近的错误输出，包括fork出的工作进程
+     */
+    String stderrTail() {
+        synchronized (stderrTail) {
+            return String.join("\n", stderrTail);
+        }
+    }
+
+    private void send(String command) throws IOException {
+        synchronized (writer) {
+            writer.write(command);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.twx.ocr.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.twx.ocr.config.OcrConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 以OTLP/JSON格式导出链路区间
+ * <p>
+ * ocr.trace-export 为 file 时每批写一行 ExportTraceServiceRequest 到本地文件，为 otlp 时POST到
+ * OTLP/HTTP采集端（如 http://localhost:4318/v1/traces），为 none 时不导出。
+ * 导出在后台线程批量进行，队列满时丢弃并计数，不影响请求处理。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OtlpSpanExporter {
+
+    private static final String SERVICE_NAME = "OCR";
+
+    private static final String SCOPE_NAME = "com.twx.ocr";
+
+    private static final int QUEUE_CAPACITY = 10000;
+
+    private static final int MAX_BATCH_TRACES = 100;
+
+    /**
+     * OTLP状态码：ERROR
+     */
+    private static final int STATUS_CODE_ERROR = 2;
+
+    /**
+     * OTLP区间类型：SERVER（根区间）、INTERNAL（其余区间）
+     */
+    private static final int SPAN_KIND_INTERNAL = 1;
+
+    private static final int SPAN_KIND_SERVER = 2;
+
+    private final OcrConfig ocrConfig;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BlockingQueue<Trace> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final AtomicLong droppedTraces = new AtomicLong();
+
+    private volatile Thread worker;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drainLoop, "ocr-trace-exporter");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("链路导出已开启，方式: {}", ocrConfig.getTraceExport());
+    }
+
+    /**
+     * 提交链路等待导出
+     */
+    public void export(Trace trace) {
+        if (!running) {
+            return;
+        }
+        if (!queue.offer(trace) && droppedTraces.incrementAndGet() % 1000 == 1) {
+            log.warn("链路导出队列已满，已丢弃{}条链路", droppedTraces.get());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean isEnabled() {
+        String mode = ocrConfig.getTraceExport();
+        return "file".equalsIgnoreCase(mode) || "otlp".equalsIgnoreCase(mode);
+    }
+
+    private void drainLoop() {
+        List<Trace> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Trace first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // 关闭时把队列中剩余的链路写完
+                running = false;
+            }
+            queue.drainTo(batch, MAX_BATCH_TRACES - batch.size());
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Trace> batch) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(toOtlpJson(batch));
+            if ("otlp".equalsIgnoreCase(ocrConfig.getTraceExport())) {
+                post(payload);
+            } else {
+                append(payload);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("导出链路失败: {}", e.getMessage());
+        }
+    }
+
+    private void append(byte[] payload) throws IOException {
+        Path file = Paths.get(ocrConfig.getTraceExportFile());
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        byte[] line = new byte[payload.length + 1];
+        System.arraycopy(payload, 0, line, 0, payload.length);
+        line[payload.length] = '\n';
+        Files.write(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void post(byte[] payload) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(ocrConfig.getTraceOtlpEndpoint()).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setConnectTimeout(2000);
+            connection.setReadTimeout(5000);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(payload);
+            }
+            int status = connection.getResponseCode();
+            if (status >= 300) {
+                log.warn("OTLP采集端返回状态码: {}", status);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * 按OTLP/JSON编码（ExportTraceServiceRequest）转换链路
+     */
+    ObjectNode toOtlpJson(Collection<Trace> traces) {
+        ObjectNode request = objectMapper.createObjectNode();
+        ObjectNode resourceSpans = request.putArray("resourceSpans").addObject();
+        ArrayNode resourceAttributes = resourceSpans.putObject("resource").putArray("attributes");
+        addAttribute(resourceAttributes, "service.name", SERVICE_NAME);
+
+        ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+        scopeSpans.putObject("scope").put("name", SCOPE_NAME);
+        ArrayNode spans = scopeSpans.putArray("spans");
+
+        for (Trace trace : traces) {
+            for (Span span : trace.getSpans()) {
+                ObjectNode node = spans.addObject();
+                node.put("traceId", trace.getTraceId());
+                node.put("spanId", span.getSpanId());
+                if (span.getParentSpanId() != null) {
+                    node.put("parentSpanId", span.getParentSpanId());
+                }
+                node.put("name", span.getName());
+                node.put("kind", span == trace.getRoot() ? SPAN_KIND_SERVER : SPAN_KIND_INTERNAL);
+                // uint64在OTLP/JSON中按字符串编码
+                node.put("startTimeUnixNano", String.valueOf(trace.toEpochNanos(span.getStartNanos())));
+                node.put("endTimeUnixNano", String.valueOf(trace.toEpochNanos(span.getEndNanos())));
+                ArrayNode attributes = node.putArray("attributes");
+                for (Map.Entry<String, String> attribute : span.getAttributes().entrySet()) {
+                    addAttribute(attributes, attribute.getKey(), attribute.getValue());
+                }
+                if (span.getError() != null) {
+                    node.putObject("status").put("code", STATUS_CODE_ERROR).put("message", span.getError());
+                }
+            }
+        }
+        return request;
+    }
+
+    private void addAttribute(ArrayNode attributes, String key, String value) {
+        ObjectNode attribute = attributes.addObject();
+        attribute.put("key", key);
+        attribute.putObject("value").put("stringValue", value);
+    }
+}
@@ -0,0 +1,134 @@
+package com.twx.ocr.tracing;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个处理阶段的计时区间，结束时登记到所属的 {@link Trace}
+ * <p>
+ * 没有所属链路时（如预热、命令行调用）使用不记录任何内容的空区间，调用方无需判空。
+ */
+public class Span {
+
+    private static final Span NOOP = new Span(null, "noop", "", null, 0);
+
+    private final Trace trace;
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final String spanId;
+
+    @Getter
+    private final String parentSpanId;
+
+    @Getter
+    private final long startNanos;
+
+    private volatile long endNanos = -1;
+
+    private final Map<String, String> attributes = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Getter
+    private volatile String error;
+
+    Span(Trace trace, String name, String spanId, String parentSpanId, long startNanos) {
+        this.trace = trace;
+        this.name = name;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * 在父区间下开始一个子区间，父区间为空时返回空区间
+     */
+    public static Span childOf(Span parent, String name) {
+        if (parent == null || parent.trace == null) {
+            return NOOP;
+        }
+        return new Span(parent.trace, name, Trace.newSpanId(), parent.spanId, System.nanoTime());
+    }
+
+    public Span child(String name) {
+        return childOf(this, name);
+    }
+
+    /**
+     * 登记一个已在别处计时的子区间（如Python工作进程上报的阶段耗时）
+     */
+    public void addCompletedChild(String name, long startNanos, long durationNanos) {
+        if (trace == null) {
+            return;
+        }
+        Span child = new Span(trace, name, Trace.newSpanId(), spanId, startNanos);
+        child.endNanos = startNanos + durationNanos;
+        trace.finished(child);
+    }
+
+    public Span setAttribute(String key, Object value) {
+        if (trace != null && value != null) {
+            attributes.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    public void setError(String error) {
+        if (trace != null) {
+            this.error = error;
+        }
+    }
+
+    /**
+     * 结束区间，重复调用无效
+     */
+    public void end() {
+        if (trace == null || endNanos >= 0) {
+            return;
+        }
+        endNanos = System.nanoTime();
+        trace.finished(this);
+    }
+
+    public boolean isRecording() {
+        return trace != null;
+    }
+
+    public Trace getTrace() {
+        return trace;
+    }
+
+    /**
+     * 耗时（纳秒），未结束时按当前时间计算
+     */
+    public long durationNanos() {
+        long end = endNanos >= 0 ? endNanos : System.nanoTime();
+        return end - startNanos;
+    }
+
+    long getEndNanos() {
+        return endNanos;
+    }
+
+    Map<String, String> getAttributes() {
+        synchronized (attributes) {
+            return new LinkedHashMap<>(attributes);
+        }
+    }
+
+    /**
+     * 本区间下各阶段耗时（毫秒），空区间返回null
+     */
+    public Map<String, Double> timings() {
+        return trace == null ? null : trace.timings(this);
+    }
+
+    static double toMillis(long nanos) {
+        return Math.round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) * 10) / 10.0;
+    }
+}
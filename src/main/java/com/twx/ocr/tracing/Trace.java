@@ -0,0 +1,112 @@
+package com.twx.ocr.tracing;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次请求的调用链路，收集所有已结束的区间
+ * <p>
+ * 编号格式与W3C Trace Context一致（32位/16位十六进制），可直接导出为OpenTelemetry区间。
+ */
+public class Trace {
+
+    @Getter
+    private final String traceId;
+
+    @Getter
+    private final Span root;
+
+    /**
+     * 创建链路时的墙钟时间（纳秒），与nanoTime基准一起把单调时钟换算为Unix时间
+     */
+    private final long epochBaseNanos;
+
+    private final long nanoBase;
+
+    private final List<Span> spans = new ArrayList<>();
+
+    public Trace(String traceId, String remoteParentSpanId, String rootName) {
+        this.nanoBase = System.nanoTime();
+        this.epochBaseNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        this.traceId = traceId != null ? traceId : newTraceId();
+        this.root = new Span(this, rootName, newSpanId(), remoteParentSpanId, nanoBase);
+    }
+
+    public static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("%016x%016x", random.nextLong(), random.nextLong());
+    }
+
+    public static String newSpanId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    void finished(Span span) {
+        synchronized (spans) {
+            spans.add(span);
+        }
+    }
+
+    /**
+     * 已结束的区间
+     */
+    public List<Span> getSpans() {
+        synchronized (spans) {
+            return new ArrayList<>(spans);
+        }
+    }
+
+    long toEpochNanos(long nanoTime) {
+        return epochBaseNanos + (nanoTime - nanoBase);
+    }
+
+    /**
+     * 汇总某个区间之下所有已结束子孙区间的耗时（毫秒），按开始时间排序，同名阶段累加，最后附加total
+     */
+    Map<String, Double> timings(Span scope) {
+        List<Span> finished = getSpans();
+        Map<String, String> parents = new HashMap<>();
+        for (Span span : finished) {
+            parents.put(span.getSpanId(), span.getParentSpanId());
+        }
+
+        List<Span> descendants = new ArrayList<>();
+        for (Span span : finished) {
+            if (span != scope && isDescendant(span, scope.getSpanId(), parents)) {
+                descendants.add(span);
+            }
+        }
+        descendants.sort(Comparator.comparingLong(Span::getStartNanos));
+
+        Map<String, Long> nanos = new LinkedHashMap<>();
+        for (Span span : descendants) {
+            nanos.merge(span.getName(), span.durationNanos(), Long::sum);
+        }
+        Map<String, Double> timings = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : nanos.entrySet()) {
+            timings.put(entry.getKey(), Span.toMillis(entry.getValue()));
+        }
+        timings.put("total", Span.toMillis(scope.durationNanos()));
+        return timings;
+    }
+
+    private boolean isDescendant(Span span, String ancestorId, Map<String, String> parents) {
+        String parent = span.getParentSpanId();
+        // 链路深度有限，这里的上限只防止异常数据造成死循环
+        for (int depth = 0; parent != null && depth < 32; depth++) {
+            if (parent.equals(ancestorId)) {
+                return true;
+            }
+            parent = parents.get(parent);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+package com.twx.ocr.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 链路创建与结束
+ * <p>
+ * 在HTTP请求线程中创建链路时沿用请求头 traceparent 中的链路编号，并通过响应头 X-Trace-Id 返回；
+ * 链路编号同时写入日志MDC（traceId）。
+ */
+@Component
+@RequiredArgsConstructor
+public class Tracer {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    public static final String MDC_KEY = "traceId";
+
+    private static final Pattern TRACEPARENT = Pattern.compile("^[0-9a-f]{2}-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}$");
+
+    private final OtlpSpanExporter exporter;
+
+    /**
+     * 开始一条链路
+     *
+     * @param name 根区间名称
+     */
+    public Trace start(String name) {
+        String traceId = null;
+        String parentSpanId = null;
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes != null) {
+            String traceparent = attributes.getRequest().getHeader("traceparent");
+            Matcher matcher = traceparent == null ? null : TRACEPARENT.matcher(traceparent.trim());
+            if (matcher != null && matcher.matches()) {
+                traceId = matcher.group(1);
+                parentSpanId = matcher.group(2);
+            }
+        }
+
+        Trace trace = new Trace(traceId, parentSpanId, name);
+        MDC.put(MDC_KEY, trace.getTraceId());
+        if (attributes != null) {
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null) {
+                response.setHeader(TRACE_ID_HEADER, trace.getTraceId());
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * 结束链路并提交导出
+     */
+    public void finish(Trace trace) {
+        trace.getRoot().end();
+        MDC.remove(MDC_KEY);
+        exporter.export(trace);
+    }
+
+    private ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? (ServletRequestAttributes) attributes : null;
+    }
+}
@@ -0,0 +1,156 @@
+package com.twx.ocr.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Locale;
+
+/**
+ * 压缩包图片读取工具类
+ * <p>
+ * 按条目顺序流式读取ZIP、TAR、TAR.GZ中的图片，条目内容只在内存中，不解压到磁盘。
+ */
+public final class ArchiveImages {
+
+    /**
+     * macOS打包时附带的资源分支目录，其中的._*文件不是图片
+     */
+    private static final String MACOS_METADATA_DIR = "__MACOSX/";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ArchiveImages() {
+    }
+
+    /**
+     * 压缩包中的图片条目
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+
+        /**
+         * 条目在压缩包中的名称（含目录）
+         */
+        private final String name;
+
+        /**
+         * 条目大小（字节）；超过限制时为读取到的下限
+         */
+        private final long size;
+
+        /**
+         * 条目内容，超过大小限制时为空
+         */
+        private final byte[] content;
+    }
+
+    /**
+     * 逐个处理图片条目，处理器可以阻塞以限制预读数量
+     */
+    public interface EntryHandler {
+        void accept(Entry entry) throws IOException, InterruptedException;
+    }
+
+    /**
+     * 是否为支持的压缩包（.zip、.tar、.tar.gz、.tgz）
+     */
+    public static boolean isArchive(String path) {
+        String name = path.toLowerCase(Locale.ROOT);
+        return name.endsWith(".zip") || name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz");
+    }
+
+    /**
+     * 按条目顺序读取压缩包中扩展名受支持的图片
+     *
+     * @param maxEntryBytes 单个条目的大小上限，超过时不读取内容
+     */
+    public static void read(String archivePath, String[] supportedFormats, long maxEntryBytes, EntryHandler handler)
+            throws IOException, InterruptedException {
+        File archive = new File(archivePath);
+        if (archive.getName().toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            readZip(archive, supportedFormats, maxEntryBytes, handler);
+        } else {
+            readTar(archive, supportedFormats, maxEntryBytes, handler);
+        }
+    }
+
+    private static void readZip(File archive, String[] supportedFormats, long maxEntryBytes, EntryHandler handler)
+            throws IOException, InterruptedException {
+        // ZipFile按中央目录读取条目，不要求条目头中带有大小
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                if (!isImageEntry(entry, supportedFormats)) {
+                    continue;
+                }
+                try (InputStream input = zipFile.getInputStream(entry)) {
+                    handler.accept(readEntry(entry.getName(), entry.getSize(), input, maxEntryBytes));
+                }
+            }
+        }
+    }
+
+    private static void readTar(File archive, String[] supportedFormats, long maxEntryBytes, EntryHandler handler)
+            throws IOException, InterruptedException {
+        InputStream fileInput = new BufferedInputStream(Files.newInputStream(archive.toPath()), BUFFER_SIZE);
+        String name = archive.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz") || name.endsWith(".tgz")) {
+            fileInput = new GzipCompressorInputStream(fileInput, true);
+        }
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(fileInput)) {
+            ArchiveEntry entry;
+            while ((entry = tar.getNextEntry()) != null) {
+                if (!isImageEntry(entry, supportedFormats)) {
+                    continue;
+                }
+                handler.accept(readEntry(entry.getName(), entry.getSize(), tar, maxEntryBytes));
+            }
+        }
+    }
+
+    private static boolean isImageEntry(ArchiveEntry entry, String[] supportedFormats) {
+        if (entry.isDirectory() || entry.getName().startsWith(MACOS_METADATA_DIR)) {
+            return false;
+        }
+        String extension = FilenameUtils.getExtension(entry.getName());
+        return Arrays.stream(supportedFormats).anyMatch(format -> format.equalsIgnoreCase(extension));
+    }
+
+    /**
+     * 读取条目内容；声明大小或实际读取量超过上限时不保留内容，只返回大小
+     */
+    private static Entry readEntry(String name, long declaredSize, InputStream input, long maxEntryBytes)
+            throws IOException {
+        if (declaredSize > maxEntryBytes) {
+            return new Entry(name, declaredSize, null);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream(declaredSize > 0 ? (int) declaredSize : BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            total += read;
+            if (total > maxEntryBytes) {
+                return new Entry(name, total, null);
+            }
+            output.write(buffer, 0, read);
+        }
+        return new Entry(name, total, output.toByteArray());
+    }
+}
@@ -0,0 +1,164 @@
+package com.twx.ocr.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 图片头信息读取工具类，只解析文件头，不解码像素
+ */
+public final class ImageHeaders {
+
+    /**
+     * 解码后每像素字节数（OpenCV按BGR三通道读取）
+     */
+    private static final int BYTES_PER_PIXEL = 3;
+
+    /**
+     * 无法读取尺寸时按文件大小的倍数估算解码大小
+     */
+    private static final int FALLBACK_EXPANSION = 10;
+
+    /**
+     * 识别格式和读取PNG、BMP、GIF尺寸所需的文件头长度
+     */
+    public static final int SNIFF_LENGTH = 32;
+
+    private static final int GIF_MAX_SIDE = 0xFFFF;
+
+    private ImageHeaders() {
+    }
+
+    /**
+     * 按文件头魔数识别图片格式（jpg、png、bmp、gif、tiff、webp），无法识别时返回null
+     */
+    public static String sniffFormat(byte[] header, int length) {
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return "jpg";
+        }
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(header, length, 'B', 'M')) {
+            return "bmp";
+        }
+        if (startsWith(header, length, 'G', 'I', 'F', '8')) {
+            return "gif";
+        }
+        if (startsWith(header, length, 'I', 'I', 0x2A, 0x00) || startsWith(header, length, 'M', 'M', 0x00, 0x2A)) {
+            return "tiff";
+        }
+        if (length >= 12 && startsWith(header, length, 'R', 'I', 'F', 'F')
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    /**
+     * 从文件头直接解析PNG、BMP、GIF的宽高，其他格式或文件头不完整时返回null
+     * <p>
+     * 返回的是文件头中记录的原值，可能为0、负数，调用方需用 {@link #isValid(Dimension, String)} 检查。
+     */
+    public static Dimension readDimensions(byte[] header, int length, String format) {
+        if ("png".equals(format) && length >= 24) {
+            return new Dimension(readIntBigEndian(header, 16), readIntBigEndian(header, 20));
+        }
+        if ("bmp".equals(format) && length >= 26) {
+            // 高度为负表示自上而下存储，宽度为负则是损坏的文件头
+            return new Dimension(readIntLittleEndian(header, 18), Math.abs(readIntLittleEndian(header, 22)));
+        }
+        if ("gif".equals(format) && length >= 10) {
+            return new Dimension((header[6] & 0xFF) | (header[7] & 0xFF) << 8, (header[8] & 0xFF) | (header[9] & 0xFF) << 8);
+        }
+        return null;
+    }
+
+    /**
+     * 宽高是否都为正数且不超过格式允许的上限（PNG、BMP为2^31-1，GIF为65535）
+     */
+    public static boolean isValid(Dimension dimension, String format) {
+        int maxSide = "gif".equals(format) ? GIF_MAX_SIDE : Integer.MAX_VALUE;
+        return dimension.width > 0 && dimension.height > 0 && dimension.width <= maxSide && dimension.height <= maxSide;
+    }
+
+    /**
+     * 读取图片宽高，格式不受ImageIO支持或文件损坏时返回null
+     */
+    public static Dimension readDimensions(File file) {
+        return readDimensionsFrom(file);
+    }
+
+    /**
+     * 读取内存中图片的宽高，格式不受ImageIO支持或内容损坏时返回null
+     */
+    public static Dimension readDimensions(byte[] content) {
+        return readDimensionsFrom(new ByteArrayInputStream(content));
+    }
+
+    private static Dimension readDimensionsFrom(Object source) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 估算图片解码后的内存占用（字节）
+     */
+    public static long estimateDecodedBytes(String imagePath) {
+        File file = new File(imagePath);
+        return estimateDecodedBytes(readDimensions(file), file.length());
+    }
+
+    /**
+     * 按已读取的尺寸估算解码后的内存占用（字节），尺寸未知时按文件大小估算
+     */
+    public static long estimateDecodedBytes(Dimension dimension, long fileSize) {
+        if (dimension != null) {
+            return (long) dimension.width * dimension.height * BYTES_PER_PIXEL;
+        }
+        return fileSize * FALLBACK_EXPANSION;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readIntBigEndian(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8 | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static int readIntLittleEndian(byte[] bytes, int offset) {
+        return (bytes[offset + 3] & 0xFF) << 24 | (bytes[offset + 2] & 0xFF) << 16
+                | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset] & 0xFF);
+    }
+}
@@ -0,0 +1,54 @@
+package com.twx.ocr.util;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 内置的合成预热图片
+ */
+public class WarmupImages {
+
+    private static volatile File warmupImage;
+
+    /**
+     * 获取预热图片，首次使用时生成到临时目录
+     */
+    public static File get() throws IOException {
+        File image = warmupImage;
+        if (image != null && image.exists()) {
+            return image;
+        }
+        synchronized (WarmupImages.class) {
+            if (warmupImage == null || !warmupImage.exists()) {
+                File file = File.createTempFile("ocr-warmup-", ".png");
+                file.deleteOnExit();
+                ImageIO.write(render(), "png", file);
+                warmupImage = file;
+            }
+            return warmupImage;
+        }
+    }
+
+    private static BufferedImage render() {
+        BufferedImage canvas = new BufferedImage(640, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = canvas.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            graphics.setColor(Color.BLACK);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 36));
+            graphics.drawString("PASSPORT OCR WARMUP", 40, 80);
+            graphics.drawString("110101199001011234", 40, 150);
+        } finally {
+            graphics.dispose();
+        }
+        return canvas;
+    }
+}
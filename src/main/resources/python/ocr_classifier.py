@@ -6,10 +6,15 @@ OCR证件识别分类脚本
 
 import sys
 import json
+import base64
 import re
 import traceback
 import os
 import glob
+import time
+import select
+import signal
+import socket
 import cv2
 import numpy as np
 from paddleocr import PaddleOCR
@@ -30,11 +35,12 @@ class DocumentClassifier:
         except Exception as e:
             raise Exception(f"初始化PaddleOCR失败: {str(e)}")
 
-    def preprocess_image(self, image_path):
-        """预处理图像以提高OCR识别效果"""
+    def preprocess_image(self, image_path, image=None):
+        """预处理图像以提高OCR识别效果，返回处理后的图像数组，不在输入目录中写入临时文件；
+        image为内存中的图像（如压缩包条目）时直接处理该图像"""
         try:
             # 读取图像
-            img = cv2.imread(image_path)
+            img = image if image is not None else cv2.imread(image_path)
             if img is None:
                 return image_path  # 如果无法读取，返回原路径
 
@@ -47,16 +53,10 @@ class DocumentClassifier:
 
             # 高斯滤波去噪
             denoised = cv2.GaussianBlur(enhanced, (3, 3), 0)
-
-            # 保存预处理后的图像
-            base_name = os.path.splitext(image_path)[0]
-            processed_path = f"{base_name}_processed.jpg"
-            cv2.imwrite(processed_path, denoised)
-
-            return processed_path
+            return cv2.cvtColor(denoised, cv2.COLOR_GRAY2BGR)
         except Exception as e:
             print(f"图像预处理失败: {e}")
-            return image_path  # 如果预处理失败，返回原路径
+            return image if image is not None else image_path  # 如果预处理失败，返回原图
 
     def classify_document_type(self, ocr_result):
         """根据OCR识别结果判断文档类型"""
@@ -199,131 +199,39 @@ class DocumentClassifier:
 
         return max(scores, key=scores.get)
 
-    def save_result_to_output(self, image_path, result):
-        """将结果保存到output文件夹"""
-        try:
-            # 创建output文件夹（如果不存在）
-            output_dir = "output"
-            if not os.path.exists(output_dir):
-                os.makedirs(output_dir)
-
-            # 生成输出文件名
-            base_name = os.path.splitext(os.path.basename(image_path))[0]
-            output_filename = f"{base_name}_classification_result.json"
-            output_path = os.path.join(output_dir, output_filename)
-
-            # 添加时间戳和图像路径信息
-            enhanced_result = {
-                "timestamp": self.get_current_timestamp(),
-                "input_image": image_path,
-                "result": result
-            }
-
-            # 保存JSON文件
-            with open(output_path, 'w', encoding='utf-8') as f:
-                json.dump(enhanced_result, f, ensure_ascii=False, indent=2)
-
-            print(f"结果已保存到: {output_path}")
-
-        except Exception as e:
-            print(f"保存结果失败: {e}")
-
-    def save_result_to_output_silent(self, image_path, result):
-        """静默将结果保存到output文件夹（不输出日志）"""
-        try:
-            # 创建output文件夹（如果不存在）
-            output_dir = "output"
-            if not os.path.exists(output_dir):
-                os.makedirs(output_dir)
-
-            # 生成输出文件名
-            base_name = os.path.splitext(os.path.basename(image_path))[0]
-            output_filename = f"{base_name}_classification_result.json"
-            output_path = os.path.join(output_dir, output_filename)
-
-            # 添加时间戳和图像路径信息
-            enhanced_result = {
-                "timestamp": self.get_current_timestamp(),
-                "input_image": image_path,
-                "result": result
-            }
-
-            # 保存JSON文件
-            with open(output_path, 'w', encoding='utf-8') as f:
-                json.dump(enhanced_result, f, ensure_ascii=False, indent=2)
-
-        except Exception as e:
-            pass  # 静默处理错误
-
-    def get_current_timestamp(self):
-        """获取当前时间戳"""
-        from datetime import datetime
-        return datetime.now().strftime("%Y-%m-%d %H:%M:%S")
-
-    def extract_key_info(self, ocr_result, document_type):
-        """根据证件类型提取关键信息"""
-        key_info = {}
-
-        if not ocr_result:
-            return key_info
-
-        text_content = ""
-        for line in ocr_result:
-            if line and len(line) > 1:
-                try:
-                    # 检查line[1]的结构
-                    if isinstance(line[1], (list, tuple)) and len(line[1]) > 0:
-                        text_content += str(line[1][0]) + " "
-                    else:
-                        text_content += str(line[1]) + " "
-                except (IndexError, TypeError):
-                    # 如果访问失败，跳过这一行
-                    continue
-
-        if document_type == "身份证":
-            # 提取身份证关键信息
-            name_pattern = r'姓名[：:\s]*([^\s]+)'
-            id_pattern = r'(\d{17}[\dX])'
-
-            name_match = re.search(name_pattern, text_content)
-            if name_match:
-                key_info['姓名'] = name_match.group(1)
-
-            id_match = re.search(id_pattern, text_content)
-            if id_match:
-                key_info['身份证号'] = id_match.group(1)
-
-        elif document_type == "营业执照":
-            # 提取营业执照关键信息
-            name_pattern = r'名称[：:\s]*([^\n]+)'
-            credit_pattern = r'([0-9A-HJ-NPQRTUWXY]{2}\d{6}[0-9A-HJ-NPQRTUWXY]{10})'
-
-            name_match = re.search(name_pattern, text_content)
-            if name_match:
-                key_info['企业名称'] = name_match.group(1).strip()
-
-            credit_match = re.search(credit_pattern, text_content)
-            if credit_match:
-                key_info['统一社会信用代码'] = credit_match.group(1)
-
-        return key_info
-
-    def process_image(self, image_path):
-        """处理图片并返回识别结果"""
+    def downscale_image(self, image_path, max_side_len, image=None):
+        """快速识别：按最长边缩小图片并直接返回图像数组，不做CLAHE增强"""
+        img = image if image is not None else cv2.imread(image_path)
+        if img is None:
+            return image_path
+        height, width = img.shape[:2]
+        scale = float(max_side_len) / max(height, width)
+        if scale < 1:
+            img = cv2.resize(img, (max(1, int(width * scale)), max(1, int(height * scale))),
+                             interpolation=cv2.INTER_AREA)
+        return img
+
+    def process_image(self, image_path, timings=None, max_side_len=None, image=None, return_boxes=False):
+        """处理图片并返回识别结果，timings不为空时按顺序记录各阶段耗时（毫秒）；
+        max_side_len不为空时为快速识别，只在缩小后的图片上识别；
+        image不为空时识别内存中的图像，image_path只用于日志；
+        return_boxes为真时返回文本区域 [x1, y1, x2, y2]，结果文件和可视化图片由Java服务异步写入"""
+        if timings is None:
+            timings = {}
+        quick = max_side_len is not None
         try:
             # 预处理图像
-            processed_path = self.preprocess_image(image_path)
+            stage_start = time.time()
+            if quick:
+                processed_image = self.downscale_image(image_path, max_side_len, image)
+            else:
+                processed_image = self.preprocess_image(image_path, image)
+            timings["preprocess"] = round((time.time() - stage_start) * 1000, 1)
 
             # 执行OCR识别
-            results = self.ocr.predict(input = processed_path)
-            for res in results:
-                res.save_to_img("output")
-            # 清理临时文件
-            if processed_path != image_path and os.path.exists(processed_path):
-                try:
-                    os.remove(processed_path)
-                except:
-                    pass
+            stage_start = time.time()
+            results = self.ocr.predict(input = processed_image)
+            timings["inference"] = round((time.time() - stage_start) * 1000, 1)
 
             if not results:
                 return {
@@ -362,7 +270,9 @@ class DocumentClassifier:
                 }
 
             # 基于rec_texts进行证件类型分类
+            stage_start = time.time()
             document_type = self.classify_document_type_from_texts(rec_texts)
+            timings["classify"] = round((time.time() - stage_start) * 1000, 1)
 
             # 构建最终结果
             final_result = {
@@ -370,20 +280,17 @@ class DocumentClassifier:
                 'rec_texts': rec_texts
             }
 
-            # 静默保存结果到output文件夹（不输出日志）
-            self.save_result_to_output_silent(image_path, final_result)
+            if return_boxes and isinstance(results, list) and isinstance(results[0], dict) \
+                    and results[0].get('rec_boxes') is not None:
+                final_result['boxes'] = [[int(v) for v in box[:4]] for box in results[0]['rec_boxes']]
 
-            # 返回简化的结果，只包含document_type和rec_texts
             return final_result
 
 
         except Exception as e:
-            error_result = {
+            return {
                 "error": f"处理图片时发生错误: {str(e)}"
             }
-            # 即使出错也保存结果
-            self.save_result_to_output_silent(image_path, error_result)
-            return error_result
 
 def get_image_files(path):
     """获取图片文件列表"""
@@ -414,11 +321,236 @@ def process_single_image(classifier, image_path):
     result['image_path'] = image_path
     return result
 
+def serve_requests(classifier, lines, send):
+    """按行读取JSON请求并按行输出JSON结果，直到输入结束或收到shutdown命令"""
+    for line in lines:
+        line = line.strip()
+        if not line:
+            continue
+
+        try:
+            request = json.loads(line)
+        except ValueError as e:
+            send({"error": f"无效的请求: {str(e)}"})
+            continue
+
+        if request.get("cmd") == "shutdown":
+            break
+
+        start = time.time()
+        timings = {}
+        trace_id = request.get("trace_id")
+        try:
+            image = None
+            if request.get("image_b64"):
+                # 压缩包中的图片随请求发送，直接在内存中解码
+                data = np.frombuffer(base64.b64decode(request["image_b64"]), dtype=np.uint8)
+                image = cv2.imdecode(data, cv2.IMREAD_COLOR)
+                if image is None:
+                    raise ValueError("无法解码图片数据")
+            result = classifier.process_image(request["image_path"], timings, request.get("max_side_len"), image,
+                                              bool(request.get("return_boxes")))
+        except Exception as e:
+            result = {"error": f"处理图片失败: {str(e)}"}
+        if "error" in result:
+            print(f"[trace_id={trace_id}] {request.get('image_path')}: {result['error']}", file=sys.stderr)
+
+        result["id"] = request.get("id")
+        result["trace_id"] = trace_id
+        result["timings"] = timings
+        result["elapsed_ms"] = int((time.time() - start) * 1000)
+        send(result)
+
+def protocol_writer(stream):
+    """返回按行写出JSON消息的函数"""
+    def send(message):
+        stream.write(json.dumps(message, ensure_ascii=False) + "\n")
+        stream.flush()
+    return send
+
+def redirect_stdout_to_stderr():
+    """复制一份真正的标准输出作为协议通道，其余print输出（包括PaddleOCR日志）全部重定向到stderr"""
+    protocol_out = os.fdopen(os.dup(sys.stdout.fileno()), 'w', encoding='utf-8')
+    os.dup2(sys.stderr.fileno(), sys.stdout.fileno())
+    return protocol_writer(protocol_out)
+
+def load_classifier(send):
+    try:
+        return DocumentClassifier()
+    except Exception as e:
+        send({"event": "error", "error": str(e)})
+        sys.exit(1)
+
+def run_worker():
+    """常驻工作进程模式：模型只加载一次，按行读取JSON请求并按行输出JSON结果"""
+    send = redirect_stdout_to_stderr()
+    classifier = load_classifier(send)
+    send({"event": "ready", "pid": os.getpid()})
+    serve_requests(classifier, sys.stdin, send)
+
+# 连接建立后发送fork请求（含令牌）的最长时间，超时或令牌不对的连接直接关闭，不fork
+ZYGOTE_HELLO_TIMEOUT_SECONDS = 5
+ZYGOTE_HELLO_MAX_BYTES = 1024
+
+def run_zygote():
+    """
+    模板进程模式：只导入依赖、加载一次模型，之后每接受一个携带正确令牌的本机连接就fork出一个工作进程。
+    子进程与模板进程以写时复制方式共享已加载的模型内存，通过该连接使用与 --worker 相同的协议。
+    令牌在fork前由模板进程校验，未通过校验的连接不会产生子进程。
+    标准输入接收控制命令（kill、shutdown），标准输出只输出就绪事件。
+    """
+    send = redirect_stdout_to_stderr()
+    classifier = load_classifier(send)
+    token = os.environ.get("OCR_ZYGOTE_TOKEN", "")
+
+    server = socket.socket(socket.AF_INET, socket.SOCK_STREAM)
+    server.bind(("127.0.0.1", 0))
+    server.listen(64)
+    send({"event": "ready", "pid": os.getpid(), "port": server.getsockname()[1]})
+
+    children = set()
+    # 已接受但尚未发来完整fork请求的连接 -> [已读内容, 截止时间]
+    pending = {}
+    control = b""
+    while True:
+        readable, _, _ = select.select([server, sys.stdin.fileno()] + list(pending), [], [], 1.0)
+        reap_children(children)
+        expire_pending(pending)
+
+        if sys.stdin.fileno() in readable:
+            data = os.read(sys.stdin.fileno(), 4096)
+            if not data:
+                break
+            control += data
+            *lines, control = control.split(b"\n")
+            if not handle_zygote_commands(lines, children):
+                break
+
+        if server in readable:
+            connection, _ = server.accept()
+            connection.setblocking(False)
+            pending[connection] = [b"", time.time() + ZYGOTE_HELLO_TIMEOUT_SECONDS]
+
+        for connection in [c for c in readable if c in pending]:
+            hello = read_hello(connection, pending)
+            if hello is None:
+                continue
+            del pending[connection]
+            if hello.get("cmd") != "fork" or hello.get("token") != token:
+                print("拒绝令牌无效的fork请求", file=sys.stderr, flush=True)
+                connection.close()
+                continue
+            pid = os.fork()
+            if pid == 0:
+                server.close()
+                for other in pending:
+                    other.close()
+                devnull = os.open(os.devnull, os.O_RDONLY)
+                os.dup2(devnull, sys.stdin.fileno())
+                try:
+                    run_forked_worker(classifier, connection)
+                finally:
+                    os._exit(0)
+            children.add(pid)
+            connection.close()
+
+    for connection in pending:
+        connection.close()
+    server.close()
+
+def read_hello(connection, pending):
+    """
+    逐字节读取连接上的fork请求，不多读请求之后的内容；读完一行返回解析结果，
+    尚未读完返回None，连接关闭、内容过长或无法解析时关闭连接并返回None
+    """
+    buffer = pending[connection][0]
+    while True:
+        try:
+            byte = connection.recv(1)
+        except BlockingIOError:
+            pending[connection][0] = buffer
+            return None
+        except OSError:
+            byte = b""
+        if not byte or len(buffer) >= ZYGOTE_HELLO_MAX_BYTES:
+            del pending[connection]
+            connection.close()
+            return None
+        if byte == b"\n":
+            break
+        buffer += byte
+    try:
+        hello = json.loads(buffer.decode("utf-8"))
+    except ValueError:
+        hello = None
+    if not isinstance(hello, dict):
+        print("拒绝无法解析的fork请求", file=sys.stderr, flush=True)
+        del pending[connection]
+        connection.close()
+        return None
+    return hello
+
+def expire_pending(pending):
+    """关闭超时仍未发来完整fork请求的连接"""
+    now = time.time()
+    for connection in [c for c, (_, deadline) in pending.items() if deadline < now]:
+        del pending[connection]
+        connection.close()
+
+def reap_children(children):
+    """回收已退出的子进程，避免僵尸进程"""
+    for pid in list(children):
+        try:
+            finished, _ = os.waitpid(pid, os.WNOHANG)
+        except ChildProcessError:
+            finished = pid
+        if finished:
+            children.discard(pid)
+
+def handle_zygote_commands(lines, children):
+    """处理模板进程的控制命令，收到shutdown时返回False"""
+    for line in lines:
+        if not line.strip():
+            continue
+        try:
+            command = json.loads(line.decode("utf-8"))
+        except ValueError as e:
+            print(f"忽略无法解析的控制命令: {e}", file=sys.stderr, flush=True)
+            continue
+        if not isinstance(command, dict):
+            print("忽略无法解析的控制命令", file=sys.stderr, flush=True)
+            continue
+        if command.get("cmd") == "shutdown":
+            return False
+        if command.get("cmd") == "kill" and command.get("pid") in children:
+            # 只结束自己fork出的进程
+            try:
+                os.kill(command["pid"], signal.SIGKILL)
+            except ProcessLookupError:
+                pass
+    return True
+
+def run_forked_worker(classifier, connection):
+    """fork出的工作进程：在已通过令牌校验的连接上处理请求"""
+    connection.setblocking(True)
+    connection.setsockopt(socket.IPPROTO_TCP, socket.TCP_NODELAY, 1)
+    reader = connection.makefile('r', encoding='utf-8')
+    send = protocol_writer(connection.makefile('w', encoding='utf-8'))
+    send({"event": "ready", "pid": os.getpid()})
+    serve_requests(classifier, reader, send)
+
 def main():
     """主函数"""
     # 设置标准输出编码为UTF-8
     import sys
     import codecs
+    if len(sys.argv) == 2 and sys.argv[1] == "--worker":
+        run_worker()
+        return
+    if len(sys.argv) == 2 and sys.argv[1] == "--zygote":
+        run_zygote()
+        return
+
     if sys.stdout.encoding != 'utf-8':
         sys.stdout = codecs.getwriter('utf-8')(sys.stdout.buffer, 'strict')
 
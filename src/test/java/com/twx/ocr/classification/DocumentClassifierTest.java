@@ -0,0 +1,52 @@
+package com.twx.ocr.classification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 证件分类器测试类
+ */
+class DocumentClassifierTest {
+
+    private final DocumentClassifier documentClassifier = new DocumentClassifier();
+
+    @Test
+    void testClassifyIdCard() {
+        Classification classification = documentClassifier.classify(Arrays.asList(
+                "中华人民共和国", "居民身份证", "姓名", "张三", "公民身份号码11010519491231002X"));
+
+        assertEquals("身份证", classification.getDocumentType());
+        assertEquals("高", classification.getConfidence());
+        assertTrue(classification.getMargin() >= 3);
+    }
+
+    @Test
+    void testClassifyBusinessLicenseByCreditCode() {
+        Classification classification = documentClassifier.classify(Arrays.asList("91350100M000100Y43"));
+
+        assertEquals("营业执照", classification.getDocumentType());
+        assertEquals(3, classification.getScore());
+    }
+
+    @Test
+    void testTieKeepsFirstType() {
+        // “签发机关”同时属于身份证和护照关键词，得分相同时取先出现的身份证
+        Classification classification = documentClassifier.classify(Collections.singletonList("签发机关"));
+
+        assertEquals("身份证", classification.getDocumentType());
+        assertEquals("低", classification.getConfidence());
+        assertEquals(0, classification.getMargin());
+    }
+
+    @Test
+    void testClassifyUnknown() {
+        assertEquals(DocumentClassifier.UNKNOWN_TYPE,
+                documentClassifier.classify(Collections.singletonList("随便一段文字")).getDocumentType());
+        assertEquals(DocumentClassifier.UNKNOWN_TYPE,
+                documentClassifier.classify(Collections.emptyList()).getDocumentType());
+    }
+}
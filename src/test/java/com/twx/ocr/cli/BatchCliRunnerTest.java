@@ -0,0 +1,145 @@
+package com.twx.ocr.cli;
+
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.DocumentClassificationResult;
+import com.twx.ocr.dto.OcrRequest;
+import com.twx.ocr.dto.OcrResponse;
+import com.twx.ocr.dto.ProcessingMode;
+import com.twx.ocr.service.OcrService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 命令行批处理测试类
+ */
+class BatchCliRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final OcrConfig ocrConfig = new OcrConfig();
+
+    private final OcrService ocrService = mock(OcrService.class);
+
+    private final BatchCliRunner runner = new BatchCliRunner(ocrConfig, ocrService);
+
+    @Test
+    void testWritesResultsInFileListOrder() throws IOException {
+        // 识别耗时随机，结果仍按文件列表顺序写出
+        when(ocrService.processSingleImage(anyString(), any(OcrRequest.class))).thenAnswer(invocation -> {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(20));
+            return success(invocation.getArgument(0));
+        });
+        List<String> images = Arrays.asList("a.jpg", "b.jpg", "c.jpg", "d.jpg", "e.jpg", "f.jpg");
+        Path fileList = Files.write(tempDir.resolve("list.txt"), Arrays.asList("# 注释", "a.jpg", "b.jpg", "", "c.jpg",
+                "d.jpg", "e.jpg", "f.jpg"), StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("out/results.jsonl");
+
+        runner.run(new DefaultApplicationArguments("--file-list=" + fileList, "--output=" + output,
+                "--parallelism=3", "--mode=classify"));
+
+        assertEquals(BatchCliRunner.EXIT_OK, runner.getExitCode());
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(images.size(), lines.size());
+        for (int i = 0; i < images.size(); i++) {
+            assertTrue(lines.get(i).contains("\"imagePath\":\"" + images.get(i) + "\""), lines.get(i));
+        }
+        verify(ocrService, times(images.size())).processSingleImage(anyString(),
+                argThat(options -> options != null && options.getMode() == ProcessingMode.CLASSIFY));
+    }
+
+    @Test
+    void testWalksInputTreeAndReportsFailures() throws IOException {
+        Files.createDirectories(tempDir.resolve("scans/2024"));
+        Files.write(tempDir.resolve("scans/a.jpg"), new byte[]{1});
+        Files.write(tempDir.resolve("scans/2024/b.png"), new byte[]{1});
+        Files.write(tempDir.resolve("scans/2024/notes.txt"), new byte[]{1});
+        Files.write(tempDir.resolve("scans/2024/old.zip"), new byte[]{1});
+        when(ocrService.processSingleImage(anyString(), any(OcrRequest.class)))
+                .thenAnswer(invocation -> success(invocation.getArgument(0)));
+        when(ocrService.processBatchImages(endsWith("old.zip"), any(OcrRequest.class))).thenReturn(OcrResponse.builder()
+                .success(true)
+                .results(Arrays.asList(success("p1.jpg").getResult(), DocumentClassificationResult.builder()
+                        .imagePath("p2.jpg")
+                        .success(false)
+                        .error("无法解码图片数据")
+                        .build()))
+                .build());
+        Path output = tempDir.resolve("results.jsonl");
+
+        runner.run(new DefaultApplicationArguments("--input=" + tempDir.resolve("scans"), "--output=" + output,
+                "--parallelism=2"));
+
+        // 两张图片和压缩包中的一个条目成功，另一个条目失败，其他文件忽略
+        assertEquals(BatchCliRunner.EXIT_FAILURES, runner.getExitCode());
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(4, lines.size());
+        String archive = tempDir.resolve("scans/2024/old.zip").toString();
+        assertEquals(1, lines.stream().filter(line -> line.contains(archive + "!/p1.jpg")
+                && line.contains("\"success\":true")).count());
+        assertEquals(1, lines.stream().filter(line -> line.contains(archive + "!/p2.jpg")
+                && line.contains("\"success\":false")).count());
+        verify(ocrService, never()).processSingleImage(endsWith("notes.txt"), any());
+        verify(ocrService, never()).processSingleImage(endsWith("old.zip"), any());
+    }
+
+    @Test
+    void testFailedImageKeepsItsPathInResultLine() throws IOException {
+        when(ocrService.processSingleImage(anyString(), any(OcrRequest.class)))
+                .thenAnswer(invocation -> success(invocation.getArgument(0)));
+        when(ocrService.processSingleImage(endsWith("b.jpg"), any(OcrRequest.class)))
+                .thenThrow(new IllegalStateException("工作进程异常退出"));
+        Path fileList = Files.write(tempDir.resolve("list.txt"), Arrays.asList("a.jpg", "b.jpg", "c.jpg"),
+                StandardCharsets.UTF_8);
+        Path output = tempDir.resolve("results.jsonl");
+
+        runner.run(new DefaultApplicationArguments("--file-list=" + fileList, "--output=" + output,
+                "--parallelism=2"));
+
+        // 识别抛出异常的图片仍能按路径匹配到输入，便于重试
+        assertEquals(BatchCliRunner.EXIT_FAILURES, runner.getExitCode());
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).contains("\"imagePath\":\"b.jpg\""), lines.get(1));
+        assertTrue(lines.get(1).contains("\"success\":false"), lines.get(1));
+        assertTrue(lines.get(1).contains("工作进程异常退出"), lines.get(1));
+    }
+
+    @Test
+    void testMissingInputExitsWithError() {
+        runner.run(new DefaultApplicationArguments("--output=" + tempDir.resolve("results.jsonl")));
+
+        assertEquals(BatchCliRunner.EXIT_ERROR, runner.getExitCode());
+    }
+
+    private OcrResponse success(String imagePath) {
+        return OcrResponse.builder()
+                .success(true)
+                .result(DocumentClassificationResult.builder()
+                        .imagePath(imagePath)
+                        .documentType("身份证")
+                        .success(true)
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.twx.ocr.engine.onnx;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片缩放与张量填充测试类
+ */
+class ImageTensorsTest {
+
+    private static final float[] ZERO_MEAN = {0f, 0f, 0f};
+
+    private static final float[] UNIT_STD = {1f, 1f, 1f};
+
+    @Test
+    void testFillsPlanesInBgrOrder() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0033);
+        image.setRGB(1, 0, 0x00FF00);
+        // 张量宽3、高2，多出的一列和一行为填充
+        float[] data = new float[3 * 3 * 2];
+
+        ImageTensors.fillBgr(image, data, 0, 3, 2, ZERO_MEAN, UNIT_STD);
+
+        int plane = 3 * 2;
+        assertEquals(0x33 / 255f, data[0], 1e-6);
+        assertEquals(0f, data[plane], 1e-6);
+        assertEquals(1f, data[2 * plane], 1e-6);
+        assertEquals(0f, data[1], 1e-6);
+        assertEquals(1f, data[plane + 1], 1e-6);
+        assertEquals(0f, data[2 * plane + 1], 1e-6);
+        for (int p = 0; p < 3; p++) {
+            assertEquals(0f, data[p * plane + 2]);
+            for (int x = 0; x < 3; x++) {
+                assertEquals(0f, data[p * plane + 3 + x]);
+            }
+        }
+    }
+
+    @Test
+    void testNormalizesWithMeanAndStdAtOffset() {
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFFFFFF);
+        float[] data = new float[2 * 3];
+
+        ImageTensors.fillBgr(image, data, 3, 1, 1, new float[]{0.5f, 0.5f, 0.5f}, new float[]{0.5f, 0.25f, 0.5f});
+
+        assertArrayEquals(new float[]{0f, 0f, 0f, 1f, 2f, 1f}, data, 1e-6f);
+    }
+
+    @Test
+    void testResizeKeepsUniformColour() {
+        BufferedImage image = new BufferedImage(40, 10, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 40; x++) {
+                image.setRGB(x, y, 0x336699);
+            }
+        }
+
+        BufferedImage resized = ImageTensors.resize(image, 16, 4);
+
+        assertEquals(16, resized.getWidth());
+        assertEquals(4, resized.getHeight());
+        assertEquals(0x336699, resized.getRGB(7, 2) & 0xFFFFFF);
+    }
+}
@@ -0,0 +1,121 @@
+package com.twx.ocr.engine.onnx;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文本检测后处理测试类（不需要模型文件）
+ */
+class TextDetectorTest {
+
+    private final TextDetector detector = new TextDetector(null, null, "x", 960, 0.3f, 0.6, 1.5);
+
+    @Test
+    void testExtractsUnclippedBoxFromProbabilityMap() {
+        float[] map = new float[20 * 20];
+        fill(map, 20, 4, 5, 8, 4, 0.9f);
+
+        List<Rectangle> boxes = detector.extractBoxes(map, 20, 20, 1.0, 1.0, 20, 20);
+
+        // unclip距离 = 面积*比例/周长 = 8*4*1.5/24 = 2
+        assertEquals(Collections.singletonList(new Rectangle(2, 3, 12, 8)), boxes);
+    }
+
+    @Test
+    void testScalesBoxesToImageAndClampsToBounds() {
+        float[] map = new float[10 * 10];
+        fill(map, 10, 0, 0, 6, 4, 0.9f);
+
+        List<Rectangle> boxes = detector.extractBoxes(map, 10, 10, 2.0, 3.0, 20, 30);
+
+        // unclip距离 = 6*4*1.5/20 = 1.8，左上角越界截到0
+        assertEquals(Collections.singletonList(new Rectangle(0, 0, 16, 18)), boxes);
+    }
+
+    @Test
+    void testDiagonalNeighboursFormOneRegion() {
+        float[] map = new float[16 * 16];
+        fill(map, 16, 0, 0, 4, 4, 0.9f);
+        fill(map, 16, 4, 4, 4, 4, 0.9f);
+
+        List<Rectangle> boxes = detector.extractBoxes(map, 16, 16, 1.0, 1.0, 16, 16);
+
+        assertEquals(1, boxes.size());
+    }
+
+    @Test
+    void testDropsLowScoreAndTinyRegions() {
+        float[] map = new float[30 * 30];
+        // 超过二值化阈值，但区域平均概率低于boxThreshold
+        fill(map, 30, 2, 2, 10, 5, 0.4f);
+        // 最短边小于3
+        fill(map, 30, 20, 20, 8, 2, 0.95f);
+        fill(map, 30, 2, 20, 10, 5, 0.8f);
+
+        List<Rectangle> boxes = detector.extractBoxes(map, 30, 30, 1.0, 1.0, 30, 30);
+
+        assertEquals(1, boxes.size());
+        assertTrue(boxes.get(0).contains(new Rectangle(2, 20, 10, 5)));
+    }
+
+    @Test
+    void testSortsLinesTopToBottomAndLeftToRight() {
+        Rectangle title = new Rectangle(200, 10, 300, 30);
+        Rectangle nameLabel = new Rectangle(20, 80, 60, 20);
+        Rectangle nameValue = new Rectangle(100, 84, 120, 20);
+        Rectangle idNumber = new Rectangle(20, 150, 400, 24);
+        List<Rectangle> boxes = new ArrayList<>(Arrays.asList(idNumber, nameValue, title, nameLabel));
+
+        TextDetector.sortReadingOrder(boxes);
+
+        assertEquals(Arrays.asList(title, nameLabel, nameValue, idNumber), boxes);
+    }
+
+    @Test
+    void testStaircaseOfBoxesDoesNotBreakSorting() {
+        // 每个文本框比上一个低8像素、左移20像素：相邻两个在容差内，隔一个就超出，逐对比较的排序规则会出现环
+        List<Rectangle> staircase = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            staircase.add(new Rectangle(2000 - 20 * i, 8 * i, 15, 20));
+        }
+        // 按该种子打乱后，用逐对比较的排序规则排序会抛出 IllegalArgumentException
+        List<Rectangle> boxes = new ArrayList<>(staircase);
+        Collections.shuffle(boxes, new Random(61));
+
+        assertDoesNotThrow(() -> TextDetector.sortReadingOrder(boxes));
+
+        // 每行从第一个文本框开始，低出容差即另起一行，因此两两成行，行内按横坐标排列
+        List<Rectangle> expected = new ArrayList<>();
+        for (int i = 0; i < staircase.size(); i += 2) {
+            expected.add(staircase.get(i + 1));
+            expected.add(staircase.get(i));
+        }
+        assertEquals(expected, boxes);
+    }
+
+    @Test
+    void testBoxBelowLineExtentStartsNewLine() {
+        // 纵向相差小于容差，但已不与该行第一个文本框重叠
+        Rectangle upper = new Rectangle(100, 0, 50, 6);
+        Rectangle lower = new Rectangle(0, 8, 50, 6);
+        List<Rectangle> boxes = new ArrayList<>(Arrays.asList(lower, upper));
+
+        TextDetector.sortReadingOrder(boxes);
+
+        assertEquals(Arrays.asList(upper, lower), boxes);
+    }
+
+    private static void fill(float[] map, int mapWidth, int x, int y, int width, int height, float value) {
+        for (int row = y; row < y + height; row++) {
+            Arrays.fill(map, row * mapWidth + x, row * mapWidth + x + width, value);
+        }
+    }
+}
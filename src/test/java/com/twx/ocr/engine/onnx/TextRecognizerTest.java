@@ -0,0 +1,70 @@
+package com.twx.ocr.engine.onnx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文本行识别CTC解码测试类（不需要模型文件）
+ */
+class TextRecognizerTest {
+
+    /**
+     * 类别：0为空白，1~3为字典字符，4为空格
+     */
+    private static final int CLASSES = 5;
+
+    private static final int BLANK = 0;
+
+    private static final int SPACE = 4;
+
+    private final TextRecognizer recognizer =
+            new TextRecognizer(null, null, "x", Arrays.asList("身", "份", "证"), 6, 0.5);
+
+    @Test
+    void testCollapsesRepeatsAndRemovesBlanks() {
+        float[] probabilities = steps(0.9f, 1, 1, BLANK, 1, 2, 2, BLANK, 3, SPACE);
+
+        assertEquals("身身份证", recognizer.decode(probabilities, 0, 9, CLASSES));
+    }
+
+    @Test
+    void testDropsLowScoreText() {
+        float[] probabilities = steps(0.4f, 1, 2, 3);
+
+        assertNull(recognizer.decode(probabilities, 0, 3, CLASSES));
+    }
+
+    @Test
+    void testBlankOrWhitespaceOnlyTextIsDropped() {
+        assertNull(recognizer.decode(steps(0.9f, BLANK, BLANK), 0, 2, CLASSES));
+        assertNull(recognizer.decode(steps(0.9f, SPACE, BLANK, SPACE), 0, 3, CLASSES));
+    }
+
+    @Test
+    void testDecodesSampleAtOffsetWithinBatch() {
+        float[] first = steps(0.9f, 3, 3);
+        float[] second = steps(0.9f, 2, BLANK, 2);
+        float[] batch = new float[first.length + second.length];
+        System.arraycopy(first, 0, batch, 0, first.length);
+        System.arraycopy(second, 0, batch, first.length, second.length);
+
+        assertEquals("证", recognizer.decode(batch, 0, 2, CLASSES));
+        assertEquals("份份", recognizer.decode(batch, first.length, 3, CLASSES));
+    }
+
+    /**
+     * 构造逐步的类别概率：每一步选中的类别为score，其余类别平分剩余概率
+     */
+    private static float[] steps(float score, int... best) {
+        float[] probabilities = new float[best.length * CLASSES];
+        for (int t = 0; t < best.length; t++) {
+            for (int c = 0; c < CLASSES; c++) {
+                probabilities[t * CLASSES + c] = c == best[t] ? score : (1 - score) / (CLASSES - 1);
+            }
+        }
+        return probabilities;
+    }
+}
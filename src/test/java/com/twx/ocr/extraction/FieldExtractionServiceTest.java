@@ -0,0 +1,90 @@
+package com.twx.ocr.extraction;
+
+import com.twx.ocr.dto.ExtractedField;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关键字段提取测试类
+ */
+class FieldExtractionServiceTest {
+
+    private final FieldExtractionService fieldExtractionService = new FieldExtractionService(Arrays.asList(
+            new IdCardFieldExtractor(),
+            new BusinessLicenseFieldExtractor(),
+            new DrivingLicenseFieldExtractor(),
+            new PassportFieldExtractor()));
+
+    @Test
+    void testCheckDigits() {
+        assertTrue(CheckDigits.isValidIdNumber("11010519491231002X"));
+        assertFalse(CheckDigits.isValidIdNumber("110105194912310021"));
+        assertTrue(CheckDigits.isValidCreditCode("91350100M000100Y43"));
+        assertFalse(CheckDigits.isValidCreditCode("91350100M000100Y44"));
+    }
+
+    @Test
+    void testExtractIdCardFields() {
+        List<String> texts = Arrays.asList(
+                "姓名", "张三", "性别男民族汉", "出生1949年12月31日",
+                "住址北京市朝阳区", "某某街道1号", "公民身份号码11010519491231002X");
+
+        List<ExtractedField> fields = fieldExtractionService.extract("身份证", texts);
+
+        assertEquals("张三", value(fields, "name"));
+        assertEquals("男", value(fields, "gender"));
+        assertEquals("汉", value(fields, "ethnicity"));
+        assertEquals("北京市朝阳区某某街道1号", value(fields, "address"));
+        assertEquals("11010519491231002X", value(fields, "idNumber"));
+        assertTrue(field(fields, "idNumber").getValid());
+    }
+
+    @Test
+    void testExtractBusinessLicenseFields() {
+        List<String> texts = Arrays.asList(
+                "营业执照", "统一社会信用代码", "91350100M000100Y43", "名称：某某科技有限公司", "法定代表人", "李四");
+
+        List<ExtractedField> fields = fieldExtractionService.extract("营业执照", texts);
+
+        assertEquals("91350100M000100Y43", value(fields, "creditCode"));
+        assertTrue(field(fields, "creditCode").getValid());
+        assertEquals("某某科技有限公司", value(fields, "companyName"));
+        assertEquals("李四", value(fields, "legalRepresentative"));
+    }
+
+    @Test
+    void testExtractPassportFieldsFromMrz() {
+        List<String> texts = Arrays.asList(
+                "PASSPORT",
+                "P<UTOERIKSSON<<ANNA<MARIA<<<<<<<<<<<<<<<<<<<",
+                "L898902C36UTO7408122F1204159ZE184226B<<<<<10");
+
+        List<ExtractedField> fields = fieldExtractionService.extract("护照", texts);
+
+        assertEquals("ERIKSSON", value(fields, "surname"));
+        assertEquals("ANNA MARIA", value(fields, "givenNames"));
+        assertEquals("L898902C3", value(fields, "passportNumber"));
+        assertTrue(field(fields, "passportNumber").getValid());
+        assertTrue(field(fields, "expiryDate").getValid());
+    }
+
+    @Test
+    void testUnknownDocumentTypeReturnsNoFields() {
+        assertTrue(fieldExtractionService.extract("未知类型", Arrays.asList("任意文本")).isEmpty());
+    }
+
+    private ExtractedField field(List<ExtractedField> fields, String key) {
+        return fields.stream()
+                .filter(field -> key.equals(field.getKey()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("缺少字段: " + key));
+    }
+
+    private String value(List<ExtractedField> fields, String key) {
+        return field(fields, key).getValue();
+    }
+}
@@ -0,0 +1,132 @@
+package com.twx.ocr.loadtest;
+
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测流量发生器，按配置的并发数和到达速率回放单图与批量混合请求
+ * <p>
+ * 开环模式下请求按泊松过程到达，延迟从计划发送时间开始计算，排队时间也计入延迟，
+ * 避免服务变慢时压测端同步变慢而掩盖长尾（coordinated omission）。
+ */
+public class LoadGenerator {
+
+    private final LoadTestSettings settings;
+
+    private final TestRestTemplate restTemplate;
+
+    private final List<String> singleImages;
+
+    private final List<String> batchDirectories;
+
+    public LoadGenerator(LoadTestSettings settings, TestRestTemplate restTemplate,
+                         List<String> singleImages, List<String> batchDirectories) {
+        this.settings = settings;
+        this.restTemplate = restTemplate;
+        this.singleImages = singleImages;
+        this.batchDirectories = batchDirectories;
+    }
+
+    /**
+     * 先预热再正式压测，只返回正式阶段的统计
+     */
+    public LoadTestReport run() throws InterruptedException {
+        runPhase(settings.getWarmupSeconds(), new LoadTestReport());
+
+        LoadTestReport report = new LoadTestReport();
+        report.setElapsedNanos(runPhase(settings.getDurationSeconds(), report));
+        return report;
+    }
+
+    private long runPhase(int seconds, LoadTestReport report) throws InterruptedException {
+        if (seconds <= 0) {
+            return 0;
+        }
+
+        ExecutorService clients = Executors.newFixedThreadPool(settings.getConcurrency());
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        if (settings.getArrivalRate() > 0) {
+            long next = start;
+            while (next < end) {
+                long intendedStart = next;
+                clients.submit(() -> issue(intendedStart, report));
+                // 指数分布的到达间隔
+                double interval = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / settings.getArrivalRate();
+                next += (long) (interval * 1_000_000_000L);
+                LockSupport.parkNanos(next - System.nanoTime());
+            }
+        } else {
+            for (int i = 0; i < settings.getConcurrency(); i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        issue(System.nanoTime(), report);
+                    }
+                });
+            }
+        }
+
+        clients.shutdown();
+        clients.awaitTermination(10, TimeUnit.MINUTES);
+        return System.nanoTime() - start;
+    }
+
+    private void issue(long intendedStartNanos, LoadTestReport report) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean batch = !batchDirectories.isEmpty() && random.nextDouble() < settings.getBatchRatio();
+
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        String url;
+        if (batch) {
+            url = "/api/ocr/process-batch";
+            form.add("directoryPath", batchDirectories.get(random.nextInt(batchDirectories.size())));
+        } else {
+            url = "/api/ocr/process-single";
+            form.add("imagePath", singleImages.get(random.nextInt(singleImages.size())));
+        }
+
+        boolean success;
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+            ResponseEntity<Map> response = restTemplate.postForEntity(url, new HttpEntity<>(form, headers), Map.class);
+            success = response.getStatusCode().is2xxSuccessful() && isSuccess(response.getBody(), batch);
+        } catch (RestClientException e) {
+            success = false;
+        }
+
+        long latency = System.nanoTime() - intendedStartNanos;
+        if (batch) {
+            report.recordBatch(latency, success, settings.getBatchSize());
+        } else {
+            report.recordSingle(latency, success);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isSuccess(Map<String, Object> body, boolean batch) {
+        if (body == null || !Boolean.TRUE.equals(body.get("success"))) {
+            return false;
+        }
+        if (batch) {
+            return true;
+        }
+        Map<String, Object> result = (Map<String, Object>) body.get("result");
+        return result != null && Boolean.TRUE.equals(result.get("success"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.twx.ocr.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测结果：吞吐量和HdrHistogram延迟分位数
+ */
+public class LoadTestReport {
+
+    /**
+     * 最大可记录延迟10分钟，3位有效数字
+     */
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Histogram singleLatency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+
+    private final Histogram batchLatency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+
+    private final AtomicLong singleErrors = new AtomicLong();
+
+    private final AtomicLong batchErrors = new AtomicLong();
+
+    private final AtomicLong imagesProcessed = new AtomicLong();
+
+    private volatile long elapsedNanos;
+
+    public void recordSingle(long latencyNanos, boolean success) {
+        singleLatency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        if (success) {
+            imagesProcessed.incrementAndGet();
+        } else {
+            singleErrors.incrementAndGet();
+        }
+    }
+
+    public void recordBatch(long latencyNanos, boolean success, int images) {
+        batchLatency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        if (success) {
+            imagesProcessed.addAndGet(images);
+        } else {
+            batchErrors.incrementAndGet();
+        }
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getCompletedRequests() {
+        return singleLatency.getTotalCount() + batchLatency.getTotalCount();
+    }
+
+    public long getErrors() {
+        return singleErrors.get() + batchErrors.get();
+    }
+
+    public String format(LoadTestSettings settings) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        StringBuilder report = new StringBuilder();
+        report.append("==================== OCR压测报告 ====================\n");
+        report.append(settings).append('\n');
+        report.append(String.format(Locale.ROOT, "统计时长: %.1fs，完成请求: %d，错误: %d%n",
+                seconds, getCompletedRequests(), getErrors()));
+        report.append(String.format(Locale.ROOT, "吞吐量: %.1f 请求/s，%.1f 图片/s%n",
+                getCompletedRequests() / seconds, imagesProcessed.get() / seconds));
+        appendHistogram(report, "单图请求", singleLatency, singleErrors.get());
+        appendHistogram(report, "批量请求", batchLatency, batchErrors.get());
+        report.append("====================================================\n");
+        return report.toString();
+    }
+
+    private void appendHistogram(StringBuilder report, String name, Histogram histogram, long errors) {
+        if (histogram.getTotalCount() == 0) {
+            report.append(name).append(": 无请求\n");
+            return;
+        }
+        report.append(String.format(Locale.ROOT,
+                "%s: 次数=%d 错误=%d p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms%n",
+                name, histogram.getTotalCount(), errors,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.twx.ocr.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 压测参数，均可通过 -Dload.xxx 系统属性覆盖
+ */
+@Getter
+@Builder
+@ToString
+public class LoadTestSettings {
+
+    /**
+     * 压测持续时间（秒）
+     */
+    private final int durationSeconds;
+
+    /**
+     * 预热时间（秒），期间的请求不计入统计
+     */
+    private final int warmupSeconds;
+
+    /**
+     * 并发客户端数量
+     */
+    private final int concurrency;
+
+    /**
+     * 到达速率（请求/秒）；小于等于0时为闭环模式，每个客户端处理完立即发下一个请求
+     */
+    private final double arrivalRate;
+
+    /**
+     * 批量请求占比（0~1）
+     */
+    private final double batchRatio;
+
+    /**
+     * 每个批量请求包含的图片数
+     */
+    private final int batchSize;
+
+    /**
+     * 服务端工作进程数
+     */
+    private final int workers;
+
+    /**
+     * 假工作进程识别耗时中位数（毫秒）
+     */
+    private final int fakeLatencyMs;
+
+    /**
+     * 假工作进程耗时对数正态分布的sigma
+     */
+    private final double fakeLatencySigma;
+
+    /**
+     * 假工作进程返回识别失败的概率
+     */
+    private final double fakeFailureRate;
+
+    public static LoadTestSettings fromSystemProperties() {
+        return LoadTestSettings.builder()
+                .durationSeconds(Integer.getInteger("load.durationSeconds", 30))
+                .warmupSeconds(Integer.getInteger("load.warmupSeconds", 3))
+                .concurrency(Integer.getInteger("load.concurrency", 8))
+                .arrivalRate(doubleProperty("load.arrivalRate", 0))
+                .batchRatio(doubleProperty("load.batchRatio", 0.1))
+                .batchSize(Integer.getInteger("load.batchSize", 20))
+                .workers(Integer.getInteger("load.workers", 4))
+                .fakeLatencyMs(Integer.getInteger("load.fakeLatencyMs", 200))
+                .fakeLatencySigma(doubleProperty("load.fakeLatencySigma", 0.3))
+                .fakeFailureRate(doubleProperty("load.fakeFailureRate", 0.01))
+                .build();
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,99 @@
+package com.twx.ocr.loadtest;
+
+import com.twx.ocr.support.FakeWorkerSupport;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * OCR接口压测
+ * <p>
+ * 默认构建不运行，使用 mvn test -Pload-test 执行，参数见 {@link LoadTestSettings}。
+ * 服务端由假工作进程代替 ocr_classifier.py，不需要安装PaddleOCR。
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OcrLoadTest {
+
+    private static final LoadTestSettings SETTINGS = LoadTestSettings.fromSystemProperties();
+
+    @TempDir
+    static Path imageRoot;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @DynamicPropertySource
+    static void fakeWorkerProperties(DynamicPropertyRegistry registry) {
+        registry.add("ocr.python-path", () -> FakeWorkerSupport.PYTHON);
+        registry.add("ocr.script-path", FakeWorkerSupport::scriptPath);
+        registry.add("ocr.debug-mode", () -> false);
+        registry.add("ocr.worker-count", SETTINGS::getWorkers);
+        registry.add("ocr.min-ready-workers", SETTINGS::getWorkers);
+        // 假工作进程不占用CPU，并发上限按工作进程数而不是CPU配额
+        registry.add("ocr.concurrency-max-limit", SETTINGS::getWorkers);
+        registry.add("ocr.worker-environment[FAKE_OCR_LATENCY_MS]", SETTINGS::getFakeLatencyMs);
+        registry.add("ocr.worker-environment[FAKE_OCR_LATENCY_SIGMA]", SETTINGS::getFakeLatencySigma);
+        registry.add("ocr.worker-environment[FAKE_OCR_FAILURE_RATE]", SETTINGS::getFakeFailureRate);
+        // 结果文件写到target下，写盘仍在后台进行，压测结果包含其开销
+        registry.add("ocr.default-output-dir", () -> "target/load-test-output");
+        registry.add("logging.level.com.twx.ocr", () -> "WARN");
+    }
+
+    @BeforeAll
+    static void checkPython() {
+        assumeTrue(FakeWorkerSupport.pythonAvailable(), "未找到Python解释器，跳过压测");
+    }
+
+    @Test
+    void replayMixedTraffic() throws Exception {
+        awaitReadiness();
+
+        List<String> singleImages = FakeWorkerSupport.createImages(imageRoot.resolve("single"), 50);
+        List<String> batchDirectories = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Path directory = imageRoot.resolve("batch" + i);
+            FakeWorkerSupport.createImages(directory, SETTINGS.getBatchSize());
+            batchDirectories.add(directory.toString());
+        }
+
+        LoadTestReport report = new LoadGenerator(SETTINGS, restTemplate, singleImages, batchDirectories).run();
+
+        // 附上压测结束时的自适应并发上限，便于对照延迟分布调整并发配置
+        String text = report.format(SETTINGS) + System.lineSeparator()
+                + "调度指标: " + restTemplate.getForObject("/api/ocr/metrics", String.class) + System.lineSeparator();
+        System.out.println(text);
+        Files.write(Paths.get("target", "load-test-report.txt"), text.getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(report.getCompletedRequests() > 0);
+    }
+
+    private void awaitReadiness() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            if (restTemplate.getForEntity("/api/ocr/health/readiness", String.class).getStatusCode() == HttpStatus.OK) {
+                return;
+            }
+            Thread.sleep(200);
+        }
+        fail("工作进程未在60秒内就绪");
+    }
+}
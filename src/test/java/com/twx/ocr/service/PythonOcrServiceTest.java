@@ -1,17 +1,61 @@
 package com.twx.ocr.service;
 
+import com.twx.ocr.classification.Classification;
+import com.twx.ocr.classification.DocumentClassifier;
 import com.twx.ocr.config.OcrConfig;
 import com.twx.ocr.dto.OcrRequest;
 import com.twx.ocr.dto.OcrResponse;
+import com.twx.ocr.dto.OutputMode;
+import com.twx.ocr.dto.ProcessingMode;
+import com.twx.ocr.engine.EngineResult;
+import com.twx.ocr.engine.OcrEngine;
+import com.twx.ocr.engine.OcrTask;
+import com.twx.ocr.extraction.FieldExtractionService;
+import com.twx.ocr.service.batch.BatchResultStore;
+import com.twx.ocr.service.batch.ImageCostModel;
+import com.twx.ocr.service.concurrency.OcrDispatcher;
 import com.twx.ocr.service.impl.PythonOcrService;
+import com.twx.ocr.service.output.ResultOutputWriter;
+import com.twx.ocr.service.preflight.PreflightFilter;
+import com.twx.ocr.tracing.Span;
+import com.twx.ocr.tracing.Trace;
+import com.twx.ocr.tracing.Tracer;
+import com.twx.ocr.util.FileUtils;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -23,18 +67,311 @@ class PythonOcrServiceTest {
     @Mock
     private OcrConfig ocrConfig;
     
-    @InjectMocks
+    @Mock
+    private OcrEngine ocrEngine;
+    
+    @Mock
+    private DocumentClassifier documentClassifier;
+    
+    @Mock
+    private FieldExtractionService fieldExtractionService;
+    
+    @Mock
+    private BatchResultStore batchResultStore;
+    
+    @Mock
+    private OcrDispatcher ocrDispatcher;
+    
+    @Mock
+    private Tracer tracer;
+    
+    @Mock
+    private ResultOutputWriter outputWriter;
+    
     private PythonOcrService pythonOcrService;
     
+    @TempDir
+    Path tempDir;
+    
+    private ImageCostModel imageCostModel;
+    
     @BeforeEach
     void setUp() {
         // 设置默认配置
-        when(ocrConfig.getPythonPath()).thenReturn("python");
-        when(ocrConfig.getScriptPath()).thenReturn("src/main/resources/python/ocr_classifier.py");
-        when(ocrConfig.getTimeoutSeconds()).thenReturn(300);
-        when(ocrConfig.getDebugMode()).thenReturn(false);
-        when(ocrConfig.getSupportedFormats()).thenReturn(new String[]{"jpg", "jpeg", "png", "bmp", "tiff", "webp"});
-        when(ocrConfig.getMaxFileSizeMb()).thenReturn(10);
+        lenient().when(ocrConfig.getPythonPath()).thenReturn("python");
+        lenient().when(ocrConfig.getScriptPath()).thenReturn("src/main/resources/python/ocr_classifier.py");
+        lenient().when(ocrConfig.getTimeoutSeconds()).thenReturn(300);
+        lenient().when(ocrConfig.getDebugMode()).thenReturn(false);
+        lenient().when(ocrConfig.getSupportedFormats())
+                .thenReturn(new String[]{"jpg", "jpeg", "png", "bmp", "tiff", "webp"});
+        lenient().when(ocrConfig.getMaxFileSizeMb()).thenReturn(10);
+        lenient().when(tracer.start(anyString()))
+                .thenAnswer(invocation -> new Trace(null, null, invocation.getArgument(0)));
+        lenient().when(ocrConfig.getClassifyMaxSideLen()).thenReturn(640);
+        lenient().when(ocrConfig.getClassifyMaxRegions()).thenReturn(8);
+        lenient().when(ocrConfig.getClassifyEarlyExitScore()).thenReturn(3);
+        lenient().when(ocrConfig.getClassifyMinMargin()).thenReturn(2);
+        lenient().when(ocrConfig.getPreflightMinSidePx()).thenReturn(16);
+        lenient().when(ocrConfig.getPreflightMaxMegapixels()).thenReturn(100);
+        lenient().when(ocrConfig.getPreflightDedupEnabled()).thenReturn(true);
+        lenient().when(ocrConfig.getArchiveReadAhead()).thenReturn(2);
+        lenient().when(ocrConfig.getBatchLongestFirstEnabled()).thenReturn(true);
+        lenient().when(outputWriter.resolveMode(any())).thenReturn(OutputMode.OFF);
+        lenient().when(outputWriter.submit(any())).thenReturn(true);
+        imageCostModel = new ImageCostModel();
+        pythonOcrService = new PythonOcrService(ocrConfig, ocrEngine, documentClassifier, fieldExtractionService,
+                batchResultStore, ocrDispatcher, tracer, new PreflightFilter(ocrConfig), outputWriter, imageCostModel);
+    }
+    
+    @Test
+    void testBatchSkipsRejectedAndDuplicateFiles() throws Exception {
+        // 空文件和伪装成图片的文本文件不分派，重复文件复用第一个文件的结果
+        Path directory = Files.createDirectory(tempDir.resolve("batch"));
+        writeImage(directory.resolve("a.png").toFile());
+        Files.copy(directory.resolve("a.png"), directory.resolve("b.png"));
+        Files.createFile(directory.resolve("empty.jpg"));
+        Files.write(directory.resolve("fake.jpg"), "not an image".getBytes(StandardCharsets.UTF_8));
+        mockDispatcherSubmitsInline();
+        when(ocrEngine.recognize(any())).thenReturn(EngineResult.builder()
+                .documentType("身份证").recTexts(Arrays.asList("居民身份证")).build());
+        when(documentClassifier.classify(any())).thenReturn(new Classification("身份证", 1, 0, "低"));
+        
+        OcrResponse response = pythonOcrService.processBatchImages(directory.toString(), new OcrRequest());
+        
+        assertTrue(response.getSuccess());
+        assertEquals(4, response.getTotalProcessed());
+        assertEquals(2, response.getSuccessCount());
+        assertEquals(1, response.getDuplicateCount());
+        assertEquals(Integer.valueOf(1), response.getRejectionCounts().get("EMPTY_FILE"));
+        assertEquals(Integer.valueOf(1), response.getRejectionCounts().get("UNSUPPORTED_FORMAT"));
+        verify(ocrEngine, times(1)).recognize(any(OcrTask.class));
+        assertTrue(response.getResults().stream().anyMatch(result -> result.getDuplicateOf() != null
+                && "身份证".equals(result.getDocumentType())));
+    }
+    
+    @Test
+    void testBatchDispatchesLargestImagesFirstAndKeepsDirectoryOrder() throws Exception {
+        // 耗时模型尚无样本时按像素数排序，最大的图片最先分派，结果仍按目录顺序返回
+        Path directory = Files.createDirectory(tempDir.resolve("sizes"));
+        writeImage(directory.resolve("a.png").toFile(), 40, 40);
+        writeImage(directory.resolve("b.png").toFile(), 400, 300);
+        writeImage(directory.resolve("c.png").toFile(), 100, 100);
+        List<String> dispatched = new ArrayList<>();
+        mockDispatcherSubmitsInline();
+        when(ocrEngine.recognize(any())).thenAnswer(invocation -> {
+            dispatched.add(new File(((OcrTask) invocation.getArgument(0)).getImagePath()).getName());
+            return EngineResult.builder().documentType("身份证").recTexts(Arrays.asList("居民身份证")).build();
+        });
+        when(documentClassifier.classify(any())).thenReturn(new Classification("身份证", 1, 0, "低"));
+        
+        OcrResponse response = pythonOcrService.processBatchImages(directory.toString(), new OcrRequest());
+        
+        assertEquals(Arrays.asList("b.png", "c.png", "a.png"), dispatched);
+        assertEquals(FileUtils.getImageFiles(directory.toString(), ocrConfig.getSupportedFormats()),
+                response.getResults().stream().map(result -> result.getImagePath()).collect(Collectors.toList()));
+    }
+    
+    @Test
+    void testArchiveEntriesAreRecognizedInMemory() throws Exception {
+        // 压缩包条目不解压到磁盘，以内容提交识别，结果按条目名称报告
+        byte[] png = Files.readAllBytes(Paths.get(createImage()));
+        Path archive = tempDir.resolve("scans.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (String name : Arrays.asList("page1.png", "sub/page2.png", "copy.png", "readme.txt")) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write("readme.txt".equals(name) ? "text".getBytes(StandardCharsets.UTF_8) : png);
+                zip.closeEntry();
+            }
+        }
+        mockDispatcherSubmitsInline();
+        when(ocrEngine.recognize(any())).thenReturn(EngineResult.builder()
+                .documentType("身份证").recTexts(Arrays.asList("居民身份证")).build());
+        when(documentClassifier.classify(any())).thenReturn(new Classification("身份证", 1, 0, "低"));
+        
+        OcrResponse response = pythonOcrService.processBatchImages(archive.toString(), new OcrRequest());
+        
+        assertTrue(response.getSuccess());
+        assertEquals(3, response.getTotalProcessed());
+        assertEquals(Arrays.asList("page1.png", "sub/page2.png", "copy.png"), response.getResults().stream()
+                .map(result -> result.getImagePath()).collect(Collectors.toList()));
+        assertEquals("page1.png", response.getResults().get(1).getDuplicateOf());
+        verify(ocrEngine, times(1)).recognize(argThat(task -> task.getImageBytes() != null
+                && "page1.png".equals(task.getImagePath())));
+    }
+    
+    @Test
+    void testArchiveDuplicateUsesEntryIndexNotName() throws Exception {
+        // 同名条目中第一个被识别、第二个被拒绝，内容与第一个相同的条目应复用第一个的结果
+        byte[] png = Files.readAllBytes(Paths.get(createImage()));
+        Path archive = tempDir.resolve("scans.tar");
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(Files.newOutputStream(archive))) {
+            List<String> names = Arrays.asList("page.png", "page.png", "copy.png");
+            List<byte[]> contents = Arrays.asList(png, "text".getBytes(StandardCharsets.UTF_8), png);
+            for (int i = 0; i < names.size(); i++) {
+                byte[] content = contents.get(i);
+                TarArchiveEntry entry = new TarArchiveEntry(names.get(i));
+                entry.setSize(content.length);
+                tar.putArchiveEntry(entry);
+                tar.write(content);
+                tar.closeArchiveEntry();
+            }
+        }
+        mockDispatcherSubmitsInline();
+        when(ocrEngine.recognize(any())).thenReturn(EngineResult.builder()
+                .documentType("身份证").recTexts(Arrays.asList("居民身份证")).build());
+        when(documentClassifier.classify(any())).thenReturn(new Classification("身份证", 1, 0, "低"));
+        
+        OcrResponse response = pythonOcrService.processBatchImages(archive.toString(), new OcrRequest());
+        
+        assertEquals(Arrays.asList("page.png", "page.png", "copy.png"), response.getResults().stream()
+                .map(result -> result.getImagePath()).collect(Collectors.toList()));
+        assertFalse(response.getResults().get(1).getSuccess());
+        assertTrue(response.getResults().get(2).getSuccess());
+        assertEquals("page.png", response.getResults().get(2).getDuplicateOf());
+    }
+    
+    @Test
+    void testClassifyModeExitsEarlyWhenConfident() throws Exception {
+        // 快速识别的分类结果明确时不再做完整识别
+        String imagePath = createImage();
+        List<String> quickTexts = Arrays.asList("中华人民共和国", "居民身份证", "公民身份号码11010519491231002X");
+        mockDispatcherRunsInline();
+        when(ocrEngine.recognize(any())).thenReturn(EngineResult.builder().recTexts(quickTexts).build());
+        when(documentClassifier.classify(quickTexts)).thenReturn(new Classification("身份证", 5, 0, "高"));
+        
+        OcrResponse response = pythonOcrService.processSingleImage(imagePath, classifyOptions());
+        
+        assertTrue(response.getSuccess());
+        assertEquals("身份证", response.getResult().getDocumentType());
+        assertEquals("early", response.getResult().getProcessingPath());
+        assertNull(response.getResult().getRecTexts());
+        verify(ocrEngine, times(1)).recognize(argThat(task -> task.getMaxSideLen() != null));
+        verify(ocrEngine, never()).recognize(argThat(task -> task.getMaxSideLen() == null));
+    }
+    
+    @Test
+    void testClassifyModeFallsBackToFullPassWhenAmbiguous() throws Exception {
+        // “签发机关”同时属于身份证和护照，快速识别有歧义时在原图上完整识别
+        String imagePath = createImage();
+        List<String> quickTexts = Arrays.asList("签发机关");
+        List<String> fullTexts = Arrays.asList("中华人民共和国护照", "PASSPORT", "签发机关", "签发日期");
+        mockDispatcherRunsInline();
+        when(ocrEngine.recognize(argThat(task -> task != null && task.getMaxSideLen() != null)))
+                .thenReturn(EngineResult.builder().recTexts(quickTexts).build());
+        when(ocrEngine.recognize(argThat(task -> task != null && task.getMaxSideLen() == null)))
+                .thenReturn(EngineResult.builder().recTexts(fullTexts).build());
+        when(documentClassifier.classify(quickTexts)).thenReturn(new Classification("身份证", 1, 1, "低"));
+        when(documentClassifier.classify(fullTexts)).thenReturn(new Classification("护照", 4, 1, "高"));
+        
+        OcrResponse response = pythonOcrService.processSingleImage(imagePath, classifyOptions());
+        
+        assertTrue(response.getSuccess());
+        assertEquals("护照", response.getResult().getDocumentType());
+        assertEquals("full", response.getResult().getProcessingPath());
+        verify(ocrEngine, times(2)).recognize(any(OcrTask.class));
+    }
+    
+    @Test
+    void testVisualizationOutputRequestsBoxesAndIsSubmittedAfterRecognition() throws Exception {
+        // 识别只返回结果和文本区域，结果文件由写盘线程处理
+        String imagePath = createImage();
+        OcrRequest options = new OcrRequest();
+        options.setOutputMode(OutputMode.JSON_WITH_VISUALIZATION);
+        options.setOutputDir("results");
+        when(outputWriter.resolveMode(options)).thenReturn(OutputMode.JSON_WITH_VISUALIZATION);
+        when(outputWriter.resolveOutputDir(options)).thenReturn("results");
+        mockDispatcherRunsInline();
+        when(ocrEngine.recognize(any())).thenReturn(EngineResult.builder()
+                .recTexts(Arrays.asList("居民身份证")).boxes(Arrays.asList(new Rectangle(1, 2, 30, 10))).build());
+        when(documentClassifier.classify(any())).thenReturn(new Classification("身份证", 1, 0, "低"));
+        
+        OcrResponse response = pythonOcrService.processSingleImage(imagePath, options);
+        
+        assertTrue(response.getSuccess());
+        verify(ocrEngine).recognize(argThat(OcrTask::isReturnBoxes));
+        verify(outputWriter).submit(argThat(record -> record.getMode() == OutputMode.JSON_WITH_VISUALIZATION
+                && "results".equals(record.getOutputDir())
+                && "身份证".equals(record.getDocumentType())
+                && record.getBoxes().size() == 1
+                && !record.isArchiveEntry()));
+        assertNull(response.getResult().getOutputDropped());
+    }
+    
+    @Test
+    void testCostModelLearnsWorkerTimeFromBatchesOnly() throws Exception {
+        // 耗时模型只使用批量任务中引擎上报的耗时，单张识别不记录
+        Path directory = Files.createDirectory(tempDir.resolve("costs"));
+        writeImage(directory.resolve("a.png").toFile(), 40, 40);
+        writeImage(directory.resolve("b.png").toFile(), 80, 60);
+        mockDispatcherSubmitsInline();
+        mockDispatcherRunsInline();
+        when(ocrEngine.recognize(any())).thenReturn(EngineResult.builder()
+                .recTexts(Arrays.asList("居民身份证")).elapsedMs(120L).build());
+        when(documentClassifier.classify(any())).thenReturn(new Classification("身份证", 1, 0, "低"));
+        
+        pythonOcrService.processSingleImage(createImage(), new OcrRequest());
+        assertEquals(0, imageCostModel.getSamples());
+        
+        pythonOcrService.processBatchImages(directory.toString(), new OcrRequest());
+        assertEquals(2, imageCostModel.getSamples());
+    }
+    
+    @Test
+    void testDroppedOutputIsFlaggedInResult() throws Exception {
+        // 写盘队列满时结果仍正常返回，但标记未保存
+        String imagePath = createImage();
+        when(outputWriter.resolveMode(any())).thenReturn(OutputMode.JSON);
+        when(outputWriter.submit(any())).thenReturn(false);
+        mockDispatcherRunsInline();
+        when(ocrEngine.recognize(any())).thenReturn(EngineResult.builder()
+                .recTexts(Arrays.asList("居民身份证")).build());
+        when(documentClassifier.classify(any())).thenReturn(new Classification("身份证", 1, 0, "低"));
+        
+        OcrResponse response = pythonOcrService.processSingleImage(imagePath, new OcrRequest());
+        
+        assertTrue(response.getSuccess());
+        assertTrue(response.getResult().getOutputDropped());
+    }
+    
+    private OcrRequest classifyOptions() {
+        OcrRequest options = new OcrRequest();
+        options.setMode(ProcessingMode.CLASSIFY);
+        return options;
+    }
+    
+    private String createImage() throws IOException {
+        File image = tempDir.resolve("document.png").toFile();
+        writeImage(image);
+        return image.getPath();
+    }
+    
+    private void writeImage(File file) throws IOException {
+        writeImage(file, 64, 48);
+    }
+    
+    private void writeImage(File file, int width, int height) throws IOException {
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", file);
+    }
+    
+    /**
+     * 单张识别在调用线程上直接执行；完整识别走对冲调用，CLASSIFY模式走普通调用，每个测试只用到其中之一
+     */
+    @SuppressWarnings("unchecked")
+    private void mockDispatcherRunsInline() throws Exception {
+        lenient().when(ocrDispatcher.hedgedCall(anyLong(), any(), any())).thenAnswer(invocation ->
+                ((OcrDispatcher.Hedged<EngineResult>) invocation.getArgument(2))
+                        .attempt(invocation.getArgument(1), false).call());
+        lenient().when(ocrDispatcher.call(anyLong(), any(), any())).thenAnswer(invocation ->
+                ((OcrDispatcher.Call<EngineResult>) invocation.getArgument(2)).call());
+    }
+    
+    /**
+     * 批量识别提交的任务在调用线程上直接执行
+     */
+    @SuppressWarnings("unchecked")
+    private void mockDispatcherSubmitsInline() throws Exception {
+        when(ocrDispatcher.submit(anyLong(), any(), any(), any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(((OcrDispatcher.Call<EngineResult>) invocation.getArgument(3)).call()));
     }
     
     @Test
@@ -71,4 +408,18 @@ class PythonOcrServiceTest {
         assertFalse(response.getSuccess());
         assertNotNull(response.getErrorMessage());
     }
+    
+    @Test
+    void testProcessSingleImageReturnsTraceIdAndTimings() {
+        // 校验失败时也返回链路编号，请求耗时时返回各阶段耗时
+        OcrRequest options = new OcrRequest();
+        options.setIncludeTimings(true);
+        
+        OcrResponse response = pythonOcrService.processSingleImage("non_existent_file.jpg", options);
+        
+        assertFalse(response.getSuccess());
+        assertEquals(32, response.getTraceId().length());
+        assertTrue(response.getTimings().containsKey("validate"));
+        assertTrue(response.getTimings().containsKey("total"));
+    }
 }
@@ -0,0 +1,72 @@
+package com.twx.ocr.service.batch;
+
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.DocumentClassificationResult;
+import com.twx.ocr.exception.OcrException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分页批量结果存储测试类
+ */
+class BatchResultStoreTest {
+
+    private final BatchResultStore batchResultStore = new BatchResultStore(new OcrConfig());
+
+    @Test
+    void testPagesFollowCursorUntilExhausted() {
+        List<DocumentClassificationResult> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(DocumentClassificationResult.builder().imagePath("image" + i + ".jpg").success(true).build());
+        }
+        BatchResultStore.StoredBatch batch = new BatchResultStore.StoredBatch(results, 5, 0);
+        String batchId = batchResultStore.save(batch);
+
+        BatchResultStore.Page first = BatchResultStore.slice(batchId, batch, 0, 2);
+        assertEquals(2, first.getResults().size());
+        assertNotNull(first.getNextCursor());
+
+        BatchResultStore.Page second = batchResultStore.page(first.getNextCursor(), 2);
+        assertEquals("image2.jpg", second.getResults().get(0).getImagePath());
+
+        BatchResultStore.Page last = batchResultStore.page(second.getNextCursor(), 2);
+        assertEquals(1, last.getResults().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void testInvalidCursorIsRejected() {
+        assertThrows(OcrException.class, () -> batchResultStore.page("not-a-cursor", 10));
+        assertThrows(OcrException.class, () -> batchResultStore.page(BatchResultStore.encodeCursor("missing", 0), 10));
+    }
+
+    @Test
+    void testOldestBatchIsEvictedWhenSizeLimitExceeded() {
+        OcrConfig config = new OcrConfig();
+        config.setBatchResultMaxMb(1L);
+        BatchResultStore store = new BatchResultStore(config);
+
+        // 每个批次约600KB，第二个批次存入后超过1MB上限，最早的批次被淘汰
+        String first = store.save(largeBatch(600 * 1024));
+        String second = store.save(largeBatch(600 * 1024));
+
+        assertThrows(OcrException.class, () -> store.page(BatchResultStore.encodeCursor(first, 0), 10));
+        assertEquals(1, store.page(BatchResultStore.encodeCursor(second, 0), 10).getResults().size());
+        assertTrue(store.getStoredBytes() >= 600 * 1024 && store.getStoredBytes() <= 1024 * 1024);
+    }
+
+    private static BatchResultStore.StoredBatch largeBatch(int textLength) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < textLength; i++) {
+            text.append('a');
+        }
+        DocumentClassificationResult result = DocumentClassificationResult.builder()
+                .imagePath("large.jpg").recTexts(Collections.singletonList(text.toString())).success(true).build();
+        return new BatchResultStore.StoredBatch(Collections.singletonList(result), 1, 0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.twx.ocr.service.batch;
+
+import com.twx.ocr.service.preflight.PreflightResult;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Dimension;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片识别耗时模型测试类
+ */
+class ImageCostModelTest {
+
+    private final ImageCostModel model = new ImageCostModel();
+
+    @Test
+    void testFallsBackToPixelsUntilEnoughSamples() {
+        PreflightResult small = image(1000, 1000, 4_000_000);
+        PreflightResult large = image(2000, 2000, 100_000);
+
+        double[] costs = model.estimate(Arrays.asList(small, large));
+
+        assertNull(model.coefficients());
+        assertEquals(1.0, costs[0], 1e-9);
+        assertEquals(4.0, costs[1], 1e-9);
+    }
+
+    @Test
+    void testLearnsCostFromPastTimings() {
+        // 耗时 = 100ms + 每百万像素50ms + 每MB文件200ms（文字密集的扫描件压缩后更大，识别更慢）
+        for (int i = 0; i < 60; i++) {
+            int side = 500 + (i % 6) * 300;
+            long sizeBytes = (i % 5 + 1) * 512L * 1024;
+            double megapixels = side * side / 1_000_000.0;
+            long elapsedMs = Math.round(100 + 50 * megapixels + 200 * sizeBytes / (1024.0 * 1024));
+            model.record(image(side, side, sizeBytes), elapsedMs);
+        }
+
+        double[] coefficients = model.coefficients();
+        assertEquals(100, coefficients[0], 5);
+        assertEquals(50, coefficients[1], 2);
+        assertEquals(200, coefficients[2], 5);
+
+        // 像素少但文件大的扫描件预测耗时更长，排在前面
+        PreflightResult sparse = image(2000, 2000, 200_000);
+        PreflightResult dense = image(1000, 1000, 3 * 1024 * 1024);
+        double[] costs = model.estimate(Arrays.asList(sparse, dense));
+        assertEquals(100 + 50 * 4 + 200 * 200_000 / (1024.0 * 1024), costs[0], 10);
+        assertTrue(costs[1] > costs[0]);
+    }
+
+    private static PreflightResult image(int width, int height, long sizeBytes) {
+        return PreflightResult.builder()
+                .imagePath(width + "x" + height + ".png")
+                .detectedFormat("png")
+                .sizeBytes(sizeBytes)
+                .dimension(new Dimension(width, height))
+                .estimatedDecodedBytes((long) width * height * 3)
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.twx.ocr.service.concurrency;
+
+import com.twx.ocr.exception.OcrException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 自适应并发限制器测试类
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void testInitialLimitIsClamped() {
+        assertEquals(4, new AdaptiveConcurrencyLimiter(1, 4, 10, 1.5).getLimit());
+        assertEquals(2, new AdaptiveConcurrencyLimiter(2, 4, 0, 1.5).getLimit());
+    }
+
+    @Test
+    void testAcquireTimesOutWhenLimitReached() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1.5);
+        long startNanos = limiter.acquire(100);
+
+        assertThrows(OcrException.class, () -> limiter.acquire(50));
+
+        limiter.release(startNanos, false);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyIsStable() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 16, 2, 1.5);
+        for (int i = 0; i < 50; i++) {
+            // 保持并发用满，耗时稳定时应逐步放大
+            int limit = limiter.getLimit();
+            for (int j = 0; j < limit; j++) {
+                limiter.acquire(100);
+            }
+            for (int j = 0; j < limit; j++) {
+                limiter.release(100.0, false);
+            }
+        }
+
+        assertEquals(16, limiter.getLimit());
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 16, 8, 1.5);
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(100);
+            limiter.release(100.0, false);
+        }
+        for (int i = 0; i < 30; i++) {
+            // 并发用满且耗时翻了数倍，说明已过载
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                limiter.acquire(100);
+            }
+            int limit = limiter.getLimit();
+            for (int j = 0; j < limit; j++) {
+                limiter.release(800.0, false);
+            }
+        }
+
+        assertTrue(limiter.getLimit() < 8);
+    }
+
+    @Test
+    void testLimitShrinksOnDrops() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 16, 16, 1.5);
+        for (int i = 0; i < 30; i++) {
+            limiter.acquire(100);
+            limiter.release(100.0, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void testParseCgroupQuota() {
+        assertNull(CpuQuota.parseCgroupV2("max 100000\n"));
+        assertEquals(1.5, CpuQuota.parseCgroupV2("150000 100000\n"), 1e-9);
+        assertNull(CpuQuota.parseCgroupV1("-1", "100000"));
+        assertEquals(2.0, CpuQuota.parseCgroupV1("200000\n", "100000\n"), 1e-9);
+        assertTrue(CpuQuota.effectiveProcessors() >= 1);
+    }
+}
@@ -0,0 +1,56 @@
+package com.twx.ocr.service.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 对冲策略测试类
+ */
+class HedgePolicyTest {
+
+    @Test
+    void testDelayFollowsPercentileOnceEnoughSamples() {
+        HedgePolicy policy = new HedgePolicy(true, 90, 10, 0.1);
+        assertEquals(-1, policy.begin(4));
+
+        for (int i = 1; i <= 100; i++) {
+            policy.record(i);
+        }
+
+        assertEquals(90, policy.begin(4));
+        // 分位数低于下限时按下限等待
+        HedgePolicy fast = new HedgePolicy(true, 90, 50, 0.1);
+        for (int i = 0; i < HedgePolicy.MIN_SAMPLES; i++) {
+            fast.record(5);
+        }
+        assertEquals(50, fast.currentDelayMs());
+    }
+
+    @Test
+    void testBudgetLimitsHedgesToRatioOfRequests() {
+        HedgePolicy policy = new HedgePolicy(true, 95, 0, 0.1);
+        int hedges = 0;
+        for (int i = 0; i < 100; i++) {
+            policy.begin(4);
+            if (policy.tryConsume()) {
+                hedges++;
+            }
+        }
+
+        // 每10个请求积累一个令牌
+        assertEquals(10, hedges);
+        assertEquals(90, policy.getSkipped());
+    }
+
+    @Test
+    void testDisabledPolicyNeverHedges() {
+        HedgePolicy policy = new HedgePolicy(false, 95, 0, 0.1);
+        for (int i = 0; i < 100; i++) {
+            policy.record(10);
+        }
+
+        assertEquals(-1, policy.begin(4));
+        assertEquals(0, policy.getRequests());
+    }
+}
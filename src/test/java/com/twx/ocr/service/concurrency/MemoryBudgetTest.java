@@ -0,0 +1,59 @@
+package com.twx.ocr.service.concurrency;
+
+import com.twx.ocr.exception.OcrException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存预算测试类
+ */
+class MemoryBudgetTest {
+
+    @Test
+    void testAcquireWaitsUntilReleased() throws InterruptedException {
+        MemoryBudget budget = new MemoryBudget(100);
+        budget.acquire(60, 100);
+
+        assertThrows(OcrException.class, () -> budget.acquire(60, 50));
+
+        budget.release(60);
+        budget.acquire(60, 100);
+        assertEquals(60, budget.getUsedBytes());
+    }
+
+    @Test
+    void testOversizedTaskRunsAlone() throws InterruptedException {
+        MemoryBudget budget = new MemoryBudget(100);
+        budget.acquire(500, 100);
+        assertEquals(500, budget.getUsedBytes());
+
+        assertThrows(OcrException.class, () -> budget.acquire(1, 50));
+    }
+
+    @Test
+    void testReservedBytesBlockNewWork() {
+        MemoryBudget budget = new MemoryBudget(100);
+        budget.reserve(100);
+
+        assertThrows(OcrException.class, () -> budget.acquire(10, 50));
+
+        budget.release(100);
+        assertEquals(0, budget.getUsedBytes());
+    }
+
+    @Test
+    void testBatchIsNotBlockedByItsOwnBufferedResults() throws InterruptedException {
+        MemoryBudget budget = new MemoryBudget(100);
+        MemoryBudget.Reservation buffered = new MemoryBudget.Reservation();
+        budget.reserve(buffered, 100);
+
+        // 同一批次的任务不计自己缓存的结果，其他请求仍需等待
+        budget.acquire(60, 50, buffered);
+        assertThrows(OcrException.class, () -> budget.acquire(10, 50));
+        budget.release(60);
+
+        budget.release(buffered);
+        assertEquals(0, budget.getUsedBytes());
+    }
+}
@@ -0,0 +1,165 @@
+package com.twx.ocr.service.concurrency;
+
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.OcrMetrics;
+import com.twx.ocr.tracing.Span;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OCR识别调度器测试类
+ */
+class OcrDispatcherTest {
+
+    private OcrDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void testSlowRequestIsHedgedAndLoserCancelled() throws Exception {
+        dispatcher = new OcrDispatcher(hedgingConfig(0.5));
+        warmUp();
+
+        // 主请求卡住，对冲请求立即返回，主请求随后被取消
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+        String result = dispatcher.hedgedCall(0, null, (span, hedge) -> () -> {
+            if (hedge) {
+                return "hedge";
+            }
+            try {
+                Thread.sleep(10_000);
+                return "primary";
+            } catch (InterruptedException e) {
+                primaryCancelled.countDown();
+                throw e;
+            }
+        });
+
+        assertEquals("hedge", result);
+        assertTrue(primaryCancelled.await(5, TimeUnit.SECONDS));
+        OcrMetrics metrics = dispatcher.metrics();
+        assertEquals(1L, metrics.getHedgesFired());
+        assertEquals(1L, metrics.getHedgesWon());
+        waitForIdlePermits();
+    }
+
+    @Test
+    void testNoHedgeWithoutBudget() throws Exception {
+        // 预算比例极小，令牌不足时慢请求也不对冲
+        dispatcher = new OcrDispatcher(hedgingConfig(0.001));
+        warmUp();
+        dispatcher.hedgedCall(0, null, (span, hedge) -> () -> "warm");
+
+        AtomicInteger attempts = new AtomicInteger();
+        String result = dispatcher.hedgedCall(0, null, (span, hedge) -> {
+            attempts.incrementAndGet();
+            return () -> {
+                Thread.sleep(100);
+                return "primary";
+            };
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0L, dispatcher.metrics().getHedgesFired());
+        assertTrue(dispatcher.metrics().getHedgesSkipped() >= 1);
+    }
+
+    @Test
+    void testNoHedgeWithoutIdleCapacity() throws Exception {
+        // 没有空闲工作进程时对冲只会排队，不发出并退还令牌
+        dispatcher = new OcrDispatcher(hedgingConfig(0.5));
+        warmUp();
+
+        AtomicInteger attempts = new AtomicInteger();
+        String result = dispatcher.hedgedCall(0, null, new OcrDispatcher.Hedged<String>() {
+            @Override
+            public OcrDispatcher.Call<String> attempt(Span span, boolean hedge) {
+                attempts.incrementAndGet();
+                return () -> {
+                    Thread.sleep(100);
+                    return "primary";
+                };
+            }
+
+            @Override
+            public boolean hasIdleCapacity() {
+                return false;
+            }
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0L, dispatcher.metrics().getHedgesFired());
+        assertTrue(dispatcher.metrics().getHedgesSkipped() >= 1);
+    }
+
+    @Test
+    void testFailedResultWaitsForOtherAttempt() throws Exception {
+        // 对冲请求先返回但结果失败，以随后成功的主请求为准
+        dispatcher = new OcrDispatcher(hedgingConfig(0.5));
+        warmUp();
+
+        String result = dispatcher.hedgedCall(0, null, new OcrDispatcher.Hedged<String>() {
+            @Override
+            public OcrDispatcher.Call<String> attempt(Span span, boolean hedge) {
+                return () -> {
+                    if (hedge) {
+                        return "error";
+                    }
+                    Thread.sleep(200);
+                    return "primary";
+                };
+            }
+
+            @Override
+            public boolean isFailure(String result) {
+                return "error".equals(result);
+            }
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1L, dispatcher.metrics().getHedgesFired());
+        assertEquals(0L, dispatcher.metrics().getHedgesWon());
+        waitForIdlePermits();
+    }
+
+    private OcrConfig hedgingConfig(double budgetRatio) {
+        OcrConfig config = new OcrConfig();
+        config.setConcurrencyMaxLimit(4);
+        config.setConcurrencyInitialLimit(4);
+        config.setHedgeEnabled(true);
+        config.setHedgePercentile(95.0);
+        config.setHedgeMinDelayMs(20L);
+        config.setHedgeBudgetRatio(budgetRatio);
+        return config;
+    }
+
+    /**
+     * 积累足够的耗时样本，之后的请求才会对冲
+     */
+    private void warmUp() throws Exception {
+        for (int i = 0; i < HedgePolicy.MIN_SAMPLES; i++) {
+            assertEquals("ok", dispatcher.hedgedCall(0, null, (span, hedge) -> () -> "ok"));
+        }
+    }
+
+    private void waitForIdlePermits() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.metrics().getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, dispatcher.metrics().getInFlight());
+    }
+}
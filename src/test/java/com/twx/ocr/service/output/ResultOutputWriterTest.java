@@ -0,0 +1,113 @@
+package com.twx.ocr.service.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.dto.OcrRequest;
+import com.twx.ocr.dto.OutputMode;
+import com.twx.ocr.exception.OcrException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 结果异步落盘测试类
+ */
+class ResultOutputWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final OcrConfig ocrConfig = new OcrConfig();
+
+    @Test
+    void testResolveModeHonoursRequest() {
+        ResultOutputWriter writer = new ResultOutputWriter(ocrConfig);
+        OcrRequest options = new OcrRequest();
+
+        assertEquals(OutputMode.JSON, writer.resolveMode(options));
+        options.setSaveToFile(false);
+        assertEquals(OutputMode.OFF, writer.resolveMode(options));
+        options.setOutputMode(OutputMode.JSON_WITH_VISUALIZATION);
+        assertEquals(OutputMode.JSON_WITH_VISUALIZATION, writer.resolveMode(options));
+        options.setOutputDir("");
+        assertEquals(ocrConfig.getDefaultOutputDir(), writer.resolveOutputDir(options));
+    }
+
+    @Test
+    void testOutputDirMustStayUnderDefaultDir() {
+        ocrConfig.setDefaultOutputDir(tempDir.resolve("output").toString());
+        ResultOutputWriter writer = new ResultOutputWriter(ocrConfig);
+        OcrRequest options = new OcrRequest();
+
+        options.setOutputDir("reports/2024/../today");
+        assertEquals(tempDir.resolve("output").resolve("reports").resolve("today").toAbsolutePath().toString(),
+                writer.resolveOutputDir(options));
+        for (String outside : Arrays.asList(tempDir.resolve("elsewhere").toString(), "../elsewhere",
+                "reports/../../elsewhere")) {
+            options.setOutputDir(outside);
+            assertThrows(OcrException.class, () -> writer.resolveOutputDir(options), outside);
+        }
+    }
+
+    @Test
+    void testWritesJsonAndVisualizationInBackground() throws Exception {
+        ResultOutputWriter writer = new ResultOutputWriter(ocrConfig);
+        writer.start();
+        Path image = tempDir.resolve("idcard.png");
+        ImageIO.write(new BufferedImage(100, 60, BufferedImage.TYPE_INT_RGB), "png", image.toFile());
+        Path outputDir = tempDir.resolve("out");
+
+        writer.submit(record(image.toString(), false, null, outputDir, OutputMode.JSON_WITH_VISUALIZATION));
+        writer.submit(record("scans/page.png", true, pngBytes(), outputDir, OutputMode.JSON_WITH_VISUALIZATION));
+        writer.submit(record(tempDir.resolve("skipped.png").toString(), false, null, outputDir, OutputMode.OFF));
+        // 关闭时写完队列中剩余的结果
+        writer.shutdown();
+        // 写完后归还队列中原图内容的占用
+        assertEquals(0, writer.getQueuedImageBytes());
+
+        JsonNode json = new ObjectMapper().readTree(outputDir.resolve("idcard_classification_result.json").toFile());
+        assertEquals(image.toString(), json.get("input_image").asText());
+        assertEquals("身份证", json.get("result").get("document_type").asText());
+        assertEquals("居民身份证", json.get("result").get("rec_texts").get(0).asText());
+
+        BufferedImage visualization = ImageIO.read(outputDir.resolve("idcard_ocr_res_img.png").toFile());
+        assertEquals(100, visualization.getWidth());
+        assertEquals(Color.RED.getRGB(), visualization.getRGB(10, 20));
+
+        assertTrue(Files.exists(outputDir.resolve("scans_page_classification_result.json")));
+        assertTrue(Files.exists(outputDir.resolve("scans_page_ocr_res_img.png")));
+        assertFalse(Files.exists(outputDir.resolve("skipped_classification_result.json")));
+    }
+
+    private OutputRecord record(String imagePath, boolean archiveEntry, byte[] imageBytes, Path outputDir,
+                                OutputMode mode) {
+        return OutputRecord.builder()
+                .imagePath(imagePath)
+                .archiveEntry(archiveEntry)
+                .imageBytes(imageBytes)
+                .outputDir(outputDir.toString())
+                .mode(mode)
+                .documentType("身份证")
+                .recTexts(Arrays.asList("居民身份证"))
+                .boxes(Arrays.asList(new Rectangle(10, 20, 40, 15)))
+                .build();
+    }
+
+    private static byte[] pngBytes() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB), "png", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,131 @@
+package com.twx.ocr.service.preflight;
+
+import com.twx.ocr.config.OcrConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文件预检测试类
+ */
+class PreflightFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final OcrConfig ocrConfig = new OcrConfig();
+
+    private final PreflightFilter preflightFilter = new PreflightFilter(ocrConfig);
+
+    @Test
+    void testAcceptsImageAndReadsDimensionsFromHeader() throws IOException {
+        Path image = writeImage("scan.png", 200, 100, "png");
+
+        PreflightResult result = preflightFilter.inspect(image.toString());
+
+        assertTrue(result.isAccepted());
+        assertEquals("png", result.getDetectedFormat());
+        assertFalse(result.isMisnamed());
+        assertEquals(200, result.getDimension().width);
+        assertEquals(100, result.getDimension().height);
+        assertEquals(200L * 100 * 3, result.getEstimatedDecodedBytes());
+    }
+
+    @Test
+    void testMisnamedImageIsAcceptedWithDetectedFormat() throws IOException {
+        // PNG内容保存为.jpg，按实际格式放行
+        Path image = writeImage("scan.jpg", 64, 64, "png");
+
+        PreflightResult result = preflightFilter.inspect(image.toString());
+
+        assertTrue(result.isAccepted());
+        assertEquals("png", result.getDetectedFormat());
+        assertTrue(result.isMisnamed());
+    }
+
+    @Test
+    void testRejectsBadInputs() throws IOException {
+        Path empty = Files.createFile(tempDir.resolve("empty.jpg"));
+        Path text = Files.write(tempDir.resolve("notes.png"), "hello".getBytes("UTF-8"));
+        Path tiny = writeImage("tiny.png", 8, 8, "png");
+        // JPEG魔数正确但文件头被截断
+        Path truncated = Files.write(tempDir.resolve("truncated.jpg"),
+                new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16});
+
+        assertEquals(RejectReason.NOT_FOUND, preflightFilter.inspect(tempDir.resolve("missing.jpg").toString())
+                .getRejectReason());
+        assertEquals(RejectReason.NOT_REGULAR_FILE, preflightFilter.inspect(tempDir.toString()).getRejectReason());
+        assertEquals(RejectReason.EMPTY_FILE, preflightFilter.inspect(empty.toString()).getRejectReason());
+        assertEquals(RejectReason.UNSUPPORTED_FORMAT, preflightFilter.inspect(text.toString()).getRejectReason());
+        assertEquals(RejectReason.IMAGE_TOO_SMALL, preflightFilter.inspect(tiny.toString()).getRejectReason());
+        assertEquals(RejectReason.CORRUPT_HEADER, preflightFilter.inspect(truncated.toString()).getRejectReason());
+        assertTrue(preflightFilter.inspect(empty.toString()).getMessage().contains("空文件"));
+    }
+
+    @Test
+    void testRejectsOutOfRangeHeaderDimensions() throws IOException {
+        // PNG宽度最高位为1（超过2^31-1）、BMP宽度为负、BMP高度为0，都视为文件头损坏
+        byte[] png = Files.readAllBytes(writeImage("wide.png", 64, 64, "png"));
+        png[16] = (byte) 0x80;
+        byte[] negativeWidth = Files.readAllBytes(writeImage("negative.bmp", 64, 64, "bmp"));
+        writeIntLittleEndian(negativeWidth, 18, -64);
+        byte[] zeroHeight = Files.readAllBytes(writeImage("zero.bmp", 64, 64, "bmp"));
+        writeIntLittleEndian(zeroHeight, 22, 0);
+        // 高度为负的BMP自上而下存储，是合法的
+        byte[] topDown = Files.readAllBytes(writeImage("topdown.bmp", 64, 64, "bmp"));
+        writeIntLittleEndian(topDown, 22, -64);
+
+        assertEquals(RejectReason.CORRUPT_HEADER, preflightFilter.inspect("wide.png", png.length, png).getRejectReason());
+        assertEquals(RejectReason.CORRUPT_HEADER,
+                preflightFilter.inspect("negative.bmp", negativeWidth.length, negativeWidth).getRejectReason());
+        assertEquals(RejectReason.CORRUPT_HEADER,
+                preflightFilter.inspect("zero.bmp", zeroHeight.length, zeroHeight).getRejectReason());
+        PreflightResult accepted = preflightFilter.inspect("topdown.bmp", topDown.length, topDown);
+        assertTrue(accepted.isAccepted());
+        assertEquals(64, accepted.getDimension().height);
+    }
+
+    @Test
+    void testInspectAllMarksExactDuplicatesAndSummarizesRejections() throws IOException {
+        Path first = writeImage("a.png", 64, 32, "png");
+        Path copy = Files.copy(first, tempDir.resolve("b.png"));
+        // 大小相同但内容不同的文件不算重复
+        Path sameSize = Files.write(tempDir.resolve("c.png"), Files.readAllBytes(first));
+        byte[] bytes = Files.readAllBytes(sameSize);
+        bytes[bytes.length - 5] ^= 1;
+        Files.write(sameSize, bytes);
+        Path empty = Files.createFile(tempDir.resolve("d.jpg"));
+
+        List<PreflightResult> results = preflightFilter.inspectAll(Arrays.asList(
+                first.toString(), copy.toString(), sameSize.toString(), empty.toString()));
+
+        assertNull(results.get(0).getDuplicateOf());
+        assertEquals(first.toString(), results.get(1).getDuplicateOf());
+        assertNull(results.get(2).getDuplicateOf());
+        Map<String, Integer> rejections = PreflightFilter.summarizeRejections(results);
+        assertEquals(1, rejections.size());
+        assertEquals(Integer.valueOf(1), rejections.get("EMPTY_FILE"));
+    }
+
+    private Path writeImage(String name, int width, int height, String format) throws IOException {
+        Path path = tempDir.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, path.toFile());
+        return path;
+    }
+
+    private static void writeIntLittleEndian(byte[] bytes, int offset, int value) {
+        for (int i = 0; i < 4; i++) {
+            bytes[offset + i] = (byte) (value >> (8 * i));
+        }
+    }
+}
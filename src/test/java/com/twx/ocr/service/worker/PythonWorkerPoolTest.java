@@ -0,0 +1,187 @@
+package com.twx.ocr.service.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.twx.ocr.config.OcrConfig;
+import com.twx.ocr.support.FakeWorkerSupport;
+import com.twx.ocr.tracing.Trace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 工作进程池测试类（使用假OCR工作进程）
+ */
+class PythonWorkerPoolTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PythonWorkerPool workerPool;
+
+    @BeforeAll
+    static void checkPython() {
+        assumeTrue(FakeWorkerSupport.pythonAvailable(), "未找到Python解释器，跳过工作进程池测试");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
+    }
+
+    @Test
+    void testWarmupMakesPoolReady() throws Exception {
+        workerPool = new PythonWorkerPool(FakeWorkerSupport.fakeWorkerConfig(2, 5));
+        assertFalse(workerPool.readiness().getReady());
+
+        workerPool.warmUp();
+        awaitReady(2);
+
+        assertEquals(2, workerPool.liveness().getWarmWorkers());
+        assertTrue(workerPool.liveness().getLastInferenceLatencyMs() >= 0);
+        if (Files.isDirectory(Paths.get("/proc/self"))) {
+            assertTrue(workerPool.liveness().getMaxWorkerRssMb() > 0);
+        }
+
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("image_path", "/tmp/idcard.jpg");
+        JsonNode result = workerPool.execute(request);
+        assertTrue(result.has("document_type"));
+
+        // Python侧上报的阶段耗时挂在进程往返区间之下
+        Trace trace = new Trace(null, null, "test");
+        workerPool.execute(request.deepCopy(), trace.getRoot());
+        Map<String, Double> timings = trace.getRoot().timings();
+        assertTrue(timings.containsKey("worker.acquire"));
+        assertTrue(timings.containsKey("worker.roundtrip"));
+        assertTrue(timings.containsKey("python.inference"));
+    }
+
+    @Test
+    void testCrashingWorkerNeverBecomesReady() throws Exception {
+        OcrConfig config = FakeWorkerSupport.fakeWorkerConfig(1, 5);
+        config.getWorkerEnvironment().put("FAKE_OCR_CRASH_RATE", "1.0");
+        workerPool = new PythonWorkerPool(config);
+        workerPool.warmUp();
+        awaitReady(0);
+
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("image_path", "/tmp/idcard.jpg");
+        assertThrows(RuntimeException.class, () -> workerPool.execute(request));
+        assertFalse(workerPool.readiness().getReady());
+    }
+
+    @Test
+    void testWorkerIsRecycledAfterMaxImages() throws Exception {
+        OcrConfig config = FakeWorkerSupport.fakeWorkerConfig(1, 5);
+        config.setWorkerMaxImages(3);
+        workerPool = new PythonWorkerPool(config);
+        workerPool.warmUp();
+        awaitReady(1);
+
+        // 预热算一张，再处理两张后达到阈值，之后的请求在回收过程中也不能失败
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("image_path", "/tmp/idcard.jpg");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (workerPool.liveness().getRecycledWorkers() == 0 && System.nanoTime() < deadline) {
+            assertTrue(workerPool.execute(request.deepCopy()).has("document_type"));
+        }
+
+        assertEquals(1, (int) workerPool.liveness().getRecycledWorkers());
+        assertEquals(1, (int) workerPool.liveness().getWarmWorkers());
+        assertTrue(workerPool.execute(request.deepCopy()).has("document_type"));
+    }
+
+    @Test
+    void testCancelledRequestKeepsWorkerBusyUntilItFinishes() throws Exception {
+        OcrConfig config = FakeWorkerSupport.fakeWorkerConfig(1, 500);
+        config.getWorkerEnvironment().put("FAKE_OCR_LATENCY_SIGMA", "0");
+        workerPool = new PythonWorkerPool(config);
+        workerPool.warmUp();
+        awaitReady(1);
+
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("image_path", "/tmp/idcard.jpg");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread cancelled = new Thread(() -> {
+            try {
+                workerPool.execute(request.deepCopy());
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        cancelled.start();
+        Thread.sleep(100);
+        cancelled.interrupt();
+        cancelled.join(5000);
+
+        // 被取消的请求仍在处理，进程不回到空闲队列；之后的请求等它处理完，拿到的是自己的结果
+        assertTrue(failure.get() instanceof InterruptedException);
+        assertEquals(1, (int) workerPool.liveness().getBusyWorkers());
+        ObjectNode next = objectMapper.createObjectNode();
+        next.put("image_path", "/tmp/passport.jpg");
+        JsonNode result = workerPool.execute(next);
+        assertTrue(result.has("document_type"));
+        assertEquals(next.get("id").asText(), result.get("id").asText());
+        assertEquals(0, (int) workerPool.liveness().getBusyWorkers());
+        assertEquals(1, (int) workerPool.liveness().getWarmWorkers());
+    }
+
+    @Test
+    void testZygoteForksWorkersWithoutReloadingModel() throws Exception {
+        // 模型加载耗时只发生在模板进程中，fork出的进程不再等待
+        OcrConfig config = FakeWorkerSupport.fakeWorkerConfig(2, 500);
+        config.setWorkerZygoteEnabled(true);
+        config.getWorkerEnvironment().put("FAKE_OCR_STARTUP_MS", "2000");
+        config.getWorkerEnvironment().put("FAKE_OCR_LATENCY_SIGMA", "0");
+        workerPool = new PythonWorkerPool(config);
+        workerPool.warmUp();
+        awaitReady(1);
+
+        long zygotePid = workerPool.liveness().getZygotePid();
+        assertTrue(zygotePid > 0);
+        assertTrue(workerPool.liveness().getLastWorkerStartMs() < 1000);
+
+        // 唯一的进程忙时，第二个请求按需fork新进程
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("image_path", "/tmp/idcard.jpg");
+        AtomicReference<JsonNode> first = new AtomicReference<>();
+        Thread busy = new Thread(() -> {
+            try {
+                first.set(workerPool.execute(request.deepCopy()));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        busy.start();
+        Thread.sleep(100);
+        JsonNode second = workerPool.execute(request.deepCopy());
+        busy.join(5000);
+
+        assertTrue(first.get().has("document_type"));
+        assertTrue(second.has("document_type"));
+        assertEquals(2, (int) workerPool.liveness().getWarmWorkers());
+        assertTrue(workerPool.liveness().getLastWorkerStartMs() < 1000);
+        assertEquals(zygotePid, (long) workerPool.liveness().getZygotePid());
+    }
+
+    private void awaitReady(int expectedWarmWorkers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline && !workerPool.liveness().getWarmupCompleted()) {
+            Thread.sleep(50);
+        }
+        assertTrue(workerPool.liveness().getWarmupCompleted());
+        assertEquals(expectedWarmWorkers, (int) workerPool.liveness().getWarmWorkers());
+    }
+}
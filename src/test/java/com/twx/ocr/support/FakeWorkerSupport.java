@@ -0,0 +1,95 @@
+package com.twx.ocr.support;
+
+import com.twx.ocr.config.OcrConfig;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 假OCR工作进程测试支持类
+ */
+public final class FakeWorkerSupport {
+
+    /**
+     * 运行假工作进程使用的Python解释器，可通过 -Dfake.python 指定
+     */
+    public static final String PYTHON = System.getProperty("fake.python", "python3");
+
+    private FakeWorkerSupport() {
+    }
+
+    /**
+     * 假工作进程脚本的绝对路径
+     */
+    public static String scriptPath() {
+        try {
+            return Paths.get(FakeWorkerSupport.class.getResource("/python/fake_ocr_worker.py").toURI())
+                    .toAbsolutePath().toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 当前机器是否有可用的Python解释器
+     */
+    public static boolean pythonAvailable() {
+        try {
+            Process process = new ProcessBuilder(PYTHON, "--version").redirectErrorStream(true).start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 指向假工作进程的配置
+     */
+    public static OcrConfig fakeWorkerConfig(int workerCount, int latencyMs) {
+        OcrConfig config = new OcrConfig();
+        config.setPythonPath(PYTHON);
+        config.setScriptPath(scriptPath());
+        config.setWorkerCount(workerCount);
+        config.setTimeoutSeconds(30);
+        config.setWorkerStartTimeoutSeconds(30);
+        config.getWorkerEnvironment().put("FAKE_OCR_STARTUP_MS", "0");
+        config.getWorkerEnvironment().put("FAKE_OCR_LATENCY_MS", String.valueOf(latencyMs));
+        return config;
+    }
+
+    /**
+     * 在目录下生成指定数量的小尺寸PNG图片
+     */
+    public static List<String> createImages(Path directory, int count) throws IOException {
+        Files.createDirectories(directory);
+        List<String> images = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BufferedImage image = new BufferedImage(64 + i % 16, 48, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            graphics.dispose();
+            // 每张图片内容不同，避免被批量预检当作重复文件跳过
+            image.setRGB(0, 0, i);
+
+            File file = directory.resolve("image" + i + ".png").toFile();
+            ImageIO.write(image, "png", file);
+            images.add(file.getAbsolutePath());
+        }
+        return images;
+    }
+}
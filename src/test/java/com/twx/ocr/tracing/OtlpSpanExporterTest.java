@@ -0,0 +1,70 @@
+package com.twx.ocr.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.twx.ocr.config.OcrConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 链路计时与OTLP导出测试类
+ */
+class OtlpSpanExporterTest {
+
+    @Test
+    void testTimingsAggregateDescendantsInStartOrder() {
+        Trace trace = new Trace(null, null, "ocr.process-batch");
+        Span first = trace.getRoot().child("image");
+        first.child("queue").end();
+        first.end();
+        Span second = trace.getRoot().child("image");
+        second.child("queue").end();
+        second.addCompletedChild("python.inference", second.getStartNanos(), 5_000_000);
+        second.end();
+
+        Map<String, Double> imageTimings = second.timings();
+        assertEquals(3, imageTimings.size());
+        assertEquals(5.0, imageTimings.get("python.inference"), 1e-9);
+        assertTrue(imageTimings.containsKey("total"));
+
+        // 请求级同名阶段累加
+        assertEquals(3, trace.getRoot().timings().size() - 1);
+    }
+
+    @Test
+    void testNoopSpanRecordsNothing() {
+        Span span = Span.childOf(null, "queue");
+        span.child("worker.acquire").end();
+        span.end();
+
+        assertFalse(span.isRecording());
+        assertNull(span.timings());
+    }
+
+    @Test
+    void testOtlpJsonEncoding() {
+        Trace trace = new Trace("0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331", "ocr.process-single");
+        Span image = trace.getRoot().child("image").setAttribute("image.path", "/tmp/a.jpg");
+        image.setError("未能识别到任何文字内容");
+        image.end();
+        trace.getRoot().end();
+
+        JsonNode request = new OtlpSpanExporter(new OcrConfig()).toOtlpJson(Collections.singletonList(trace));
+        JsonNode resourceSpans = request.path("resourceSpans").get(0);
+        assertEquals("service.name", resourceSpans.path("resource").path("attributes").get(0).path("key").asText());
+
+        JsonNode spans = resourceSpans.path("scopeSpans").get(0).path("spans");
+        assertEquals(2, spans.size());
+        JsonNode imageSpan = spans.get(0);
+        JsonNode rootSpan = spans.get(1);
+        assertEquals("0af7651916cd43dd8448eb211c80319c", imageSpan.path("traceId").asText());
+        assertEquals(rootSpan.path("spanId").asText(), imageSpan.path("parentSpanId").asText());
+        assertEquals("b7ad6b7169203331", rootSpan.path("parentSpanId").asText());
+        assertEquals(2, imageSpan.path("status").path("code").asInt());
+        assertTrue(Long.parseLong(imageSpan.path("endTimeUnixNano").asText())
+                >= Long.parseLong(imageSpan.path("startTimeUnixNano").asText()));
+    }
+}
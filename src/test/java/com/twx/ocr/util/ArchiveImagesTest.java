@@ -0,0 +1,97 @@
+package com.twx.ocr.util;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 压缩包图片读取测试类
+ */
+class ArchiveImagesTest {
+
+    private static final String[] FORMATS = {"jpg", "png"};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testIsArchive() {
+        assertTrue(ArchiveImages.isArchive("/data/scans.ZIP"));
+        assertTrue(ArchiveImages.isArchive("scans.tar"));
+        assertTrue(ArchiveImages.isArchive("scans.tar.gz"));
+        assertTrue(ArchiveImages.isArchive("scans.tgz"));
+        assertFalse(ArchiveImages.isArchive("scan.jpg"));
+        assertFalse(ArchiveImages.isArchive("scans.gz"));
+    }
+
+    @Test
+    void testReadsZipEntriesInOrderAndSkipsNonImages() throws Exception {
+        Path archive = tempDir.resolve("scans.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            putZipEntry(zip, "b.jpg", "bbb");
+            putZipEntry(zip, "__MACOSX/._b.jpg", "meta");
+            putZipEntry(zip, "notes.txt", "text");
+            putZipEntry(zip, "dir/a.PNG", "aa");
+        }
+
+        List<ArchiveImages.Entry> entries = readAll(archive, 1024);
+
+        assertEquals(2, entries.size());
+        assertEquals("b.jpg", entries.get(0).getName());
+        assertEquals("bbb", new String(entries.get(0).getContent(), StandardCharsets.UTF_8));
+        assertEquals("dir/a.PNG", entries.get(1).getName());
+        assertEquals(2, entries.get(1).getSize());
+    }
+
+    @Test
+    void testReadsTarGzAndDropsOversizedContent() throws Exception {
+        Path archive = tempDir.resolve("scans.tar.gz");
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(Files.newOutputStream(archive)))) {
+            putTarEntry(tar, "small.jpg", "ok");
+            putTarEntry(tar, "large.png", "0123456789");
+        }
+
+        List<ArchiveImages.Entry> entries = readAll(archive, 5);
+
+        assertEquals(2, entries.size());
+        assertEquals("ok", new String(entries.get(0).getContent(), StandardCharsets.UTF_8));
+        // 超过大小上限的条目只保留大小，不读入内容
+        assertNull(entries.get(1).getContent());
+        assertEquals(10, entries.get(1).getSize());
+    }
+
+    private List<ArchiveImages.Entry> readAll(Path archive, long maxEntryBytes) throws Exception {
+        List<ArchiveImages.Entry> entries = new ArrayList<>();
+        ArchiveImages.read(archive.toString(), FORMATS, maxEntryBytes, entries::add);
+        return entries;
+    }
+
+    private static void putZipEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static void putTarEntry(TarArchiveOutputStream tar, String name, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(bytes.length);
+        tar.putArchiveEntry(entry);
+        tar.write(bytes);
+        tar.closeArchiveEntry();
+    }
+}
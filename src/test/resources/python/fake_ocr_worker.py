@@ -0,0 +1,207 @@
+"""
+压测用的假OCR工作进程
+与 ocr_classifier.py 的 --worker、--zygote 协议一致，但不依赖PaddleOCR和OpenCV，
+按环境变量配置的延迟分布和失败率返回固定的识别结果，可以在任意Linux机器上运行
+"""
+
+import json
+import os
+import random
+import select
+import signal
+import socket
+import sys
+import time
+import zlib
+
+# 识别耗时中位数（毫秒），实际耗时服从对数正态分布
+LATENCY_MS = float(os.environ.get("FAKE_OCR_LATENCY_MS", "200"))
+# 对数正态分布的sigma，越大长尾越明显
+LATENCY_SIGMA = float(os.environ.get("FAKE_OCR_LATENCY_SIGMA", "0.3"))
+# 返回识别失败结果的概率
+FAILURE_RATE = float(os.environ.get("FAKE_OCR_FAILURE_RATE", "0.0"))
+# 处理请求时进程直接崩溃的概率
+CRASH_RATE = float(os.environ.get("FAKE_OCR_CRASH_RATE", "0.0"))
+# 模拟模型加载耗时（毫秒）
+STARTUP_MS = float(os.environ.get("FAKE_OCR_STARTUP_MS", "500"))
+
+SAMPLES = [
+    ("身份证", ["中华人民共和国", "居民身份证", "姓名", "张三", "性别男民族汉",
+              "出生1949年12月31日", "住址北京市朝阳区某某街道1号", "公民身份号码11010519491231002X"]),
+    ("营业执照", ["营业执照", "统一社会信用代码", "91350100M000100Y43", "名称", "某某科技有限公司",
+               "法定代表人", "李四", "成立日期2015年01月01日"]),
+    ("驾驶证", ["中华人民共和国机动车驾驶证", "证号11010519491231002X", "姓名", "王五",
+              "准驾车型C1", "初次领证日期2010-05-01"]),
+    ("护照", ["中华人民共和国护照", "PASSPORT", "姓名", "赵六", "签发机关", "公安部出入境管理局",
+            "P<CHNZHAO<<LIU<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<", "E123456784CHN9001014M3001014<<<<<<<<<<<<<<02"]),
+]
+
+
+def protocol_writer(stream):
+    def send(message):
+        stream.write(json.dumps(message, ensure_ascii=False) + "\n")
+        stream.flush()
+    return send
+
+
+def serve_requests(lines, send):
+    for line in lines:
+        line = line.strip()
+        if not line:
+            continue
+
+        request = json.loads(line)
+        if request.get("cmd") == "shutdown":
+            break
+
+        # 快速识别（带max_side_len）只识别缩小后的图片，耗时约为完整识别的三分之一
+        quick = request.get("max_side_len") is not None
+        start = time.time()
+        latency_ms = LATENCY_MS / 3 if quick else LATENCY_MS
+        time.sleep(latency_ms * random.lognormvariate(0, LATENCY_SIGMA) / 1000.0)
+        inference_ms = round((time.time() - start) * 1000, 1)
+
+        if random.random() < CRASH_RATE:
+            os._exit(3)
+
+        if random.random() < FAILURE_RATE:
+            result = {"error": "未能识别到任何文字内容"}
+        else:
+            # 同一图片总是返回同一类型，便于核对结果
+            document_type, rec_texts = SAMPLES[zlib.crc32(request.get("image_path", "").encode("utf-8")) % len(SAMPLES)]
+            # 快速识别只返回前几行大字（标题、号码），与真实缩图识别的效果相近
+            result = {"document_type": document_type, "rec_texts": rec_texts[:4] if quick else rec_texts}
+            if request.get("return_boxes"):
+                result["boxes"] = [[10, 10 + i * 20, 110, 26 + i * 20] for i in range(len(result["rec_texts"]))]
+
+        result["id"] = request.get("id")
+        result["trace_id"] = request.get("trace_id")
+        result["timings"] = {"inference": inference_ms}
+        result["elapsed_ms"] = int((time.time() - start) * 1000)
+        send(result)
+
+
+def read_hello(connection, pending):
+    """逐字节读取fork请求，读完一行返回解析结果，未读完返回None，出错时关闭连接"""
+    buffer = pending[connection][0]
+    while True:
+        try:
+            byte = connection.recv(1)
+        except BlockingIOError:
+            pending[connection][0] = buffer
+            return None
+        except OSError:
+            byte = b""
+        if not byte or len(buffer) >= 1024:
+            del pending[connection]
+            connection.close()
+            return None
+        if byte == b"\n":
+            break
+        buffer += byte
+    try:
+        hello = json.loads(buffer.decode("utf-8"))
+    except ValueError:
+        hello = None
+    if not isinstance(hello, dict):
+        del pending[connection]
+        connection.close()
+        return None
+    return hello
+
+
+def run_zygote(send):
+    """与 ocr_classifier.py 的 --zygote 协议一致：启动耗时只在模板进程中发生一次，fork前校验令牌"""
+    token = os.environ.get("OCR_ZYGOTE_TOKEN", "")
+    server = socket.socket(socket.AF_INET, socket.SOCK_STREAM)
+    server.bind(("127.0.0.1", 0))
+    server.listen(64)
+    send({"event": "ready", "pid": os.getpid(), "port": server.getsockname()[1]})
+
+    children = set()
+    pending = {}
+    control = b""
+    while True:
+        readable, _, _ = select.select([server, sys.stdin.fileno()] + list(pending), [], [], 1.0)
+        now = time.time()
+        for connection in [c for c, (_, deadline) in pending.items() if deadline < now]:
+            del pending[connection]
+            connection.close()
+        for pid in list(children):
+            try:
+                if os.waitpid(pid, os.WNOHANG)[0]:
+                    children.discard(pid)
+            except ChildProcessError:
+                children.discard(pid)
+
+        if sys.stdin.fileno() in readable:
+            data = os.read(sys.stdin.fileno(), 4096)
+            if not data:
+                break
+            control += data
+            *lines, control = control.split(b"\n")
+            commands = []
+            for line in lines:
+                if not line.strip():
+                    continue
+                try:
+                    command = json.loads(line.decode("utf-8"))
+                except ValueError as e:
+                    print(f"忽略无法解析的控制命令: {e}", file=sys.stderr, flush=True)
+                    continue
+                if isinstance(command, dict):
+                    commands.append(command)
+            if any(command.get("cmd") == "shutdown" for command in commands):
+                break
+            for command in commands:
+                if command.get("cmd") == "kill" and command.get("pid") in children:
+                    os.kill(command["pid"], signal.SIGKILL)
+
+        if server in readable:
+            connection, _ = server.accept()
+            connection.setblocking(False)
+            pending[connection] = [b"", time.time() + 5]
+
+        for connection in [c for c in readable if c in pending]:
+            hello = read_hello(connection, pending)
+            if hello is None:
+                continue
+            del pending[connection]
+            if hello.get("cmd") != "fork" or hello.get("token") != token:
+                connection.close()
+                continue
+            pid = os.fork()
+            if pid == 0:
+                server.close()
+                for other in pending:
+                    other.close()
+                try:
+                    connection.setblocking(True)
+                    connection.setsockopt(socket.IPPROTO_TCP, socket.TCP_NODELAY, 1)
+                    reader = connection.makefile("r", encoding="utf-8")
+                    child_send = protocol_writer(connection.makefile("w", encoding="utf-8"))
+                    child_send({"event": "ready", "pid": os.getpid()})
+                    serve_requests(reader, child_send)
+                finally:
+                    os._exit(0)
+            children.add(pid)
+            connection.close()
+
+
+def main():
+    if len(sys.argv) != 2 or sys.argv[1] not in ("--worker", "--zygote"):
+        print(json.dumps({"error": "用法: python fake_ocr_worker.py --worker|--zygote"}, ensure_ascii=False))
+        sys.exit(1)
+
+    send = protocol_writer(sys.stdout)
+    time.sleep(STARTUP_MS / 1000.0)
+    if sys.argv[1] == "--zygote":
+        run_zygote(send)
+        return
+
+    send({"event": "ready", "pid": os.getpid()})
+    serve_requests(sys.stdin, send)
+
+
+if __name__ == "__main__":
+    main()